@@ -0,0 +1,363 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.NoSuchElementException;
+import java.util.TimeZone;
+
+/**
+ * Working-day arithmetic over epoch days (days since 1970-01-01), for scheduling without
+ * {@link java.util.Date} or {@link Calendar} objects.
+ *
+ * <p>A calendar is a set of working weekdays plus a set of holidays. Holidays are kept as a sorted
+ * {@code long[]} of epoch days restricted to working weekdays, so counting the working days between
+ * two dates is a whole-week multiplication plus two binary searches, whatever the distance. Day
+ * sequences ({@link #workingDaysFrom(long)}, {@link #weekly(long, long, int, int...)}) are produced
+ * lazily by an {@link EpochDayIterator}.</p>
+ *
+ * <p>Instances are immutable and thread-safe. Weekdays use the {@link Calendar} constants
+ * {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * BusinessCalendar calendar = BusinessCalendar.mondayToFriday(holidayEpochDays);
+ * long today = BusinessCalendar.toEpochDay(System.currentTimeMillis(), TimeZone.getDefault());
+ *
+ * long[] nextFive = calendar.nextWorkingDays(today, 5);
+ * long due = calendar.addWorkingDays(today, 10);
+ * long remaining = calendar.workingDaysBetween(today, deadlineDay);
+ * }</pre>
+ * </p>
+ */
+public final class BusinessCalendar {
+
+    private static final int DAYS_PER_WEEK = 7;
+
+    /**
+     * Bit {@code dayOfWeek} is set for every working weekday.
+     */
+    private final int weekdayMask;
+    private final int workingDaysPerWeek;
+    private final long[] holidays;
+
+    /**
+     * Creates a calendar.
+     *
+     * @param workingWeekdays The working weekdays, as {@link Calendar} day-of-week constants.
+     * @param holidays        Epoch days that are not worked, in any order; may be {@code null}.
+     *                        Holidays that fall on a non-working weekday are ignored.
+     * @throws IllegalArgumentException If no working weekday is given or a weekday is out of range.
+     */
+    public BusinessCalendar(int[] workingWeekdays, long[] holidays) {
+        this.weekdayMask = maskOf(workingWeekdays);
+        if (weekdayMask == 0) {
+            throw new IllegalArgumentException("At least one working weekday is required");
+        }
+        this.workingDaysPerWeek = Integer.bitCount(weekdayMask);
+
+        long[] sorted = holidays != null ? Arrays.copyOf(holidays, holidays.length) : new long[0];
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            long day = sorted[i];
+            if (isWorkingWeekday(day) && (size == 0 || sorted[size - 1] != day)) {
+                sorted[size++] = day;
+            }
+        }
+        this.holidays = Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Creates a calendar with Monday to Friday as working weekdays.
+     *
+     * @param holidays Epoch days that are not worked, in any order; may be {@code null}.
+     * @return The calendar.
+     */
+    public static BusinessCalendar mondayToFriday(long[] holidays) {
+        return new BusinessCalendar(new int[]{Calendar.MONDAY, Calendar.TUESDAY, Calendar.WEDNESDAY,
+                Calendar.THURSDAY, Calendar.FRIDAY}, holidays);
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Returns the epoch day of an instant in the given time zone.
+     *
+     * @param epochMillis The instant.
+     * @param zone        The zone whose local date is taken.
+     * @return The number of days since 1970-01-01 in that zone.
+     */
+    public static long toEpochDay(long epochMillis, TimeZone zone) {
+        return CivilTime.floorDiv(epochMillis + zone.getOffset(epochMillis), CivilTime.MILLIS_PER_DAY);
+    }
+
+    /**
+     * Returns the epoch day of a calendar date.
+     *
+     * @param year  The year (e.g. 2025).
+     * @param month The month, 1-12.
+     * @param day   The day of month, 1-31.
+     * @return The number of days since 1970-01-01.
+     */
+    public static long toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > CivilTime.daysInMonth(year, month)) {
+            throw new IllegalArgumentException("Invalid date: " + year + "-" + month + "-" + day);
+        }
+        return CivilTime.daysFromCivil(year, month, day);
+    }
+
+    /**
+     * Returns the first instant of an epoch day in the given time zone.
+     *
+     * @param epochDay The number of days since 1970-01-01.
+     * @param zone     The zone whose local midnight is wanted.
+     * @return Epoch milliseconds of local midnight, or of the first valid instant if midnight falls
+     * in a daylight-saving gap.
+     */
+    public static long startOfDayMillis(long epochDay, TimeZone zone) {
+        return CivilTime.localToUtcMillis(epochDay * CivilTime.MILLIS_PER_DAY, zone);
+    }
+
+    /**
+     * Returns the day of week of an epoch day.
+     *
+     * @param epochDay The number of days since 1970-01-01.
+     * @return A {@link Calendar} day-of-week constant.
+     */
+    public static int dayOfWeek(long epochDay) {
+        return CivilTime.dayOfWeek(epochDay);
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Returns whether the day is a working weekday and not a holiday.
+     *
+     * @param epochDay The day to check.
+     * @return {@code true} if it is a working day.
+     */
+    public boolean isWorkingDay(long epochDay) {
+        return isWorkingWeekday(epochDay) && Arrays.binarySearch(holidays, epochDay) < 0;
+    }
+
+    /**
+     * Counts the working days in {@code [fromDay, toDay)}.
+     *
+     * <p>Runs in O(log h) for h holidays, independent of the distance between the days.</p>
+     *
+     * @param fromDay The first day counted.
+     * @param toDay   The day after the last day counted.
+     * @return The number of working days, negated if {@code toDay} is before {@code fromDay}.
+     */
+    public long workingDaysBetween(long fromDay, long toDay) {
+        if (toDay < fromDay) {
+            return -workingDaysBetween(toDay, fromDay);
+        }
+
+        long weeks = (toDay - fromDay) / DAYS_PER_WEEK;
+        long count = weeks * workingDaysPerWeek;
+        for (long day = fromDay + weeks * DAYS_PER_WEEK; day < toDay; day++) {
+            if (isWorkingWeekday(day)) {
+                count++;
+            }
+        }
+        return count - (lowerBound(toDay) - lowerBound(fromDay));
+    }
+
+    /**
+     * Returns the working day that is {@code workingDays} working days after (or, if negative,
+     * before) the given day.
+     *
+     * @param epochDay    The starting day; it does not need to be a working day.
+     * @param workingDays The number of working days to move; {@code 0} returns {@code epochDay}.
+     * @return The resulting epoch day.
+     */
+    public long addWorkingDays(long epochDay, long workingDays) {
+        if (workingDays == 0) {
+            return epochDay;
+        }
+        if (workingDays > 0) {
+            // Smallest day d with workingDaysBetween(epochDay + 1, d + 1) >= workingDays.
+            long low = epochDay + 1;
+            long span = (workingDays / workingDaysPerWeek + 1) * DAYS_PER_WEEK;
+            while (workingDaysBetween(epochDay + 1, epochDay + 1 + span) < workingDays) {
+                span *= 2;
+            }
+            long high = epochDay + span;
+            while (low < high) {
+                long middle = low + (high - low) / 2;
+                if (workingDaysBetween(epochDay + 1, middle + 1) >= workingDays) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+
+        // Largest day d with workingDaysBetween(d, epochDay) >= -workingDays.
+        long needed = -workingDays;
+        long high = epochDay - 1;
+        long span = (needed / workingDaysPerWeek + 1) * DAYS_PER_WEEK;
+        while (workingDaysBetween(epochDay - span, epochDay) < needed) {
+            span *= 2;
+        }
+        long low = epochDay - span;
+        while (low < high) {
+            long middle = high - (high - low) / 2;
+            if (workingDaysBetween(middle, epochDay) >= needed) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first {@code count} working days on or after {@code fromDay}.
+     *
+     * @param fromDay The first candidate day.
+     * @param count   The number of days wanted.
+     * @return The working days in ascending order.
+     */
+    public long[] nextWorkingDays(long fromDay, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        long[] days = new long[count];
+        EpochDayIterator iterator = workingDaysFrom(fromDay);
+        for (int i = 0; i < count; i++) {
+            days[i] = iterator.nextDay();
+        }
+        return days;
+    }
+
+    /**
+     * Returns an unbounded, lazy sequence of the working days on or after {@code fromDay}.
+     *
+     * @param fromDay The first candidate day.
+     * @return The iterator.
+     */
+    public EpochDayIterator workingDaysFrom(long fromDay) {
+        return new WorkingDayIterator(fromDay, Long.MAX_VALUE, weekdayMask, 1);
+    }
+
+    /**
+     * Returns a lazy sequence of weekly slots: the given weekdays of every {@code intervalWeeks}-th
+     * week, counting weeks from {@code fromDay}, within {@code [fromDay, untilDay)}. Slots that are
+     * not working days in this calendar are skipped.
+     *
+     * <pre>{@code
+     * // Every other Tuesday and Thursday for the next six months.
+     * EpochDayIterator slots = calendar.weekly(today, today + 183, 2, Calendar.TUESDAY, Calendar.THURSDAY);
+     * }</pre>
+     *
+     * @param fromDay       The first candidate day; also the start of the first week.
+     * @param untilDay      The day after the last candidate, or {@link Long#MAX_VALUE} for no end.
+     * @param intervalWeeks {@code 1} for every week, {@code 2} for every other week, and so on.
+     * @param weekdays      The weekdays of the slot, as {@link Calendar} day-of-week constants.
+     * @return The iterator.
+     * @throws IllegalArgumentException If the interval is not positive, or none of the weekdays is
+     *                                  a working weekday.
+     */
+    public EpochDayIterator weekly(long fromDay, long untilDay, int intervalWeeks, int... weekdays) {
+        if (intervalWeeks <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + intervalWeeks);
+        }
+        int mask = maskOf(weekdays) & weekdayMask;
+        if (mask == 0) {
+            throw new IllegalArgumentException("None of the weekdays is a working weekday");
+        }
+        return new WorkingDayIterator(fromDay, untilDay, mask, intervalWeeks);
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    private boolean isWorkingWeekday(long epochDay) {
+        return (weekdayMask & (1 << CivilTime.dayOfWeek(epochDay))) != 0;
+    }
+
+    /**
+     * Returns the number of holidays before {@code epochDay}.
+     */
+    private int lowerBound(long epochDay) {
+        int index = Arrays.binarySearch(holidays, epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int maskOf(int[] weekdays) {
+        if (weekdays == null) {
+            throw new IllegalArgumentException("Weekdays must not be null");
+        }
+        int mask = 0;
+        for (int weekday : weekdays) {
+            if (weekday < Calendar.SUNDAY || weekday > Calendar.SATURDAY) {
+                throw new IllegalArgumentException("Invalid weekday: " + weekday);
+            }
+            mask |= 1 << weekday;
+        }
+        return mask;
+    }
+
+    /**
+     * Walks days forward, keeping a cursor into the holiday array so each holiday is compared once.
+     */
+    private final class WorkingDayIterator implements EpochDayIterator {
+
+        private final long startDay;
+        private final long untilDay;
+        private final int mask;
+        private final int intervalWeeks;
+
+        private long day;
+        private int holidayIndex;
+        private boolean ready;
+
+        WorkingDayIterator(long fromDay, long untilDay, int mask, int intervalWeeks) {
+            this.startDay = fromDay;
+            this.untilDay = untilDay;
+            this.mask = mask;
+            this.intervalWeeks = intervalWeeks;
+            this.day = fromDay;
+            this.holidayIndex = lowerBound(fromDay);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (ready) {
+                return true;
+            }
+            while (day < untilDay) {
+                long week = (day - startDay) / DAYS_PER_WEEK;
+                if (week % intervalWeeks != 0) {
+                    // Jump to the first day of the next week in the interval.
+                    day = startDay + (week / intervalWeeks + 1) * intervalWeeks * DAYS_PER_WEEK;
+                    holidayIndex = lowerBound(day);
+                    continue;
+                }
+                while (holidayIndex < holidays.length && holidays[holidayIndex] < day) {
+                    holidayIndex++;
+                }
+                boolean holiday = holidayIndex < holidays.length && holidays[holidayIndex] == day;
+                if (!holiday && (mask & (1 << CivilTime.dayOfWeek(day))) != 0) {
+                    ready = true;
+                    return true;
+                }
+                day++;
+            }
+            return false;
+        }
+
+        @Override
+        public long nextDay() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return day++;
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.TimeZone;
+
+/**
+ * Allocation-free calendar arithmetic on the proleptic Gregorian calendar, shared by the
+ * hand-written parsers and formatters of this package.
+ */
+final class CivilTime {
+
+    static final long MILLIS_PER_HOUR = 3_600_000L;
+    static final long MILLIS_PER_DAY = 86_400_000L;
+    static final long MICROS_PER_MILLI = 1_000L;
+
+    private CivilTime() {
+    }
+
+    /**
+     * Returns the number of days from 1970-01-01 to the given date.
+     *
+     * @param year  The year (e.g. 2025).
+     * @param month The month, 1-12.
+     * @param day   The day of month, 1-31.
+     * @return The epoch day.
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        // Howard Hinnant's days_from_civil, years start in March so the leap day is last.
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Returns the year, month and day of an epoch day packed as {@code year * 10000 + month * 100 + day}.
+     *
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The packed date, e.g. {@code 20250102}.
+     */
+    static long civilFromDays(long epochDay) {
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Returns the number of days in the given month.
+     */
+    static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Converts local wall-clock milliseconds (as if the zone were UTC) to a UTC instant.
+     *
+     * <p>For wall times that fall into a daylight-saving gap or overlap the result matches the
+     * resolution used by {@link java.util.GregorianCalendar}: the offset in force just before the
+     * transition is applied.</p>
+     *
+     * @param localMillis Milliseconds since 1970-01-01T00:00 in local wall-clock time.
+     * @param zone        The zone that defines the wall clock.
+     * @return Milliseconds since the Unix epoch.
+     */
+    static long localToUtcMillis(long localMillis, TimeZone zone) {
+        int offset = zone.getOffset(localMillis - zone.getRawOffset());
+        int adjusted = zone.getOffset(localMillis - offset);
+        return localMillis - adjusted;
+    }
+
+    /**
+     * Returns the day of week of an epoch day using the {@link java.util.Calendar} numbering,
+     * {@code Calendar.SUNDAY} (1) to {@code Calendar.SATURDAY} (7).
+     */
+    static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday.
+        return (int) floorMod(epochDay + 4, 7) + 1;
+    }
+
+    /**
+     * Floor division for a positive divisor; {@code Math.floorDiv} is only available from API 24.
+     */
+    static long floorDiv(long value, long divisor) {
+        long quotient = value / divisor;
+        return (value % divisor != 0 && value < 0) ? quotient - 1 : quotient;
+    }
+
+    /**
+     * Floor modulus for a positive divisor; {@code Math.floorMod} is only available from API 24.
+     */
+    static long floorMod(long value, long divisor) {
+        long remainder = value % divisor;
+        return remainder < 0 ? remainder + divisor : remainder;
+    }
+
+}
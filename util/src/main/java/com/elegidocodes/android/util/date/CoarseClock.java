@@ -0,0 +1,83 @@
+package com.elegidocodes.android.util.date;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link EpochClock} whose value is refreshed every {@code tickMillis} by a single background
+ * ticker and read with one volatile load.
+ *
+ * <p>Code that asks for "now" thousands of times per frame (list adapters, countdowns) can share
+ * one coarse clock instead of making a system call per row. Every read within the same tick
+ * returns the same value, so all rows rendered in one frame agree on the current time.</p>
+ *
+ * <p>The ticker thread is a daemon and runs until {@link #close()} is called.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * CoarseClock clock = new CoarseClock(250);
+ * DateUtil.setDefaultClock(clock);
+ * // ...
+ * clock.close();
+ * }</pre>
+ * </p>
+ */
+public final class CoarseClock implements EpochClock, Closeable {
+
+    private final long tickMillis;
+    private final ScheduledExecutorService ticker;
+    private volatile long now;
+
+    /**
+     * Creates a clock and starts its ticker.
+     *
+     * @param tickMillis How often the cached value is refreshed, in milliseconds.
+     * @throws IllegalArgumentException If {@code tickMillis} is not positive.
+     */
+    public CoarseClock(long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.now = System.currentTimeMillis();
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "CoarseClock-" + tickMillis + "ms");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.scheduleAtFixedRate(() -> now = System.currentTimeMillis(), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        this.ticker = executor;
+    }
+
+    /**
+     * Returns the value captured at the most recent tick.
+     *
+     * @return Epoch milliseconds, at most one tick old.
+     */
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Returns the refresh interval.
+     *
+     * @return The tick in milliseconds.
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Stops the ticker. The clock keeps returning the last captured value afterwards.
+     */
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+}
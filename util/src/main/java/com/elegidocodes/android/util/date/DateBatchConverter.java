@@ -0,0 +1,176 @@
+package com.elegidocodes.android.util.date;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts whole columns of date strings from one format to another.
+ *
+ * <p>The input and output formatters are compiled once per batch. Large inputs are split into
+ * ranges that run on a shared {@link ForkJoinPool}; each range works on its own clone of the
+ * formatters, so no mutable state is shared between workers. Rows that fail to parse are recorded
+ * by index instead of aborting the batch.</p>
+ *
+ * <p>Rows are carried as epoch microseconds between parsing and formatting, so converting from one
+ * {@code _WITH_MICROS} format to another keeps the sub-millisecond digits.</p>
+ */
+final class DateBatchConverter {
+
+    /**
+     * Ranges at or below this many rows are converted on the current thread without splitting.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 2048;
+
+    private final FixedWidthDateParser fastParser;
+    private final DateFormat inputPrototype;
+    private final DateFormats microsOutput;
+    private final DateFormat outputPrototype;
+    private final TimeZone zone;
+
+    private DateBatchConverter(String inputPattern, DateFormats microsOutput, DateFormat outputPrototype) {
+        this.zone = TimeZone.getDefault();
+        this.fastParser = fastParserFor(inputPattern);
+        this.inputPrototype = fastParser == null ? new SimpleDateFormat(inputPattern, Locale.getDefault()) : null;
+        this.microsOutput = microsOutput;
+        this.outputPrototype = outputPrototype;
+    }
+
+    /**
+     * Creates a converter from one {@link SimpleDateFormat} pattern to another.
+     */
+    static DateBatchConverter forPatterns(String inputPattern, String outputPattern) {
+        DateFormats microsOutput = null;
+        for (DateFormats format : new DateFormats[]{DateFormats.DATETIME_WITH_MICROS, DateFormats.TIME_WITH_MICROS}) {
+            if (format.getPattern().equals(outputPattern)) {
+                microsOutput = format;
+            }
+        }
+        DateFormat output = microsOutput == null ? new SimpleDateFormat(outputPattern, Locale.getDefault()) : null;
+        return new DateBatchConverter(inputPattern, microsOutput, output);
+    }
+
+    /**
+     * Creates a converter from a {@link SimpleDateFormat} pattern to a localized {@link DateFormat} style.
+     */
+    static DateBatchConverter forStyle(String inputPattern, int style, Locale locale) {
+        DateFormat output = (DateFormat) DateFormatCache.prototype(style, locale).clone();
+        output.setTimeZone(TimeZone.getDefault());
+        return new DateBatchConverter(inputPattern, null, output);
+    }
+
+    /**
+     * Converts every row of {@code input}.
+     */
+    DateConversionResult convert(CharSequence[] input) {
+        String[] values = new String[input.length];
+        int[] errorOffsets = new int[input.length];
+        ConvertTask task = new ConvertTask(input, values, errorOffsets, 0, input.length);
+        if (input.length <= SEQUENTIAL_THRESHOLD) {
+            task.compute();
+        } else {
+            PoolHolder.POOL.invoke(task);
+        }
+        return new DateConversionResult(values, errorOffsets);
+    }
+
+    private static FixedWidthDateParser fastParserFor(String pattern) {
+        for (DateFormats format : DateFormats.values()) {
+            if (format.getPattern().equals(pattern)) {
+                return format.getParser();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lazily created pool shared by all batch conversions. {@code ForkJoinPool.commonPool()} is
+     * only available from API 24, so the library keeps its own.
+     */
+    private static final class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private final class ConvertTask extends RecursiveAction {
+
+        private final CharSequence[] input;
+        private final String[] values;
+        private final int[] errorOffsets;
+        private final int from;
+        private final int to;
+
+        ConvertTask(CharSequence[] input, String[] values, int[] errorOffsets, int from, int to) {
+            this.input = input;
+            this.values = values;
+            this.errorOffsets = errorOffsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ConvertTask(input, values, errorOffsets, from, middle),
+                        new ConvertTask(input, values, errorOffsets, middle, to));
+                return;
+            }
+
+            // Each leaf owns clones of the prototypes, so workers never share a formatter.
+            DateFormat inputFormat = inputPrototype != null ? (DateFormat) inputPrototype.clone() : null;
+            DateFormat outputFormat = outputPrototype != null ? (DateFormat) outputPrototype.clone() : null;
+            ParsePosition position = new ParsePosition(0);
+            Date date = new Date();
+            StringBuilder builder = microsOutput != null ? new StringBuilder(26) : null;
+
+            for (int row = from; row < to; row++) {
+                CharSequence text = input[row];
+                errorOffsets[row] = -1;
+                if (text == null) {
+                    errorOffsets[row] = 0;
+                    continue;
+                }
+
+                // Microseconds, so a _WITH_MICROS input keeps its sub-millisecond digits.
+                long micros;
+                if (fastParser != null) {
+                    try {
+                        micros = fastParser.parseMicros(text, zone);
+                    } catch (ParseException e) {
+                        errorOffsets[row] = e.getErrorOffset();
+                        continue;
+                    }
+                } else {
+                    position.setIndex(0);
+                    position.setErrorIndex(-1);
+                    Date parsed = inputFormat.parse(text.toString(), position);
+                    // A zone named in the text ("PST") sticks to the formatter; undo it for the next row.
+                    DateFormatCache.reset(inputFormat, zone);
+                    if (parsed == null) {
+                        errorOffsets[row] = Math.max(position.getErrorIndex(), 0);
+                        continue;
+                    }
+                    micros = parsed.getTime() * CivilTime.MICROS_PER_MILLI;
+                }
+
+                if (builder != null) {
+                    builder.setLength(0);
+                    values[row] = MicroTimestamp.format(micros, microsOutput, zone, builder).toString();
+                } else {
+                    date.setTime(CivilTime.floorDiv(micros, CivilTime.MICROS_PER_MILLI));
+                    values[row] = outputFormat.format(date);
+                }
+            }
+        }
+
+    }
+
+}
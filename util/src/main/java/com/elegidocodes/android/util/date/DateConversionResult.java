@@ -0,0 +1,100 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a batch date conversion, such as
+ * {@link DateUtil#formatDateAsString(String[], String, String)}.
+ *
+ * <p>Rows that could not be parsed do not abort the batch. Their output value is {@code null}
+ * and their index is reported by {@link #getFailedIndices()}, together with the position in the
+ * input text where parsing stopped.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * DateConversionResult result = DateUtil.formatDateAsString(column, "yyyy-MM-dd", "dd/MM/yyyy");
+ * String[] converted = result.getValues();
+ * for (int row : result.getFailedIndices()) {
+ *     Log.w(TAG, "Row " + row + " is not a valid date: " + column[row]);
+ * }
+ * }</pre>
+ * </p>
+ */
+public final class DateConversionResult {
+
+    private final String[] values;
+    private final int[] failedIndices;
+    private final int[] errorOffsets;
+
+    /**
+     * @param values       The converted values, {@code null} for failed rows.
+     * @param errorOffsets The parse error offset per row, or {@code -1} for rows that succeeded.
+     */
+    DateConversionResult(String[] values, int[] errorOffsets) {
+        this.values = values;
+
+        int failures = 0;
+        for (int offset : errorOffsets) {
+            if (offset >= 0) {
+                failures++;
+            }
+        }
+
+        this.failedIndices = new int[failures];
+        this.errorOffsets = new int[failures];
+        for (int row = 0, next = 0; next < failures; row++) {
+            if (errorOffsets[row] >= 0) {
+                this.failedIndices[next] = row;
+                this.errorOffsets[next] = errorOffsets[row];
+                next++;
+            }
+        }
+    }
+
+    /**
+     * Returns the converted values in input order. Failed rows hold {@code null}.
+     *
+     * @return The output column.
+     */
+    public String[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the indices of the rows that could not be parsed, in ascending order.
+     *
+     * @return A copy of the failed row indices.
+     */
+    public int[] getFailedIndices() {
+        return Arrays.copyOf(failedIndices, failedIndices.length);
+    }
+
+    /**
+     * Returns, for each entry of {@link #getFailedIndices()}, the offset in the input text where
+     * parsing failed.
+     *
+     * @return A copy of the error offsets.
+     */
+    public int[] getErrorOffsets() {
+        return Arrays.copyOf(errorOffsets, errorOffsets.length);
+    }
+
+    /**
+     * Returns the number of rows that could not be parsed.
+     *
+     * @return The failure count.
+     */
+    public int getFailureCount() {
+        return failedIndices.length;
+    }
+
+    /**
+     * Returns whether any row could not be parsed.
+     *
+     * @return {@code true} if at least one row failed.
+     */
+    public boolean hasFailures() {
+        return failedIndices.length > 0;
+    }
+
+}
@@ -0,0 +1,439 @@
+package com.elegidocodes.android.util.date;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, thread-safe cache of compiled {@link SimpleDateFormat} instances keyed by
+ * pattern, {@link Locale} and {@link TimeZone}.
+ *
+ * <p>{@link SimpleDateFormat} is expensive to build (the pattern is compiled and a {@link java.util.Calendar}
+ * is allocated) and is not thread-safe. This cache keeps a small LRU map per thread, so every thread
+ * gets its own instances and repeated calls with the same pattern reuse the compiled formatter.</p>
+ *
+ * <p>Localized style formatters ({@link DateFormat#getDateInstance(int, Locale)}) are cached the same
+ * way. Building one loads the locale's date symbols, so a process-wide prototype is kept per style
+ * and locale and each thread works on its own clone. {@link #warmUp(Locale...)} builds the
+ * prototypes for the locales an app ships with ahead of time, off the main thread.</p>
+ *
+ * <p>Formatters returned by this class are shared with later callers on the same thread. They must
+ * not be reconfigured (e.g. via {@code setTimeZone} or {@code setLenient}) and must not be handed
+ * to other threads. Parsing text that names a zone ({@code z}) switches a {@link SimpleDateFormat}
+ * to that zone, so a formatter whose zone or leniency no longer matches its key is reset before it
+ * is handed out again.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * SimpleDateFormat sdf = DateFormatCache.get("yyyy-MM-dd HH:mm:ss");
+ * String formatted = sdf.format(new Date());
+ * }</pre>
+ * </p>
+ */
+public final class DateFormatCache {
+
+    /**
+     * Maximum number of formatters, and of locales, kept per thread before the least recently used
+     * one is evicted.
+     */
+    public static final int MAX_ENTRIES_PER_THREAD = 32;
+
+    private static final int[] STYLES = {DateFormat.FULL, DateFormat.LONG, DateFormat.MEDIUM, DateFormat.SHORT};
+
+    private static final ThreadLocal<Cache> CACHE = new ThreadLocal<Cache>() {
+        @Override
+        protected Cache initialValue() {
+            return new Cache();
+        }
+    };
+
+    private static final ThreadLocal<StyleCache> STYLE_CACHE = new ThreadLocal<StyleCache>() {
+        @Override
+        protected StyleCache initialValue() {
+            return new StyleCache();
+        }
+    };
+
+    /**
+     * Style formatters shared by all threads. They are only ever cloned, never used to format.
+     */
+    private static final ConcurrentHashMap<StyleKey, DateFormat> PROTOTYPES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<LocaleCache> LOCALES = new ThreadLocal<LocaleCache>() {
+        @Override
+        protected LocaleCache initialValue() {
+            return new LocaleCache();
+        }
+    };
+
+    /**
+     * Runs {@link #warmUp(Locale...)} requests one after another on a single background thread,
+     * which exits when idle.
+     */
+    private static final ThreadPoolExecutor WARM_UP = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), runnable -> {
+                Thread thread = new Thread(runnable, "DateFormatCache-warmup");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+    static {
+        WARM_UP.allowCoreThreadTimeOut(true);
+    }
+
+    private DateFormatCache() {
+    }
+
+    /**
+     * Returns a cached formatter for the given pattern using the default {@link Locale} and
+     * the default {@link TimeZone}.
+     *
+     * @param pattern The {@link SimpleDateFormat} pattern (e.g. "yyyy-MM-dd HH:mm:ss").
+     * @return A formatter owned by the calling thread.
+     */
+    public static SimpleDateFormat get(String pattern) {
+        return get(pattern, Locale.getDefault(), TimeZone.getDefault());
+    }
+
+    /**
+     * Returns a cached formatter for the given pattern and {@link Locale}, using the default {@link TimeZone}.
+     *
+     * @param pattern The {@link SimpleDateFormat} pattern.
+     * @param locale  The locale used for textual fields (month and day names).
+     * @return A formatter owned by the calling thread.
+     */
+    public static SimpleDateFormat get(String pattern, Locale locale) {
+        return get(pattern, locale, TimeZone.getDefault());
+    }
+
+    /**
+     * Returns a cached formatter for the given pattern, {@link Locale} and {@link TimeZone}.
+     *
+     * @param pattern  The {@link SimpleDateFormat} pattern.
+     * @param locale   The locale used for textual fields (month and day names).
+     * @param timeZone The time zone used to interpret and render wall-clock fields.
+     * @return A formatter owned by the calling thread.
+     * @throws IllegalArgumentException If any argument is null or the pattern is invalid.
+     */
+    public static SimpleDateFormat get(String pattern, Locale locale, TimeZone timeZone) {
+        if (pattern == null || locale == null || timeZone == null) {
+            throw new IllegalArgumentException("Pattern, locale and time zone must not be null");
+        }
+        return CACHE.get().get(pattern, locale, timeZone);
+    }
+
+    /**
+     * Returns a cached localized date formatter for the given style and {@link Locale}, using the
+     * default {@link TimeZone}.
+     *
+     * @param style  One of {@link DateFormat#FULL}, {@link DateFormat#LONG}, {@link DateFormat#MEDIUM}
+     *               or {@link DateFormat#SHORT}.
+     * @param locale The locale of the output.
+     * @return A formatter owned by the calling thread.
+     */
+    public static DateFormat getDateInstance(int style, Locale locale) {
+        return getDateInstance(style, locale, TimeZone.getDefault());
+    }
+
+    /**
+     * Returns a cached localized date formatter for the given style, {@link Locale} and {@link TimeZone}.
+     *
+     * @param style    One of {@link DateFormat#FULL}, {@link DateFormat#LONG}, {@link DateFormat#MEDIUM}
+     *                 or {@link DateFormat#SHORT}.
+     * @param locale   The locale of the output.
+     * @param timeZone The time zone used to render the date.
+     * @return A formatter owned by the calling thread.
+     * @throws IllegalArgumentException If any argument is null or the style is invalid.
+     */
+    public static DateFormat getDateInstance(int style, Locale locale, TimeZone timeZone) {
+        if (locale == null || timeZone == null) {
+            throw new IllegalArgumentException("Locale and time zone must not be null");
+        }
+        return STYLE_CACHE.get().get(style, locale, timeZone);
+    }
+
+    /**
+     * Builds the style formatters of the given locales on a background thread, so the first date
+     * rendered in each of them does not pay for loading its date symbols.
+     *
+     * <pre>{@code
+     * // In Application.onCreate()
+     * DateFormatCache.warmUp(Locale.getDefault(), new Locale("es", "MX"), Locale.FRANCE);
+     * }</pre>
+     *
+     * @param locales The locales to prepare.
+     */
+    public static void warmUp(Locale... locales) {
+        if (locales == null || locales.length == 0) {
+            return;
+        }
+        final Locale[] copy = locales.clone();
+        WARM_UP.execute(() -> {
+            for (Locale locale : copy) {
+                if (locale == null) {
+                    continue;
+                }
+                for (int style : STYLES) {
+                    prototype(style, locale);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops every formatter cached by the calling thread.
+     */
+    public static void clear() {
+        CACHE.get().clear();
+        STYLE_CACHE.get().clear();
+    }
+
+    /**
+     * Returns the {@link Locale} for a language and region, built with {@link Locale.Builder} on
+     * first use by the calling thread.
+     *
+     * @throws java.util.IllformedLocaleException If the codes are not well-formed.
+     */
+    static Locale locale(String language, String region) {
+        return LOCALES.get().get(language, region);
+    }
+
+    /**
+     * Returns the shared prototype for a style and locale. Callers must clone it before use.
+     */
+    static DateFormat prototype(int style, Locale locale) {
+        StyleKey key = new StyleKey().set(style, locale, "");
+        DateFormat prototype = PROTOTYPES.get(key);
+        if (prototype == null) {
+            prototype = DateFormat.getDateInstance(style, locale);
+            DateFormat existing = PROTOTYPES.putIfAbsent(key, prototype);
+            if (existing != null) {
+                prototype = existing;
+            }
+        }
+        return prototype;
+    }
+
+    /**
+     * Puts back the zone and leniency of a cached formatter if a parse or a caller changed them.
+     */
+    static void reset(DateFormat format, TimeZone timeZone) {
+        if (!format.getTimeZone().getID().equals(timeZone.getID())) {
+            format.setTimeZone((TimeZone) timeZone.clone());
+        }
+        if (!format.isLenient()) {
+            format.setLenient(true);
+        }
+    }
+
+    /**
+     * Per-thread LRU map. A mutable probe key is reused for lookups so that a cache hit does not allocate.
+     */
+    private static final class Cache extends LinkedHashMap<Key, SimpleDateFormat> {
+
+        private final Key probe = new Key();
+
+        Cache() {
+            super(16, 0.75f, true);
+        }
+
+        SimpleDateFormat get(String pattern, Locale locale, TimeZone timeZone) {
+            probe.set(pattern, locale, timeZone.getID());
+            SimpleDateFormat format = super.get(probe);
+            if (format == null) {
+                format = new SimpleDateFormat(pattern, locale);
+                format.setTimeZone((TimeZone) timeZone.clone());
+                put(new Key().set(pattern, locale, probe.zoneId), format);
+            } else {
+                reset(format, timeZone);
+            }
+            return format;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SimpleDateFormat> eldest) {
+            return size() > MAX_ENTRIES_PER_THREAD;
+        }
+
+    }
+
+    /**
+     * Per-thread LRU map of clones of the style prototypes.
+     */
+    private static final class StyleCache extends LinkedHashMap<StyleKey, DateFormat> {
+
+        private final StyleKey probe = new StyleKey();
+
+        StyleCache() {
+            super(16, 0.75f, true);
+        }
+
+        DateFormat get(int style, Locale locale, TimeZone timeZone) {
+            probe.set(style, locale, timeZone.getID());
+            DateFormat format = super.get(probe);
+            if (format == null) {
+                format = (DateFormat) prototype(style, locale).clone();
+                format.setTimeZone((TimeZone) timeZone.clone());
+                put(new StyleKey().set(style, locale, probe.zoneId), format);
+            } else {
+                reset(format, timeZone);
+            }
+            return format;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<StyleKey, DateFormat> eldest) {
+            return size() > MAX_ENTRIES_PER_THREAD;
+        }
+
+    }
+
+    /**
+     * Per-thread LRU map of locales by language and region, so building a locale from two codes
+     * does not allocate on a hit.
+     */
+    private static final class LocaleCache extends LinkedHashMap<LocaleKey, Locale> {
+
+        private final LocaleKey probe = new LocaleKey();
+
+        LocaleCache() {
+            super(16, 0.75f, true);
+        }
+
+        Locale get(String language, String region) {
+            probe.set(language != null ? language : "", region != null ? region : "");
+            Locale locale = super.get(probe);
+            if (locale == null) {
+                locale = new Locale.Builder()
+                        .setLanguage(language)
+                        .setRegion(region)
+                        .build();
+                put(new LocaleKey().set(probe.language, probe.region), locale);
+            }
+            return locale;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocaleKey, Locale> eldest) {
+            return size() > MAX_ENTRIES_PER_THREAD;
+        }
+
+    }
+
+    private static final class LocaleKey {
+
+        private String language;
+        private String region;
+        private int hash;
+
+        LocaleKey set(String language, String region) {
+            this.language = language;
+            this.region = region;
+            this.hash = language.hashCode() * 31 + region.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LocaleKey)) {
+                return false;
+            }
+            LocaleKey other = (LocaleKey) o;
+            return hash == other.hash
+                    && language.equals(other.language)
+                    && region.equals(other.region);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class StyleKey {
+
+        private int style;
+        private Locale locale;
+        private String zoneId;
+        private int hash;
+
+        StyleKey set(int style, Locale locale, String zoneId) {
+            this.style = style;
+            this.locale = locale;
+            this.zoneId = zoneId;
+            this.hash = (style * 31 + locale.hashCode()) * 31 + zoneId.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StyleKey)) {
+                return false;
+            }
+            StyleKey other = (StyleKey) o;
+            return hash == other.hash
+                    && style == other.style
+                    && locale.equals(other.locale)
+                    && zoneId.equals(other.zoneId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class Key {
+
+        private String pattern;
+        private Locale locale;
+        private String zoneId;
+        private int hash;
+
+        Key set(String pattern, Locale locale, String zoneId) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.zoneId = zoneId;
+            this.hash = (pattern.hashCode() * 31 + locale.hashCode()) * 31 + zoneId.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                    && pattern.equals(other.pattern)
+                    && locale.equals(other.locale)
+                    && zoneId.equals(other.zoneId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
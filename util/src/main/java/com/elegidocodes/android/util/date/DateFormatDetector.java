@@ -0,0 +1,535 @@
+package com.elegidocodes.android.util.date;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects which {@link DateFormats} a date string is written in, then parses it.
+ *
+ * <p>Every enum pattern is compiled once into a sequence of character-class tokens (digit runs with
+ * value ranges, letter runs, literals and a time zone offset). Detection runs all of them in
+ * lockstep over a single pass of the input, dropping a pattern as soon as a character cannot
+ * continue it, so no formatter is created and no {@link ParseException} is thrown while guessing.
+ * When several patterns accept the same text, the first one in enum order wins.</p>
+ *
+ * <p>Strings from one backend tend to share one format, so each detection can be tagged with a
+ * source key; the format last seen for that key is verified first and the full detection only runs
+ * when it no longer matches.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * DateFormatDetector detector = DateFormatDetector.getDefault();
+ * long createdAt = detector.parseMillis(json.getString("created_at"), "orders-api");
+ * }</pre>
+ * </p>
+ */
+public final class DateFormatDetector {
+
+    private static final DateFormats[] FORMATS = DateFormats.values();
+    private static final Matcher[] MATCHERS = new Matcher[FORMATS.length];
+
+    static {
+        if (FORMATS.length > Long.SIZE) {
+            throw new IllegalStateException("Too many formats for the detector bit mask: " + FORMATS.length);
+        }
+        for (int i = 0; i < FORMATS.length; i++) {
+            MATCHERS[i] = new Matcher(FORMATS[i].getPattern());
+        }
+    }
+
+    private static final DateFormatDetector DEFAULT = new DateFormatDetector();
+
+    private final ConcurrentHashMap<String, DateFormats> lastFormats = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a detector with its own per-source format memory. Most callers can share
+     * {@link #getDefault()} instead.
+     */
+    public DateFormatDetector() {
+    }
+
+    /**
+     * Returns the shared detector.
+     *
+     * @return The default instance.
+     */
+    public static DateFormatDetector getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the format of the given text.
+     *
+     * @param text The date string.
+     * @return The first matching format in enum order, or {@code null} if none matches.
+     */
+    public DateFormats detect(CharSequence text) {
+        int result = run(text);
+        return result >= 0 ? FORMATS[result] : null;
+    }
+
+    /**
+     * Returns the format of the given text, trying the format last detected for {@code sourceKey}
+     * first.
+     *
+     * @param text      The date string.
+     * @param sourceKey A name for the origin of the text (e.g. an endpoint), or {@code null}.
+     * @return The matching format, or {@code null} if none matches or the text is null or blank.
+     */
+    public DateFormats detect(CharSequence text, String sourceKey) {
+        if (isBlank(text)) {
+            return null;
+        }
+        if (sourceKey == null) {
+            return detect(text);
+        }
+
+        DateFormats last = lastFormats.get(sourceKey);
+        if (last != null && matches(text, last)) {
+            return last;
+        }
+
+        DateFormats format = detect(text);
+        if (format != null) {
+            lastFormats.put(sourceKey, format);
+        }
+        return format;
+    }
+
+    /**
+     * Returns whether the text has the shape of the given format.
+     *
+     * @param text   The date string.
+     * @param format The format to check.
+     * @return {@code true} if {@code format} accepts the text.
+     */
+    public boolean matches(CharSequence text, DateFormats format) {
+        Matcher matcher = MATCHERS[format.ordinal()];
+        int length = text.length();
+        if (length < matcher.minLength || length > matcher.maxLength) {
+            return false;
+        }
+        int[] state = new int[3];
+        for (int i = 0; i < length; i++) {
+            if (!matcher.step(text.charAt(i), state, 0)) {
+                return false;
+            }
+        }
+        return matcher.accepts(state, 0);
+    }
+
+    /**
+     * Detects the format of the text and parses it in the default time zone.
+     *
+     * @param text      The date string.
+     * @param sourceKey A name for the origin of the text, or {@code null}.
+     * @return The instant in epoch milliseconds.
+     * @throws ParseException If no format matches, or the text is not a valid date in its format.
+     */
+    public long parseMillis(CharSequence text, String sourceKey) throws ParseException {
+        return parseMillis(text, sourceKey, TimeZone.getDefault());
+    }
+
+    /**
+     * Detects the format of the text and parses it in the given time zone.
+     *
+     * <p>Formats with a hand-written parser ({@link DateFormats#getParser()}) are parsed without a
+     * {@link java.text.SimpleDateFormat}; the rest use a cached formatter for the detected pattern.</p>
+     *
+     * @param text      The date string.
+     * @param sourceKey A name for the origin of the text, or {@code null}.
+     * @param zone      The zone the local date and time are interpreted in.
+     * @return The instant in epoch milliseconds.
+     * @throws ParseException If no format matches, or the text is not a valid date in its format.
+     */
+    public long parseMillis(CharSequence text, String sourceKey, TimeZone zone) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Date text is null", 0);
+        }
+
+        DateFormats format = detect(text, sourceKey);
+        if (format == null) {
+            throw new ParseException("Unrecognized date format: \"" + text + "\"", failureOffset(text));
+        }
+
+        FixedWidthDateParser parser = format.getParser();
+        if (parser != null) {
+            return parser.parseMillis(text, zone);
+        }
+        return DateFormatCache.get(format.getPattern(), Locale.getDefault(), zone)
+                .parse(text.toString())
+                .getTime();
+    }
+
+    /**
+     * Detects the format of the text and parses it in the default time zone.
+     *
+     * @param text      The date string.
+     * @param sourceKey A name for the origin of the text, or {@code null}.
+     * @return The parsed {@link Date}.
+     * @throws ParseException If no format matches, or the text is not a valid date in its format.
+     */
+    public Date parse(CharSequence text, String sourceKey) throws ParseException {
+        return new Date(parseMillis(text, sourceKey));
+    }
+
+    /**
+     * Forgets the format remembered for a source.
+     *
+     * @param sourceKey The source name.
+     */
+    public void forget(String sourceKey) {
+        if (sourceKey != null) {
+            lastFormats.remove(sourceKey);
+        }
+    }
+
+    /**
+     * Forgets the formats remembered for all sources.
+     */
+    public void clear() {
+        lastFormats.clear();
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    private static boolean isBlank(CharSequence text) {
+        if (text == null) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs every matcher over the text.
+     *
+     * @return The ordinal of the first accepting format, or {@code -1}.
+     */
+    private static int run(CharSequence text) {
+        if (text == null) {
+            return -1;
+        }
+        int length = text.length();
+
+        long alive = 0;
+        for (int p = 0; p < MATCHERS.length; p++) {
+            if (length >= MATCHERS[p].minLength && length <= MATCHERS[p].maxLength) {
+                alive |= 1L << p;
+            }
+        }
+
+        // Three ints per pattern: token index, characters consumed in the token, accumulated value.
+        int[] state = new int[MATCHERS.length * 3];
+        for (int i = 0; i < length && alive != 0; i++) {
+            char c = text.charAt(i);
+            for (long bits = alive; bits != 0; bits &= bits - 1) {
+                int p = Long.numberOfTrailingZeros(bits);
+                if (!MATCHERS[p].step(c, state, p * 3)) {
+                    alive &= ~(1L << p);
+                }
+            }
+        }
+
+        for (long bits = alive; bits != 0; bits &= bits - 1) {
+            int p = Long.numberOfTrailingZeros(bits);
+            if (MATCHERS[p].accepts(state, p * 3)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns how far the longest-surviving pattern got, used as the error offset.
+     */
+    private static int failureOffset(CharSequence text) {
+        int length = text.length();
+        int best = 0;
+        int[] state = new int[3];
+        for (Matcher matcher : MATCHERS) {
+            state[0] = state[1] = state[2] = 0;
+            int i = 0;
+            while (i < length && matcher.step(text.charAt(i), state, 0)) {
+                i++;
+            }
+            best = Math.max(best, i);
+        }
+        return best;
+    }
+
+    /**
+     * One enum pattern compiled into character-class tokens.
+     */
+    private static final class Matcher {
+
+        static final int LITERAL = 0;
+        static final int DIGITS = 1;
+        static final int LETTERS = 2;
+        static final int OFFSET = 3;
+
+        static final int MAX_LETTERS = 32;
+
+        /**
+         * Abbreviated names ({@code EEE}, {@code MMM}) are short, possibly with a trailing period,
+         * so "Thu" and "Thursday" select different patterns.
+         */
+        static final int MAX_ABBREVIATION = 5;
+
+        /**
+         * Offset sub-state meaning the offset is complete ({@code Z} or all four digits read).
+         */
+        static final int OFFSET_DONE = 6;
+
+        final int[] kinds;
+        final char[] literals;
+        final int[] minCounts;
+        final int[] maxCounts;
+        final int[] minValues;
+        final int[] maxValues;
+        final int size;
+        final int minLength;
+        final int maxLength;
+
+        Matcher(String pattern) {
+            int capacity = pattern.length();
+            kinds = new int[capacity];
+            literals = new char[capacity];
+            minCounts = new int[capacity];
+            maxCounts = new int[capacity];
+            minValues = new int[capacity];
+            maxValues = new int[capacity];
+
+            int n = 0;
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    int close = pattern.indexOf('\'', i + 1);
+                    for (int j = i + 1; j < close; j++) {
+                        literal(n++, pattern.charAt(j));
+                    }
+                    i = close + 1;
+                } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    int run = 1;
+                    while (i + run < pattern.length() && pattern.charAt(i + run) == c) {
+                        run++;
+                    }
+                    field(n++, c, run, pattern);
+                    i += run;
+                } else {
+                    literal(n++, c);
+                    i++;
+                }
+            }
+            size = n;
+
+            int min = 0;
+            int max = 0;
+            for (int t = 0; t < size; t++) {
+                min += minCounts[t];
+                max += maxCounts[t];
+            }
+            minLength = min;
+            maxLength = max;
+        }
+
+        private void literal(int t, char c) {
+            kinds[t] = LITERAL;
+            literals[t] = c;
+            minCounts[t] = 1;
+            maxCounts[t] = 1;
+        }
+
+        private void field(int t, char letter, int run, String pattern) {
+            minValues[t] = Integer.MIN_VALUE;
+            maxValues[t] = Integer.MAX_VALUE;
+            switch (letter) {
+                case 'y':
+                case 'S':
+                    digits(t, run, run);
+                    break;
+                case 'M':
+                    if (run >= 4) {
+                        // Full month names can be as short as "May".
+                        letters(t, 3, MAX_LETTERS);
+                    } else if (run == 3) {
+                        letters(t, 2, MAX_ABBREVIATION);
+                    } else {
+                        digits(t, run, 2);
+                        range(t, 1, 12);
+                    }
+                    break;
+                case 'd':
+                    digits(t, run, 2);
+                    range(t, 1, 31);
+                    break;
+                case 'H':
+                    digits(t, run, 2);
+                    range(t, 0, 23);
+                    break;
+                case 'm':
+                case 's':
+                    digits(t, run, 2);
+                    range(t, 0, 59);
+                    break;
+                case 'E':
+                    if (run >= 4) {
+                        letters(t, 4, MAX_LETTERS);
+                    } else {
+                        letters(t, 2, MAX_ABBREVIATION);
+                    }
+                    break;
+                case 'Z':
+                case 'X':
+                    kinds[t] = OFFSET;
+                    minCounts[t] = 1;
+                    maxCounts[t] = 6;
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported letter '" + letter + "' in " + pattern);
+            }
+        }
+
+        private void digits(int t, int min, int max) {
+            kinds[t] = DIGITS;
+            minCounts[t] = min;
+            maxCounts[t] = max;
+        }
+
+        private void letters(int t, int min, int max) {
+            kinds[t] = LETTERS;
+            minCounts[t] = min;
+            maxCounts[t] = max;
+        }
+
+        private void range(int t, int min, int max) {
+            minValues[t] = min;
+            maxValues[t] = max;
+        }
+
+        /**
+         * Feeds one character.
+         *
+         * @return {@code false} if the pattern cannot continue with {@code c}.
+         */
+        boolean step(char c, int[] state, int base) {
+            int t = state[base];
+            int count = state[base + 1];
+            int value = state[base + 2];
+
+            while (t < size) {
+                switch (kinds[t]) {
+                    case LITERAL:
+                        if (c != literals[t]) {
+                            return false;
+                        }
+                        save(state, base, t + 1, 0, 0);
+                        return true;
+
+                    case DIGITS:
+                        if (c >= '0' && c <= '9' && count < maxCounts[t]) {
+                            save(state, base, t, count + 1, value * 10 + (c - '0'));
+                            return true;
+                        }
+                        break;
+
+                    case LETTERS:
+                        if ((Character.isLetter(c) || c == '.') && count < maxCounts[t]) {
+                            save(state, base, t, count + 1, 0);
+                            return true;
+                        }
+                        break;
+
+                    default:
+                        int next = offsetStep(count, c);
+                        if (next >= 0) {
+                            save(state, base, t, next, 0);
+                            return true;
+                        }
+                        break;
+                }
+
+                // The current token cannot take c; move on if it is complete.
+                if (!complete(t, count, value)) {
+                    return false;
+                }
+                t++;
+                count = 0;
+                value = 0;
+            }
+            return false;
+        }
+
+        /**
+         * Returns whether the text consumed so far is a whole match.
+         */
+        boolean accepts(int[] state, int base) {
+            int t = state[base];
+            if (t == size) {
+                return true;
+            }
+            return t == size - 1 && complete(t, state[base + 1], state[base + 2]);
+        }
+
+        private boolean complete(int t, int count, int value) {
+            switch (kinds[t]) {
+                case LITERAL:
+                    return false;
+                case DIGITS:
+                    return count >= minCounts[t] && value >= minValues[t] && value <= maxValues[t];
+                case LETTERS:
+                    return count >= minCounts[t];
+                default:
+                    return count == OFFSET_DONE;
+            }
+        }
+
+        /**
+         * Advances the offset sub-state for {@code Z}, {@code +HH:mm} or {@code +HHmm}.
+         *
+         * @return The next sub-state, or {@code -1} if {@code c} is not allowed.
+         */
+        private static int offsetStep(int state, char c) {
+            boolean digit = c >= '0' && c <= '9';
+            switch (state) {
+                case 0:
+                    if (c == 'Z') {
+                        return OFFSET_DONE;
+                    }
+                    return c == '+' || c == '-' ? 1 : -1;
+                case 1:
+                case 2:
+                    return digit ? state + 1 : -1;
+                case 3:
+                    if (c == ':') {
+                        return 4;
+                    }
+                    return digit ? 5 : -1;
+                case 4:
+                    return digit ? 5 : -1;
+                case 5:
+                    return digit ? OFFSET_DONE : -1;
+                default:
+                    return -1;
+            }
+        }
+
+        private static void save(int[] state, int base, int t, int count, int value) {
+            state[base] = t;
+            state[base + 1] = count;
+            state[base + 2] = value;
+        }
+
+    }
+
+}
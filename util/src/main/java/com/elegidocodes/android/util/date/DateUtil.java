@@ -5,16 +5,45 @@ import android.util.Log;
 
 import androidx.annotation.RequiresApi;
 
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class DateUtil {
 
+    private static volatile EpochClock defaultClock = EpochClock.SYSTEM;
+
+    /**
+     * Sets the clock used for "now" by every method that does not take an {@link EpochClock}.
+     *
+     * <p>Pass a {@link CoarseClock} to avoid a system call per invocation in hot paths, or a fixed
+     * clock ({@link EpochClock#fixed(long)}) to make results deterministic in tests.</p>
+     *
+     * @param clock The new default clock, or {@code null} to restore {@link EpochClock#SYSTEM}.
+     */
+    public static void setDefaultClock(EpochClock clock) {
+        defaultClock = clock != null ? clock : EpochClock.SYSTEM;
+    }
+
+    /**
+     * Returns the clock used for "now" by every method that does not take an {@link EpochClock}.
+     *
+     * @return The default clock, {@link EpochClock#SYSTEM} unless changed.
+     */
+    public static EpochClock getDefaultClock() {
+        return defaultClock;
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
     /**
      * Utility method to retrieve the current date and time formatted according to the specified format.
      *
@@ -22,10 +51,29 @@ public class DateUtil {
      * @return A formatted date string representing the current date and time.
      */
     public static String getCurrentDate(String outputFormat) {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(outputFormat, Locale.getDefault());
+        return getCurrentDate(outputFormat, defaultClock);
+    }
+
+    /**
+     * Retrieves the current date and time of the given {@link EpochClock}, formatted according to
+     * the specified format.
+     *
+     * @param outputFormat The desired format for the output date string.
+     * @param clock        The clock providing the current time.
+     * @return A formatted date string representing the clock's current date and time.
+     */
+    public static String getCurrentDate(String outputFormat, EpochClock clock) {
+        // Microsecond patterns take "now" from MicroTimestamp so the fraction carries real microseconds.
+        DateFormats microsFormat = microsFormatOf(outputFormat);
+        if (microsFormat != null) {
+            long micros = clock == EpochClock.SYSTEM
+                    ? MicroTimestamp.nowMicros()
+                    : clock.currentTimeMillis() * 1000L;
+            return MicroTimestamp.format(micros, microsFormat);
+        }
 
         // Return the formatted date string representing the current date and time.
-        return simpleDateFormat.format(new Date());
+        return DateFormatCache.get(outputFormat).format(new Date(clock.currentTimeMillis()));
     }
 
     // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
@@ -49,8 +97,57 @@ public class DateUtil {
      * expressed in the specified {@link TimeUnit}.
      */
     public static long getTimeDifference(Date date, TimeUnit unit) {
-        long diffInMillis = Math.abs(new Date().getTime() - date.getTime());
-        return unit.convert(diffInMillis, TimeUnit.MILLISECONDS);
+        return getTimeDifference(date.getTime(), unit, defaultClock);
+    }
+
+    /**
+     * Calculates the time difference between a given {@link Date} and the current time of the given
+     * {@link EpochClock}, in a specified {@link TimeUnit}.
+     *
+     * @param date  The {@link Date} object from which to calculate the time difference.
+     * @param unit  The {@link TimeUnit} in which to return the difference.
+     * @param clock The clock providing the current time.
+     * @return The absolute difference between {@code date} and now, expressed in {@code unit}.
+     */
+    public static long getTimeDifference(Date date, TimeUnit unit, EpochClock clock) {
+        return getTimeDifference(date.getTime(), unit, clock);
+    }
+
+    /**
+     * Calculates the absolute time difference between an epoch-millisecond timestamp and the current
+     * time reported by {@link #getDefaultClock()}, without allocating any {@link Date} objects.
+     *
+     * @param epochMillis The timestamp in milliseconds since the Unix epoch.
+     * @param unit        The {@link TimeUnit} in which to return the difference.
+     * @return The absolute difference between {@code epochMillis} and now, expressed in {@code unit}.
+     * @see #getTimeDifference(long, TimeUnit, EpochClock)
+     */
+    public static long getTimeDifference(long epochMillis, TimeUnit unit) {
+        return getTimeDifference(epochMillis, unit, defaultClock);
+    }
+
+    /**
+     * Calculates the absolute time difference between an epoch-millisecond timestamp and the current
+     * time reported by the given {@link EpochClock}.
+     *
+     * <p>Reading "now" once from the clock and passing the same clock to every call keeps results
+     * consistent across a batch of rows.</p>
+     *
+     * <pre>{@code
+     * long now = System.currentTimeMillis();
+     * EpochClock frameClock = () -> now;
+     * for (Item item : items) {
+     *     long minutes = getTimeDifference(item.createdAtMillis, TimeUnit.MINUTES, frameClock);
+     * }
+     * }</pre>
+     *
+     * @param epochMillis The timestamp in milliseconds since the Unix epoch.
+     * @param unit        The {@link TimeUnit} in which to return the difference.
+     * @param clock       The clock providing the current time.
+     * @return The absolute difference between {@code epochMillis} and now, expressed in {@code unit}.
+     */
+    public static long getTimeDifference(long epochMillis, TimeUnit unit, EpochClock clock) {
+        return getTimeBetweenDates(epochMillis, clock.currentTimeMillis(), unit);
     }
 
     /**
@@ -71,11 +168,25 @@ public class DateUtil {
      * @throws ParseException If the {@code dateString} cannot be parsed using the provided {@code format}.
      */
     public static long getTimeDifference(String dateString, String format, TimeUnit unit) throws ParseException {
+        return getTimeDifference(dateString, format, unit, defaultClock);
+    }
+
+    /**
+     * Parses a date string with the specified format and calculates its time difference to the
+     * current time of the given {@link EpochClock}.
+     *
+     * @param dateString The date/time string to parse (e.g. "2025-01-02 15:30:00").
+     * @param format     The {@link SimpleDateFormat} pattern to use when parsing.
+     * @param unit       The {@link TimeUnit} in which to return the difference.
+     * @param clock      The clock providing the current time.
+     * @return The absolute difference between the parsed date/time and now, expressed in {@code unit}.
+     * @throws ParseException If the {@code dateString} cannot be parsed using the provided {@code format}.
+     */
+    public static long getTimeDifference(String dateString, String format, TimeUnit unit, EpochClock clock) throws ParseException {
         // 1. Parse the date string into a Date object using the specified pattern.
-        SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.getDefault());
-        Date parsedDate = sdf.parse(dateString);
+        Date parsedDate = parse(dateString, format);
 
-        return parsedDate != null ? getTimeDifference(parsedDate, unit) : 0;
+        return parsedDate != null ? getTimeDifference(parsedDate.getTime(), unit, clock) : 0;
     }
 
     // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
@@ -90,54 +201,27 @@ public class DateUtil {
      *     <li><b>24 hours or more</b>: <code>X days, HH:MM:SS</code></li>
      * </ul>
      *
+     * <p>Digits and unit words are localized for the default {@link Locale} by {@link DurationFormatter}.</p>
+     *
      * @param date The {@link Date} from which the time difference is calculated.
      * @return A formatted string representing the time difference.
      */
     public static String getFormattedTime(Date date) {
-        // 1. Calculate the absolute difference in milliseconds
-        long timeInMillis = Math.abs(new Date().getTime() - date.getTime());
-
-        // 2. Convert to total seconds for simpler calculations
-        long totalSeconds = timeInMillis / 1000;
-
-        // 3. Check different thresholds and format accordingly
-
-        // Case 1: Less than 60 seconds -> "XXs"
-        if (totalSeconds < 60) {
-            return String.format(Locale.getDefault(), "%ds", totalSeconds);
-        }
-
-        // Case 2: Less than 60 minutes -> "MM:SS"
-        if (totalSeconds < 3600) {
-            long minutes = totalSeconds / 60;
-            long seconds = totalSeconds % 60;
-            return String.format(Locale.getDefault(), "%02d:%02d", minutes, seconds);
-        }
-
-        // Case 3: Less than 24 hours -> "HH:MM:SS"
-        if (totalSeconds < 86400) {
-            long hours = totalSeconds / 3600;
-            long remainder = totalSeconds % 3600;
-            long minutes = remainder / 60;
-            long seconds = remainder % 60;
-            return String.format(Locale.getDefault(), "%02d:%02d:%02d", hours, minutes, seconds);
-        }
-
-        // Case 4: 24 hours or more -> "X days, HH:MM:SS"
-        long days = totalSeconds / 86400; // Number of full days
-        long remainder = totalSeconds % 86400;
-        long hours = remainder / 3600;
-        remainder = remainder % 3600;
-        long minutes = remainder / 60;
-        long seconds = remainder % 60;
+        return getFormattedTime(date, defaultClock);
+    }
 
-        return String.format(Locale.getDefault(), "%d day%s, %02d:%02d:%02d",
-                days,
-                (days == 1 ? "" : "s"), // Pluralize "day" if needed
-                hours,
-                minutes,
-                seconds
-        );
+    /**
+     * Formats the time difference between a given {@link Date} and the current time of the given
+     * {@link EpochClock}, using the layout of {@link #getFormattedTime(Date)}.
+     *
+     * @param date  The {@link Date} from which the time difference is calculated.
+     * @param clock The clock providing the current time.
+     * @return A formatted string representing the time difference.
+     */
+    public static String getFormattedTime(Date date, EpochClock clock) {
+        // Digits and the "day/days" wording follow the default locale; see DurationFormatter.
+        long timeInMillis = clock.currentTimeMillis() - date.getTime();
+        return DurationFormatter.getInstance().format(timeInMillis);
     }
 
     /**
@@ -166,9 +250,63 @@ public class DateUtil {
      * @see #getFormattedTime(Date)
      */
     public static String getFormattedTime(String dateString, String format) throws ParseException {
-        SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.getDefault());
-        Date parsedDate = sdf.parse(dateString);
-        return parsedDate != null ? getFormattedTime(parsedDate) : "";
+        return getFormattedTime(dateString, format, defaultClock);
+    }
+
+    /**
+     * Parses the given date string and returns its formatted time difference to the current time of
+     * the given {@link EpochClock}.
+     *
+     * @param dateString A string representing a date/time, e.g. "2025-01-02 15:30:00".
+     * @param format     The {@link SimpleDateFormat} pattern for parsing {@code dateString}.
+     * @param clock      The clock providing the current time.
+     * @return A formatted string representing the time difference, or an empty string if parsing
+     * returns a null date.
+     * @throws ParseException if the text cannot be parsed using the given {@code format}.
+     * @see #getFormattedTime(Date, EpochClock)
+     */
+    public static String getFormattedTime(String dateString, String format, EpochClock clock) throws ParseException {
+        Date parsedDate = parse(dateString, format);
+        return parsedDate != null ? getFormattedTime(parsedDate, clock) : "";
+    }
+
+    /**
+     * Appends the time elapsed between an epoch-millisecond timestamp and the current time of the given
+     * {@link EpochClock} to a {@link StringBuilder}, using the same layout as {@link #getFormattedTime(Date)}
+     * ({@code XXs}, {@code MM:SS}, {@code HH:MM:SS} or {@code X days, HH:MM:SS}).
+     *
+     * <p>Digits are written directly by {@link DurationFormatter} for the default {@link Locale}, so no
+     * {@link Date}, {@link String} or boxed value is created. Reuse the same builder (after
+     * {@code setLength(0)}) to render many rows without garbage.</p>
+     *
+     * <pre>{@code
+     * StringBuilder sb = new StringBuilder(24);
+     * sb.setLength(0);
+     * DateUtil.appendFormattedTime(item.startedAtMillis, clock, sb);
+     * textView.setText(sb);
+     * }</pre>
+     *
+     * @param epochMillis The timestamp in milliseconds since the Unix epoch.
+     * @param clock       The clock providing the current time.
+     * @param out         The builder that receives the formatted text.
+     * @return The same {@code out} instance, for chaining.
+     */
+    public static StringBuilder appendFormattedTime(long epochMillis, EpochClock clock, StringBuilder out) {
+        return DurationFormatter.getInstance().format(clock.currentTimeMillis() - epochMillis, out);
+    }
+
+    /**
+     * Appends the time elapsed between an epoch-millisecond timestamp and the current time of the given
+     * {@link EpochClock} to an arbitrary {@link Appendable}.
+     *
+     * @param epochMillis The timestamp in milliseconds since the Unix epoch.
+     * @param clock       The clock providing the current time.
+     * @param out         The destination of the formatted text.
+     * @throws IOException If {@code out} fails to accept characters.
+     * @see #appendFormattedTime(long, EpochClock, StringBuilder)
+     */
+    public static void appendFormattedTime(long epochMillis, EpochClock clock, Appendable out) throws IOException {
+        DurationFormatter.getInstance().format(clock.currentTimeMillis() - epochMillis, out);
     }
 
     // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
@@ -197,8 +335,20 @@ public class DateUtil {
             throw new IllegalArgumentException("Date parameters cannot be null");
         }
 
-        long diffInMillis = Math.abs(fromDate.getTime() - toDate.getTime());
-        return unit.convert(diffInMillis, TimeUnit.MILLISECONDS);
+        return getTimeBetweenDates(fromDate.getTime(), toDate.getTime(), unit);
+    }
+
+    /**
+     * Returns the absolute time difference between two epoch-millisecond timestamps,
+     * converted to a specified {@link TimeUnit}.
+     *
+     * @param fromMillis the first timestamp, in milliseconds since the Unix epoch
+     * @param toMillis   the second timestamp, in milliseconds since the Unix epoch
+     * @param unit       the {@link TimeUnit} in which to express the result
+     * @return the absolute difference between {@code fromMillis} and {@code toMillis} in {@code unit}
+     */
+    public static long getTimeBetweenDates(long fromMillis, long toMillis, TimeUnit unit) {
+        return unit.convert(Math.abs(fromMillis - toMillis), TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -247,12 +397,10 @@ public class DateUtil {
                                            String formatToDate,
                                            TimeUnit unit) throws ParseException {
 
-        // Create SimpleDateFormats with the specified locale and patterns
-        SimpleDateFormat sdf1 = new SimpleDateFormat(formatFromDate, Locale.getDefault());
-        Date parsedDate1 = sdf1.parse(stringFromDate);
+        // Parse both strings with cached formatters for their patterns
+        Date parsedDate1 = parse(stringFromDate, formatFromDate);
 
-        SimpleDateFormat sdf2 = new SimpleDateFormat(formatToDate, Locale.getDefault());
-        Date parsedDate2 = sdf2.parse(stringToDate);
+        Date parsedDate2 = parse(stringToDate, formatToDate);
 
         // If both parse successfully, calculate the time difference; otherwise, return 0
         return (parsedDate1 != null && parsedDate2 != null)
@@ -268,9 +416,9 @@ public class DateUtil {
      * <p>The {@code outputFormat} parameter should be a valid
      * {@link java.text.SimpleDateFormat} pattern (e.g. <em>yyyy-MM-dd HH:mm:ss</em>).</p>
      *
-     * <p><strong>Note:</strong> {@link SimpleDateFormat} is not thread-safe.
-     * In multi-threaded environments, each thread should use its own {@link SimpleDateFormat} instance,
-     * or you should use synchronization to ensure safety.</p>
+     * <p><strong>Note:</strong> {@link SimpleDateFormat} is not thread-safe. This method obtains its
+     * formatter from {@link DateFormatCache}, which keeps a separate instance per thread, so it can be
+     * called concurrently from background executors.</p>
      *
      * @param date         the {@link Date} to be formatted. Must not be {@code null}.
      * @param outputFormat the desired output format pattern (e.g., <em>"yyyy-MM-dd"</em>).
@@ -281,8 +429,11 @@ public class DateUtil {
         if (date == null) {
             return "";
         }
-        SimpleDateFormat outputSdf = new SimpleDateFormat(outputFormat, Locale.getDefault());
-        return outputSdf.format(date);
+        DateFormats microsFormat = microsFormatOf(outputFormat);
+        if (microsFormat != null) {
+            return MicroTimestamp.format(date.getTime() * 1000L, microsFormat);
+        }
+        return DateFormatCache.get(outputFormat).format(date);
     }
 
     /**
@@ -310,20 +461,161 @@ public class DateUtil {
                                             String outputFormat) throws ParseException {
 
         // 1. Parse the input string into a Date object
-        SimpleDateFormat inputSdf = new SimpleDateFormat(inputFormat, Locale.getDefault());
-        Date parsedDate = inputSdf.parse(dateString);
+        Date parsedDate = parse(dateString, inputFormat);
 
         // 2. Format the parsed date using the existing formatDateAsString(Date, String) method
         return parsedDate != null ? formatDateAsString(parsedDate, outputFormat) : "";
     }
 
+    /**
+     * Converts a whole column of date strings from {@code inputFormat} to {@code outputFormat}.
+     *
+     * <p>Both formatters are compiled once for the batch. Columns larger than a few thousand rows are
+     * split across a fork-join pool, each worker using its own formatter clones. Rows that cannot be
+     * parsed do not throw; their output is {@code null} and their index is reported by the result.
+     * Fixed-width inputs (see {@link DateFormats#getParser()}) are read by their strict fast parser.</p>
+     *
+     * <pre>{@code
+     *   DateConversionResult result = formatDateAsString(column, "yyyy-MM-dd HH:mm:ss", "dd/MM/yyyy");
+     *   if (result.hasFailures()) {
+     *       int[] badRows = result.getFailedIndices();
+     *   }
+     * }</pre>
+     *
+     * @param dateStrings  the date strings to convert; {@code null} rows are reported as failures.
+     * @param inputFormat  the expected format of every input row.
+     * @param outputFormat the format of the converted rows.
+     * @return the converted column together with the indices of the rows that failed.
+     * @see #formatDateAsString(String, String, String)
+     */
+    public static DateConversionResult formatDateAsString(String[] dateStrings,
+                                                          String inputFormat,
+                                                          String outputFormat) {
+        return DateBatchConverter.forPatterns(inputFormat, outputFormat).convert(dateStrings);
+    }
+
+    /**
+     * Converts a list of date strings from {@code inputFormat} to {@code outputFormat}.
+     *
+     * @param dateStrings  the date strings to convert.
+     * @param inputFormat  the expected format of every input row.
+     * @param outputFormat the format of the converted rows.
+     * @return the converted column together with the indices of the rows that failed.
+     * @see #formatDateAsString(String[], String, String)
+     */
+    public static DateConversionResult formatDateAsString(List<String> dateStrings,
+                                                          String inputFormat,
+                                                          String outputFormat) {
+        return formatDateAsString(dateStrings.toArray(new String[0]), inputFormat, outputFormat);
+    }
+
+    /**
+     * Converts a stream of date strings from {@code inputFormat} to {@code outputFormat}. The stream is
+     * drained first; result indices follow the encounter order of the stream.
+     *
+     * @param dateStrings  the date strings to convert.
+     * @param inputFormat  the expected format of every input row.
+     * @param outputFormat the format of the converted rows.
+     * @return the converted column together with the indices of the rows that failed.
+     * @see #formatDateAsString(String[], String, String)
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public static DateConversionResult formatDateAsString(Stream<? extends CharSequence> dateStrings,
+                                                          String inputFormat,
+                                                          String outputFormat) {
+        CharSequence[] column = dateStrings.toArray(CharSequence[]::new);
+        return DateBatchConverter.forPatterns(inputFormat, outputFormat).convert(column);
+    }
+
+    /**
+     * Formats many epoch-millisecond instants with the same pattern in the default time zone.
+     *
+     * @param epochMillis  The instants to format.
+     * @param outputFormat The {@link SimpleDateFormat} pattern of the output.
+     * @return The formatted values, in input order.
+     * @see #formatEpochMillis(long[], String, ZoneOffsetTable)
+     */
+    public static String[] formatEpochMillis(long[] epochMillis, String outputFormat) {
+        return formatEpochMillis(epochMillis, outputFormat, TimeZone.getDefault());
+    }
+
+    /**
+     * Formats many epoch-millisecond instants with the same pattern in the given time zone.
+     *
+     * <p>When the values are dense enough for it to pay off, a {@link ZoneOffsetTable} covering
+     * them is built first, so each value costs a table lookup instead of a calendar computation.</p>
+     *
+     * @param epochMillis  The instants to format.
+     * @param outputFormat The {@link SimpleDateFormat} pattern of the output.
+     * @param zone         The time zone of the output.
+     * @return The formatted values, in input order.
+     */
+    public static String[] formatEpochMillis(long[] epochMillis, String outputFormat, TimeZone zone) {
+        if (epochMillis == null || zone == null) {
+            throw new IllegalArgumentException("Values and time zone must not be null");
+        }
+        return formatEpochMillis(epochMillis, outputFormat, offsetTableFor(zone, epochMillis));
+    }
+
+    /**
+     * Formats many epoch-millisecond instants with the same pattern, taking UTC offsets from a
+     * precomputed {@link ZoneOffsetTable}.
+     *
+     * <p>Patterns made only of numeric fields ({@code y}, {@code M}, {@code d}, {@code H}, {@code m},
+     * {@code s}, {@code S}) and literals, which covers the numeric {@link DateFormats}, are written
+     * directly from the table's offsets. Other patterns, years outside 1 to 9999 and locales whose
+     * digits are not ASCII fall back to a cached {@link SimpleDateFormat} in the table's zone. Six
+     * {@code S} letters are written as microseconds either way.</p>
+     *
+     * <pre>{@code
+     * ZoneOffsetTable offsets = ZoneOffsetTable.forDefault(fromMillis, toMillis);
+     * String[] column = DateUtil.formatEpochMillis(values, DateFormats.DATETIME_SECONDS.getPattern(), offsets);
+     * }</pre>
+     *
+     * @param epochMillis  The instants to format.
+     * @param outputFormat The {@link SimpleDateFormat} pattern of the output.
+     * @param offsets      The offsets of the output time zone.
+     * @return The formatted values, in input order.
+     */
+    public static String[] formatEpochMillis(long[] epochMillis, String outputFormat, ZoneOffsetTable offsets) {
+        if (epochMillis == null || outputFormat == null || offsets == null) {
+            throw new IllegalArgumentException("Values, pattern and offsets must not be null");
+        }
+
+        String[] values = new String[epochMillis.length];
+        NumericPatternFormatter printer = NumericPatternFormatter.compile(outputFormat, Locale.getDefault());
+        SimpleDateFormat fallback = null;
+        Date date = null;
+        StringBuilder builder = printer != null ? new StringBuilder(printer.estimatedLength()) : null;
+
+        for (int i = 0; i < epochMillis.length; i++) {
+            long millis = epochMillis[i];
+            if (printer != null) {
+                builder.setLength(0);
+                if (printer.format(millis, offsets.getOffset(millis), builder)) {
+                    values[i] = builder.toString();
+                    continue;
+                }
+            }
+            if (fallback == null) {
+                Locale locale = Locale.getDefault();
+                fallback = DateFormatCache.get(NumericPatternFormatter.toSimpleDateFormatPattern(outputFormat, locale),
+                        locale, offsets.getTimeZone());
+                date = new Date();
+            }
+            date.setTime(millis);
+            values[i] = fallback.format(date);
+        }
+        return values;
+    }
+
     // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
 
     /**
      * Formats and localizes a {@link Date} object using the specified language and region.
      *
      * <p>This method constructs a {@link Locale} from the given {@code language} and {@code region}
-     * codes, retrieves a {@link DateFormat} instance in {@link DateFormat#FULL} style for that locale,
+     * codes, retrieves a cached {@link DateFormat} instance in {@link DateFormat#FULL} style for that locale,
      * and formats the provided {@code date}. If {@code date} is {@code null}, the method uses
      * the current system date/time.</p>
      *
@@ -345,17 +637,14 @@ public class DateUtil {
      * or the current date/time if {@code date} is null
      */
     public static String changeDateFormat(Date date, String language, String region) {
-        // Build a Locale using the provided language and region
-        Locale locale = new Locale.Builder()
-                .setLanguage(language)
-                .setRegion(region)
-                .build();
+        // Build (or reuse) a Locale from the provided language and region
+        Locale locale = DateFormatCache.locale(language, region);
 
         // Use the FULL style to get a very verbose, localized date format
-        DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.FULL, locale);
+        DateFormat dateFormat = DateFormatCache.getDateInstance(DateFormat.FULL, locale);
 
         // If 'date' is null, format the current date/time instead
-        return date != null ? dateFormat.format(date) : dateFormat.format(new Date());
+        return date != null ? dateFormat.format(date) : dateFormat.format(new Date(defaultClock.currentTimeMillis()));
     }
 
     /**
@@ -394,8 +683,7 @@ public class DateUtil {
                                           String language,
                                           String region) throws ParseException {
         // 1. Parse the input date string
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat, Locale.getDefault());
-        Date parsedDate = sdf.parse(dateString);
+        Date parsedDate = parse(dateString, dateFormat);
 
         // 2. If parsing was successful, re-format using the overloaded method that takes a Date
         return parsedDate != null ? changeDateFormat(parsedDate, language, region) : "";
@@ -408,7 +696,8 @@ public class DateUtil {
      * {@code style} and {@link Locale}.
      *
      * <p>
-     * This method calls {@link DateFormat#getDateInstance(int, Locale)}. If the {@code style} is
+     * This method uses a {@link DateFormat#getDateInstance(int, Locale)} formatter cached by
+     * {@link DateFormatCache#getDateInstance(int, Locale)}. If the {@code style} is
      * {@link DateFormat#FULL}, you'll typically see the most verbose date output (e.g.,
      * "Wednesday, January 1, 2025" in U.S. English). If the style is something other than
      * {@code FULL}, such as {@link DateFormat#LONG}, {@link DateFormat#MEDIUM}, or
@@ -444,7 +733,10 @@ public class DateUtil {
      * @see DateFormat#getDateInstance(int, Locale)
      */
     public static String changeDateFormat(Date date, int style, Locale locale) {
-        DateFormat dateFormat = DateFormat.getDateInstance(style, locale);
+        if (locale == null) {
+            throw new NullPointerException("locale == null");
+        }
+        DateFormat dateFormat = DateFormatCache.getDateInstance(style, locale);
         return dateFormat.format(date);
     }
 
@@ -496,13 +788,69 @@ public class DateUtil {
                                           int style,
                                           Locale locale) throws ParseException {
         // 1. Parse the input date string using the given pattern and default locale
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat, Locale.getDefault());
-        Date parsedDate = sdf.parse(dateString);
+        Date parsedDate = parse(dateString, dateFormat);
 
         // 2. If parsing was successful, re-format using the overloaded method
         return parsedDate != null ? changeDateFormat(parsedDate, style, locale) : "";
     }
 
+    /**
+     * Parses a whole column of date strings with {@code dateFormat} and renders each one in the
+     * localized {@code style} for {@code locale}.
+     *
+     * <p>The parser and the localized {@link DateFormat} are created once for the batch and large
+     * columns are split across a fork-join pool. Rows that cannot be parsed are reported by index
+     * in the result instead of throwing.</p>
+     *
+     * @param dateStrings the date strings to convert; {@code null} rows are reported as failures.
+     * @param dateFormat  the pattern used to parse every row.
+     * @param style       the {@link DateFormat} style for the output (e.g. {@link DateFormat#FULL}).
+     * @param locale      the {@link Locale} of the output.
+     * @return the converted column together with the indices of the rows that failed.
+     * @see #changeDateFormat(String, String, int, Locale)
+     */
+    public static DateConversionResult changeDateFormat(String[] dateStrings,
+                                                        String dateFormat,
+                                                        int style,
+                                                        Locale locale) {
+        return DateBatchConverter.forStyle(dateFormat, style, locale).convert(dateStrings);
+    }
+
+    /**
+     * List variant of {@link #changeDateFormat(String[], String, int, Locale)}.
+     *
+     * @param dateStrings the date strings to convert.
+     * @param dateFormat  the pattern used to parse every row.
+     * @param style       the {@link DateFormat} style for the output.
+     * @param locale      the {@link Locale} of the output.
+     * @return the converted column together with the indices of the rows that failed.
+     */
+    public static DateConversionResult changeDateFormat(List<String> dateStrings,
+                                                        String dateFormat,
+                                                        int style,
+                                                        Locale locale) {
+        return changeDateFormat(dateStrings.toArray(new String[0]), dateFormat, style, locale);
+    }
+
+    /**
+     * Stream variant of {@link #changeDateFormat(String[], String, int, Locale)}. The stream is drained
+     * first; result indices follow its encounter order.
+     *
+     * @param dateStrings the date strings to convert.
+     * @param dateFormat  the pattern used to parse every row.
+     * @param style       the {@link DateFormat} style for the output.
+     * @param locale      the {@link Locale} of the output.
+     * @return the converted column together with the indices of the rows that failed.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public static DateConversionResult changeDateFormat(Stream<? extends CharSequence> dateStrings,
+                                                        String dateFormat,
+                                                        int style,
+                                                        Locale locale) {
+        CharSequence[] column = dateStrings.toArray(CharSequence[]::new);
+        return DateBatchConverter.forStyle(dateFormat, style, locale).convert(column);
+    }
+
     // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
 
     /**
@@ -515,7 +863,7 @@ public class DateUtil {
      *
      * <p><strong>Example Usage:</strong></p>
      * <pre>{@code
-     *   Date futureDate = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).parse("2025-01-01");
+     *   Date futureDate = DateFormatCache.get("yyyy-MM-dd").parse("2025-01-01");
      *   boolean notPassed = hasDayNotPassed(futureDate);
      *   // notPassed == true if today's date is before 2025-01-01
      * }</pre>
@@ -525,35 +873,27 @@ public class DateUtil {
      * {@code false} otherwise (including if {@code date} is null).
      */
     public static boolean hasDayNotPassed(Date date) {
+        return hasDayNotPassed(date, defaultClock);
+    }
+
+    /**
+     * Checks if the given {@link Date} is today or a later day, where "today" is taken from the
+     * given {@link EpochClock}.
+     *
+     * @param date  the {@link Date} to compare with the clock's current date (may be null).
+     * @param clock the clock providing the current time.
+     * @return {@code true} if {@code date} is today or a day in the future;
+     * {@code false} otherwise (including if {@code date} is null).
+     * @see #hasDayNotPassed(Date)
+     */
+    public static boolean hasDayNotPassed(Date date, EpochClock clock) {
         if (date == null) {
             Log.e("Error", "The provided date is null.");
             return false;
         }
 
-        // Use a SimpleDateFormat that only retains the "yyyy-MM-dd" portion
-        SimpleDateFormat sdfDateOnly = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        sdfDateOnly.setLenient(false);
-
-        try {
-            // Convert the given date to a 'date-only' string, then parse back to a Date (time = 00:00:00)
-            Date givenDateWithoutTime = sdfDateOnly.parse(sdfDateOnly.format(date));
-
-            // Do the same for the current date
-            Date currentDate = new Date();
-            Date currentDateWithoutTime = sdfDateOnly.parse(sdfDateOnly.format(currentDate));
-
-            if (givenDateWithoutTime != null && currentDateWithoutTime != null) {
-                // Return true if the given date is today or in the future
-                return givenDateWithoutTime.getTime() >= currentDateWithoutTime.getTime();
-            } else {
-                Log.e("Error", "Error calculating day comparison.");
-                return false;
-            }
-
-        } catch (ParseException e) {
-            Log.e("Error", "Error parsing the date: " + e.getMessage());
-            return false;
-        }
+        // Local midnight is cached by DayBoundary, so this is a single comparison.
+        return DayBoundary.forClock(clock).isTodayOrFuture(date.getTime(), clock.currentTimeMillis());
     }
 
     /**
@@ -583,13 +923,137 @@ public class DateUtil {
      * @see #hasDayNotPassed(Date)
      */
     public static boolean hasDayNotPassed(String dateString, String inputFormat) throws ParseException {
-        SimpleDateFormat sdf = new SimpleDateFormat(inputFormat, Locale.getDefault());
-        Date parsedDate = sdf.parse(dateString);
+        Date parsedDate = parse(dateString, inputFormat);
 
         // If parsing succeeds, check if the day has not passed (including today)
         return parsedDate != null && hasDayNotPassed(parsedDate);
     }
 
+    /**
+     * Checks whether the given epoch-millisecond instant falls on the current local day.
+     *
+     * <pre>{@code
+     *   boolean dueToday = isToday(task.dueAtMillis);
+     * }</pre>
+     *
+     * @param epochMillis the instant to check, in milliseconds since the Unix epoch.
+     * @return {@code true} if the instant is today.
+     * @see DayBoundary#isToday(long)
+     */
+    public static boolean isToday(long epochMillis) {
+        return isToday(epochMillis, defaultClock);
+    }
+
+    /**
+     * Variant of {@link #isToday(long)} that reads "now" from the given {@link EpochClock}.
+     *
+     * @param epochMillis the instant to check, in milliseconds since the Unix epoch.
+     * @param clock       the clock providing the current time.
+     * @return whether the instant is on the clock's current local day.
+     */
+    public static boolean isToday(long epochMillis, EpochClock clock) {
+        return DayBoundary.forClock(clock).isToday(epochMillis, clock.currentTimeMillis());
+    }
+
+    /**
+     * Checks whether the given epoch-millisecond instant falls on a local day before today.
+     *
+     * <pre>{@code
+     *   boolean overdue = isPast(task.dueAtMillis);
+     * }</pre>
+     *
+     * @param epochMillis the instant to check, in milliseconds since the Unix epoch.
+     * @return {@code true} if the day of the instant has already passed.
+     * @see DayBoundary#isPast(long)
+     */
+    public static boolean isPast(long epochMillis) {
+        return isPast(epochMillis, defaultClock);
+    }
+
+    /**
+     * Variant of {@link #isPast(long)} that reads "now" from the given {@link EpochClock}.
+     *
+     * @param epochMillis the instant to check, in milliseconds since the Unix epoch.
+     * @param clock       the clock providing the current time.
+     * @return whether the instant is on a local day before the clock's today.
+     */
+    public static boolean isPast(long epochMillis, EpochClock clock) {
+        return DayBoundary.forClock(clock).isPast(epochMillis, clock.currentTimeMillis());
+    }
+
+    /**
+     * Returns the number of local calendar days from today to the day of the given instant.
+     *
+     * <pre>{@code
+     *   long days = daysUntil(task.dueAtMillis); // 0 = today, 1 = tomorrow, -1 = yesterday
+     * }</pre>
+     *
+     * @param epochMillis the instant to check, in milliseconds since the Unix epoch.
+     * @return the signed number of calendar days between today and that day.
+     * @see DayBoundary#daysUntil(long)
+     */
+    public static long daysUntil(long epochMillis) {
+        return daysUntil(epochMillis, defaultClock);
+    }
+
+    /**
+     * Variant of {@link #daysUntil(long)} that reads "now" from the given {@link EpochClock}.
+     *
+     * @param epochMillis the instant to check, in milliseconds since the Unix epoch.
+     * @param clock       the clock providing the current time.
+     * @return the signed number of calendar days from the clock's today to that day.
+     */
+    public static long daysUntil(long epochMillis, EpochClock clock) {
+        return DayBoundary.forClock(clock).daysUntil(epochMillis, clock.currentTimeMillis());
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Parses a date string with a cached formatter. The {@code _WITH_MICROS} patterns are read by their
+     * fixed-width parser instead, because {@link SimpleDateFormat} treats {@code SSSSSS} as milliseconds
+     * and would shift the result by up to 999 seconds.
+     */
+    private static Date parse(String dateString, String pattern) throws ParseException {
+        DateFormats microsFormat = microsFormatOf(pattern);
+        if (microsFormat != null) {
+            return new Date(microsFormat.getParser().parseMillis(dateString, TimeZone.getDefault()));
+        }
+        return DateFormatCache.get(pattern).parse(dateString);
+    }
+
+    /**
+     * Builds an offset table over the range of {@code epochMillis} when sampling that range costs
+     * fewer zone lookups than the values themselves, and an empty table (every lookup goes to the
+     * zone) otherwise.
+     */
+    private static ZoneOffsetTable offsetTableFor(TimeZone zone, long[] epochMillis) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long value : epochMillis) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        long span = max - min;
+        if (epochMillis.length == 0 || span < 0 || span / ZoneOffsetTable.SAMPLE_STEP_MILLIS >= epochMillis.length) {
+            return ZoneOffsetTable.of(zone, 0, 0);
+        }
+        return ZoneOffsetTable.covering(zone, epochMillis);
+    }
+
+    /**
+     * Returns the {@code _WITH_MICROS} format whose pattern equals {@code pattern}, or {@code null}.
+     */
+    private static DateFormats microsFormatOf(String pattern) {
+        if (DateFormats.DATETIME_WITH_MICROS.getPattern().equals(pattern)) {
+            return DateFormats.DATETIME_WITH_MICROS;
+        }
+        if (DateFormats.TIME_WITH_MICROS.getPattern().equals(pattern)) {
+            return DateFormats.TIME_WITH_MICROS;
+        }
+        return null;
+    }
+
     // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
 
     /**
@@ -749,6 +1213,22 @@ public class DateUtil {
             return DateTimeFormatter.ofPattern(pattern);
         }
 
+        /**
+         * Returns a hand-written parser for this pattern if it is a fixed-width numeric format
+         * ({@link #DATETIME_SECONDS}, {@link #DATE_DASH}, {@link #DATE_COMPACT},
+         * {@link #DATETIME_WITH_MICROS}, {@link #TIME_WITH_MICROS} or {@link #ISO_WITH_OFFSET}).
+         *
+         * <pre>{@code
+         *   long epochMillis = DateFormats.DATETIME_SECONDS.getParser()
+         *       .parseMillis("2025-01-02 15:04:05", TimeZone.getDefault());
+         * }</pre>
+         *
+         * @return A stateless, thread-safe parser, or {@code null} if this pattern has none.
+         */
+        public FixedWidthDateParser getParser() {
+            return FixedWidthDateParser.forFormat(this);
+        }
+
     }
 
 }
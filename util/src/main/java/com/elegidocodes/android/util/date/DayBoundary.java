@@ -0,0 +1,225 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.WeakHashMap;
+
+/**
+ * Tracks the local start and end of "today" so that calendar-day questions become a single
+ * {@code long} comparison.
+ *
+ * <p>The boundaries are computed once and only refreshed when the clock moves past them (the day
+ * rolled over) or when the default {@link TimeZone} has changed. The zone is re-checked at most
+ * once every {@link #ZONE_CHECK_INTERVAL_MILLIS}; apps that listen for
+ * {@code Intent.ACTION_TIMEZONE_CHANGED} can call {@link #invalidate()} to pick up a change
+ * immediately.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * DayBoundary today = DayBoundary.getDefault();
+ * for (Task task : tasks) {
+ *     task.overdue = today.isPast(task.dueAtMillis);
+ * }
+ * }</pre>
+ * </p>
+ */
+public final class DayBoundary {
+
+    /**
+     * How often the default time zone is compared against the cached one.
+     */
+    public static final long ZONE_CHECK_INTERVAL_MILLIS = 60_000L;
+
+    private static final DayBoundary DEFAULT = new DayBoundary(() -> DateUtil.getDefaultClock().currentTimeMillis());
+
+    /**
+     * One tracker per clock passed to {@link DateUtil}, so callers alternating between clocks that
+     * are days apart do not keep recomputing each other's day. The trackers hold no reference to
+     * their clock, which lets the weak keys go.
+     */
+    private static final Map<EpochClock, DayBoundary> BY_CLOCK = new WeakHashMap<>();
+
+    /**
+     * {@code null} for the trackers in {@link #BY_CLOCK}, which are only asked with an explicit
+     * "now".
+     */
+    private final EpochClock clock;
+    private volatile Day day;
+
+    /**
+     * Creates a boundary tracker that reads "now" from the given clock.
+     *
+     * @param clock The clock providing the current time.
+     */
+    public DayBoundary(EpochClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock must not be null");
+        }
+        this.clock = clock;
+    }
+
+    private DayBoundary() {
+        this.clock = null;
+    }
+
+    /**
+     * Returns the shared tracker backed by {@link DateUtil#getDefaultClock()}.
+     *
+     * @return The default instance.
+     */
+    public static DayBoundary getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the tracker whose cached day belongs to {@code clock}.
+     */
+    static DayBoundary forClock(EpochClock clock) {
+        if (clock == DateUtil.getDefaultClock()) {
+            return DEFAULT;
+        }
+        synchronized (BY_CLOCK) {
+            DayBoundary boundary = BY_CLOCK.get(clock);
+            if (boundary == null) {
+                boundary = new DayBoundary();
+                BY_CLOCK.put(clock, boundary);
+            }
+            return boundary;
+        }
+    }
+
+    /**
+     * Returns the first instant of the current local day.
+     *
+     * @return Epoch milliseconds of local midnight today.
+     */
+    public long getStartOfToday() {
+        return current(clock.currentTimeMillis()).start;
+    }
+
+    /**
+     * Returns the first instant of the next local day.
+     *
+     * @return Epoch milliseconds of local midnight tomorrow.
+     */
+    public long getStartOfTomorrow() {
+        return current(clock.currentTimeMillis()).end;
+    }
+
+    /**
+     * Returns whether the instant falls on the current local day.
+     *
+     * @param epochMillis The instant to test.
+     * @return {@code true} if it is today.
+     */
+    public boolean isToday(long epochMillis) {
+        return isToday(epochMillis, clock.currentTimeMillis());
+    }
+
+    /**
+     * Returns whether the instant falls on a local day before today.
+     *
+     * @param epochMillis The instant to test.
+     * @return {@code true} if its day has already passed.
+     */
+    public boolean isPast(long epochMillis) {
+        return isPast(epochMillis, clock.currentTimeMillis());
+    }
+
+    /**
+     * Returns whether the instant falls on today or a later local day.
+     *
+     * @param epochMillis The instant to test.
+     * @return {@code true} if its day has not passed yet.
+     */
+    public boolean isTodayOrFuture(long epochMillis) {
+        return isTodayOrFuture(epochMillis, clock.currentTimeMillis());
+    }
+
+    /**
+     * Returns the number of local calendar days from today to the day of the given instant.
+     *
+     * @param epochMillis The instant to test.
+     * @return {@code 0} for today, {@code 1} for tomorrow, {@code -1} for yesterday, and so on.
+     */
+    public long daysUntil(long epochMillis) {
+        return daysUntil(epochMillis, clock.currentTimeMillis());
+    }
+
+    /**
+     * Drops the cached boundaries so the next call recomputes them with the current default zone.
+     */
+    public void invalidate() {
+        day = null;
+    }
+
+    // The variants below take "now" explicitly so DateUtil can answer for any EpochClock through
+    // forClock(); a different "now" simply moves the cache to that day.
+
+    boolean isToday(long epochMillis, long now) {
+        Day today = current(now);
+        return epochMillis >= today.start && epochMillis < today.end;
+    }
+
+    boolean isPast(long epochMillis, long now) {
+        return epochMillis < current(now).start;
+    }
+
+    boolean isTodayOrFuture(long epochMillis, long now) {
+        return epochMillis >= current(now).start;
+    }
+
+    long daysUntil(long epochMillis, long now) {
+        Day today = current(now);
+        long localMillis = epochMillis + today.zone.getOffset(epochMillis);
+        return CivilTime.floorDiv(localMillis, CivilTime.MILLIS_PER_DAY) - today.epochDay;
+    }
+
+    private Day current(long now) {
+        Day today = day;
+        if (today == null || now < today.start || now >= today.end) {
+            today = new Day(now, TimeZone.getDefault());
+            day = today;
+        } else if (Math.abs(now - today.checkedAt) >= ZONE_CHECK_INTERVAL_MILLIS) {
+            // Absolute, since the wall clock can be set back within the day.
+            TimeZone zone = TimeZone.getDefault();
+            today = zone.getID().equals(today.zone.getID()) ? today.checkedAt(now) : new Day(now, zone);
+            day = today;
+        }
+        return today;
+    }
+
+    /**
+     * Immutable snapshot of one local day.
+     */
+    private static final class Day {
+
+        final TimeZone zone;
+        final long epochDay;
+        final long start;
+        final long end;
+        final long checkedAt;
+
+        Day(long now, TimeZone zone) {
+            this.zone = zone;
+            this.epochDay = CivilTime.floorDiv(now + zone.getOffset(now), CivilTime.MILLIS_PER_DAY);
+            this.start = CivilTime.localToUtcMillis(epochDay * CivilTime.MILLIS_PER_DAY, zone);
+            this.end = CivilTime.localToUtcMillis((epochDay + 1) * CivilTime.MILLIS_PER_DAY, zone);
+            this.checkedAt = now;
+        }
+
+        private Day(Day day, long checkedAt) {
+            this.zone = day.zone;
+            this.epochDay = day.epochDay;
+            this.start = day.start;
+            this.end = day.end;
+            this.checkedAt = checkedAt;
+        }
+
+        Day checkedAt(long now) {
+            return new Day(this, now);
+        }
+
+    }
+
+}
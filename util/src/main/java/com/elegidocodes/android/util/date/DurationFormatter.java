@@ -0,0 +1,362 @@
+package com.elegidocodes.android.util.date;
+
+import android.icu.text.PluralRules;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats elapsed time as {@code XXs}, {@code MM:SS}, {@code HH:MM:SS} or {@code X days, HH:MM:SS}
+ * without {@link String#format}.
+ *
+ * <p>Each instance is bound to a {@link Locale} and holds a precomputed table of zero-padded digit
+ * pairs in that locale's digits, plus the localized unit words. Output is written into a reusable
+ * {@link StringBuilder} or any {@link Appendable}, so live countdowns can re-render every second
+ * across many rows without parsing format strings or boxing numbers. Instances are immutable,
+ * thread-safe and cached per locale.</p>
+ *
+ * <p>Unit words are built in for English, Spanish, Portuguese, French, German and Italian; other
+ * locales fall back to English unless the app supplies its own words (for example from its string
+ * resources) with {@link #registerUnits(Locale, String, Map)}. The word for a number of days is
+ * picked by the locale's CLDR plural rules ({@link PluralRules}) on Android 7.0 and later, so
+ * languages with more forms than "one" and "other", such as Russian, Polish, Czech or Arabic, get
+ * the right one. Older versions only tell "one" (exactly 1) from "other".</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * DurationFormatter formatter = DurationFormatter.getInstance(Locale.getDefault());
+ * StringBuilder sb = new StringBuilder(24);
+ * sb.setLength(0);
+ * formatter.format(remainingMillis, sb);
+ * countdownView.setText(sb);
+ * }</pre>
+ * </p>
+ */
+public final class DurationFormatter {
+
+    private static final ConcurrentHashMap<Locale, DurationFormatter> INSTANCES = new ConcurrentHashMap<>();
+
+    /**
+     * CLDR plural categories, in the order of the day words in {@link #UNITS}.
+     */
+    private static final String[] CATEGORIES = {"zero", "one", "two", "few", "many", "other"};
+    private static final int ONE = 1;
+    private static final int OTHER = 5;
+
+    /**
+     * Day counts whose plural category is looked up once, when the formatter is built.
+     */
+    private static final int PRESELECTED_DAYS = 100;
+
+    /**
+     * { seconds suffix, then the day word for each of {@link #CATEGORIES}, null where unused }
+     */
+    private static final ConcurrentHashMap<String, String[]> UNITS = new ConcurrentHashMap<>();
+
+    static {
+        UNITS.put("en", units("s", "day", "days"));
+        UNITS.put("es", units("s", "día", "días"));
+        UNITS.put("pt", units("s", "dia", "dias"));
+        UNITS.put("fr", units("s", "jour", "jours"));
+        UNITS.put("de", units("s", "Tag", "Tage"));
+        UNITS.put("it", units("s", "giorno", "giorni"));
+    }
+
+    private final Locale locale;
+    private final char zeroDigit;
+    private final char[] digitPairs;
+    private final String secondsSuffix;
+
+    /**
+     * The text after a day count for each of {@link #CATEGORIES}.
+     */
+    private final String[] dayWords;
+
+    /**
+     * The plural category of each day count below {@link #PRESELECTED_DAYS}.
+     */
+    private final byte[] dayCategories;
+
+    /**
+     * The locale's {@link PluralRules} on Android 7.0 and later, otherwise {@code null}. Typed as
+     * {@link Object} so the class loads on older versions.
+     */
+    private final Object pluralRules;
+
+    private DurationFormatter(Locale locale) {
+        this.locale = locale;
+        this.zeroDigit = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+
+        this.digitPairs = new char[200];
+        for (int i = 0; i < 100; i++) {
+            digitPairs[i * 2] = (char) (zeroDigit + i / 10);
+            digitPairs[i * 2 + 1] = (char) (zeroDigit + i % 10);
+        }
+
+        String[] units = UNITS.get(locale.getLanguage());
+        if (units == null) {
+            units = UNITS.get("en");
+            locale = Locale.ENGLISH; // Plural rules must match the words
+        }
+        this.secondsSuffix = units[0];
+        this.dayWords = new String[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            String word = units[i + 1] != null ? units[i + 1] : units[OTHER + 1];
+            dayWords[i] = " " + word + ", ";
+        }
+
+        this.pluralRules = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ? Api24Impl.forLocale(locale) : null;
+        this.dayCategories = new byte[PRESELECTED_DAYS];
+        for (int days = 0; days < PRESELECTED_DAYS; days++) {
+            dayCategories[days] = (byte) selectCategory(days);
+        }
+    }
+
+    private static String[] units(String secondsSuffix, String dayOne, String dayOther) {
+        String[] units = new String[CATEGORIES.length + 1];
+        units[0] = secondsSuffix;
+        units[ONE + 1] = dayOne;
+        units[OTHER + 1] = dayOther;
+        return units;
+    }
+
+    /**
+     * Returns the cached formatter for the default {@link Locale}.
+     *
+     * @return The formatter.
+     */
+    public static DurationFormatter getInstance() {
+        return getInstance(Locale.getDefault());
+    }
+
+    /**
+     * Returns the cached formatter for the given {@link Locale}.
+     *
+     * @param locale The locale that selects digits and unit words.
+     * @return The formatter.
+     */
+    public static DurationFormatter getInstance(Locale locale) {
+        DurationFormatter formatter = INSTANCES.get(locale);
+        if (formatter == null) {
+            formatter = new DurationFormatter(locale);
+            DurationFormatter existing = INSTANCES.putIfAbsent(locale, formatter);
+            if (existing != null) {
+                formatter = existing;
+            }
+        }
+        return formatter;
+    }
+
+    /**
+     * Registers the unit words for a language whose plurals only have the "one" and "other"
+     * forms, such as English, replacing the built-in ones.
+     *
+     * <pre>{@code
+     * Resources res = context.getResources();
+     * DurationFormatter.registerUnits(Locale.getDefault(),
+     *         res.getString(R.string.seconds_suffix),
+     *         res.getQuantityString(R.plurals.days, 1),
+     *         res.getQuantityString(R.plurals.days, 2));
+     * }</pre>
+     *
+     * @param locale        The locale whose language the words belong to.
+     * @param secondsSuffix The suffix after a seconds count (e.g. "s").
+     * @param dayOne        The word used for exactly one day (e.g. "day").
+     * @param dayOther      The word used for any other number of days (e.g. "days").
+     * @see #registerUnits(Locale, String, Map)
+     */
+    public static void registerUnits(Locale locale, String secondsSuffix, String dayOne, String dayOther) {
+        if (locale == null || secondsSuffix == null || dayOne == null || dayOther == null) {
+            throw new IllegalArgumentException("Locale and unit words must not be null");
+        }
+        register(locale, units(secondsSuffix, dayOne, dayOther));
+    }
+
+    /**
+     * Registers the unit words for a language, with a day word for each CLDR plural category the
+     * language uses, replacing the built-in ones. Categories left out use the "other" word.
+     *
+     * <pre>{@code
+     * Map<String, String> days = new HashMap<>();
+     * days.put("one", "день");   // 1, 21, 31...
+     * days.put("few", "дня");    // 2-4, 22-24...
+     * days.put("many", "дней");  // 5-20, 25-30...
+     * days.put("other", "дня");
+     * DurationFormatter.registerUnits(new Locale("ru"), "с", days);
+     * }</pre>
+     *
+     * @param locale        The locale whose language the words belong to.
+     * @param secondsSuffix The suffix after a seconds count (e.g. "s").
+     * @param dayWords      The day word by plural category: "zero", "one", "two", "few", "many"
+     *                      or "other". "other" is required.
+     * @throws IllegalArgumentException If an argument is null, "other" is missing or a category
+     *                                  is unknown.
+     */
+    public static void registerUnits(Locale locale, String secondsSuffix, Map<String, String> dayWords) {
+        if (locale == null || secondsSuffix == null || dayWords == null || dayWords.get("other") == null) {
+            throw new IllegalArgumentException("Locale, seconds suffix and the \"other\" day word must not be null");
+        }
+        String[] units = new String[CATEGORIES.length + 1];
+        units[0] = secondsSuffix;
+        for (Map.Entry<String, String> entry : dayWords.entrySet()) {
+            int category = indexOf(entry.getKey());
+            if (category < 0) {
+                throw new IllegalArgumentException("Unknown plural category: " + entry.getKey());
+            }
+            units[category + 1] = entry.getValue();
+        }
+        register(locale, units);
+    }
+
+    private static void register(Locale locale, String[] units) {
+        UNITS.put(locale.getLanguage(), units);
+
+        // Drop formatters built with the previous words for this language.
+        for (Locale cached : INSTANCES.keySet()) {
+            if (cached.getLanguage().equals(locale.getLanguage())) {
+                INSTANCES.remove(cached);
+            }
+        }
+    }
+
+    /**
+     * Returns the locale this formatter was built for.
+     *
+     * @return The locale.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Formats a duration into a new {@link String}.
+     *
+     * @param durationMillis The duration in milliseconds; the sign is ignored.
+     * @return The formatted duration.
+     */
+    public String format(long durationMillis) {
+        return format(durationMillis, new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Appends a duration to a {@link StringBuilder}.
+     *
+     * @param durationMillis The duration in milliseconds; the sign is ignored.
+     * @param out            The builder that receives the text.
+     * @return The same {@code out} instance, for chaining.
+     */
+    public StringBuilder format(long durationMillis, StringBuilder out) {
+        try {
+            format(durationMillis, (Appendable) out);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Appends a duration to an {@link Appendable}.
+     *
+     * @param durationMillis The duration in milliseconds; the sign is ignored.
+     * @param out            The destination of the text.
+     * @throws IOException If {@code out} fails to accept characters.
+     */
+    public void format(long durationMillis, Appendable out) throws IOException {
+        long totalSeconds = Math.abs(durationMillis / 1000);
+
+        if (totalSeconds < 60) {
+            appendNumber(out, totalSeconds);
+            out.append(secondsSuffix);
+            return;
+        }
+
+        if (totalSeconds >= 86400) {
+            long days = totalSeconds / 86400;
+            appendNumber(out, days);
+            out.append(dayWords[days < PRESELECTED_DAYS ? dayCategories[(int) days] : selectCategory(days)]);
+            totalSeconds %= 86400;
+            appendPair(out, (int) (totalSeconds / 3600));
+            out.append(':');
+        } else if (totalSeconds >= 3600) {
+            appendPair(out, (int) (totalSeconds / 3600));
+            out.append(':');
+        }
+
+        appendPair(out, (int) (totalSeconds % 3600 / 60));
+        out.append(':');
+        appendPair(out, (int) (totalSeconds % 60));
+    }
+
+    /**
+     * Returns the index in {@link #CATEGORIES} of the plural form for {@code count}.
+     */
+    private int selectCategory(long count) {
+        if (pluralRules != null) {
+            int category = indexOf(Api24Impl.select(pluralRules, count));
+            return category >= 0 ? category : OTHER;
+        }
+        return count == 1 ? ONE : OTHER;
+    }
+
+    private static int indexOf(String category) {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(category)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a value in the range 0-99 as two digits from the precomputed table.
+     */
+    private void appendPair(Appendable out, int value) throws IOException {
+        out.append(digitPairs[value * 2]);
+        out.append(digitPairs[value * 2 + 1]);
+    }
+
+    /**
+     * Writes a non-negative value without leading zeros.
+     */
+    private void appendNumber(Appendable out, long value) throws IOException {
+        if (value < 10) {
+            out.append((char) (zeroDigit + value));
+            return;
+        }
+        long divisor = 1;
+        while (value / divisor >= 100) {
+            divisor *= 100;
+        }
+        int head = (int) (value / divisor);
+        if (head < 10) {
+            out.append((char) (zeroDigit + head));
+        } else {
+            appendPair(out, head);
+        }
+        while (divisor > 1) {
+            divisor /= 100;
+            appendPair(out, (int) (value / divisor % 100));
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private static final class Api24Impl {
+
+        static Object forLocale(Locale locale) {
+            return PluralRules.forLocale(locale);
+        }
+
+        static String select(Object rules, long count) {
+            return ((PluralRules) rules).select(count);
+        }
+
+    }
+
+}
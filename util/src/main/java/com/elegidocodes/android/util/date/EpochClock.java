@@ -0,0 +1,47 @@
+package com.elegidocodes.android.util.date;
+
+/**
+ * A source of the current time expressed as milliseconds since the Unix epoch.
+ *
+ * <p>The {@code long}-based methods of {@link DateUtil} take an {@link EpochClock} instead of calling
+ * {@code new Date()} for "now", so callers can share a single reading across many computations or
+ * inject a fixed time in tests. Methods without a clock parameter use
+ * {@link DateUtil#getDefaultClock()}.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * EpochClock clock = EpochClock.SYSTEM;
+ * long minutesAgo = DateUtil.getTimeDifference(createdAtMillis, TimeUnit.MINUTES, clock);
+ *
+ * // In tests:
+ * DateUtil.setDefaultClock(EpochClock.fixed(1735830245000L));
+ * }</pre>
+ * </p>
+ *
+ * @see CoarseClock
+ */
+public interface EpochClock {
+
+    /**
+     * A clock backed by {@link System#currentTimeMillis()}.
+     */
+    EpochClock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * Returns the current time.
+     *
+     * @return The current time in milliseconds since the Unix epoch.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Returns a clock that always reports the same instant.
+     *
+     * @param epochMillis The instant to report.
+     * @return A fixed clock.
+     */
+    static EpochClock fixed(long epochMillis) {
+        return () -> epochMillis;
+    }
+
+}
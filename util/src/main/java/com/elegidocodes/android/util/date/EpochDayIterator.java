@@ -0,0 +1,37 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy sequence of epoch days (days since 1970-01-01), read without boxing.
+ *
+ * <p>{@code java.util.PrimitiveIterator.OfLong} is only available from API 24, so the date package
+ * uses this interface for the day sequences produced by {@link BusinessCalendar}.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * EpochDayIterator days = calendar.workingDaysFrom(today);
+ * while (days.hasNext() && slots.size() < 10) {
+ *     slots.add(days.nextDay());
+ * }
+ * }</pre>
+ * </p>
+ */
+public interface EpochDayIterator {
+
+    /**
+     * Returns whether another day is available.
+     *
+     * @return {@code true} if {@link #nextDay()} will return a day.
+     */
+    boolean hasNext();
+
+    /**
+     * Returns the next day of the sequence.
+     *
+     * @return The epoch day.
+     * @throws NoSuchElementException If the sequence is exhausted.
+     */
+    long nextDay();
+
+}
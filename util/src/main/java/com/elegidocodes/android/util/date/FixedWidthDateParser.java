@@ -0,0 +1,362 @@
+package com.elegidocodes.android.util.date;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import java.text.ParseException;
+import java.util.TimeZone;
+
+/**
+ * A hand-written parser for one of the fixed-width numeric {@link DateFormats} patterns.
+ *
+ * <p>Digits are read straight from the {@link CharSequence} into epoch milliseconds or microseconds,
+ * so a successful parse creates no objects at all. This is meant for ingesting large payloads of
+ * timestamps where {@link java.text.SimpleDateFormat} would dominate the cost.</p>
+ *
+ * <p>Unlike a lenient {@link java.text.SimpleDateFormat}, these parsers are strict: the input must
+ * have exactly the shape of the pattern and every field must be in range, otherwise a
+ * {@link ParseException} is thrown with the offset of the first offending character.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * FixedWidthDateParser parser = DateFormats.DATETIME_SECONDS.getParser();
+ * TimeZone zone = TimeZone.getDefault();
+ * for (String value : column) {
+ *     long epochMillis = parser.parseMillis(value, zone);
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @see DateFormats#getParser()
+ */
+public abstract class FixedWidthDateParser {
+
+    private static final FixedWidthDateParser DATETIME_SECONDS = new DateTimeParser(DateFormats.DATETIME_SECONDS, 0);
+    private static final FixedWidthDateParser DATETIME_WITH_MICROS = new DateTimeParser(DateFormats.DATETIME_WITH_MICROS, 6);
+    private static final FixedWidthDateParser TIME_WITH_MICROS = new TimeMicrosParser();
+    private static final FixedWidthDateParser DATE_DASH = new DateDashParser();
+    private static final FixedWidthDateParser DATE_COMPACT = new DateCompactParser();
+    private static final FixedWidthDateParser ISO_WITH_OFFSET = new IsoOffsetParser();
+
+    private final DateFormats format;
+
+    FixedWidthDateParser(DateFormats format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns the parser for the given format.
+     *
+     * @param format The date format.
+     * @return The parser, or {@code null} if the format is not a fixed-width numeric pattern.
+     */
+    static FixedWidthDateParser forFormat(DateFormats format) {
+        switch (format) {
+            case DATETIME_SECONDS:
+                return DATETIME_SECONDS;
+            case DATETIME_WITH_MICROS:
+                return DATETIME_WITH_MICROS;
+            case TIME_WITH_MICROS:
+                return TIME_WITH_MICROS;
+            case DATE_DASH:
+                return DATE_DASH;
+            case DATE_COMPACT:
+                return DATE_COMPACT;
+            case ISO_WITH_OFFSET:
+                return ISO_WITH_OFFSET;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the format this parser reads.
+     *
+     * @return The {@link DateFormats} constant.
+     */
+    public DateFormats getFormat() {
+        return format;
+    }
+
+    /**
+     * Parses the text in the default time zone and returns epoch milliseconds.
+     *
+     * @param text The text to parse.
+     * @return Milliseconds since the Unix epoch.
+     * @throws ParseException If the text does not match the pattern.
+     */
+    public long parseMillis(CharSequence text) throws ParseException {
+        return parseMillis(text, TimeZone.getDefault());
+    }
+
+    /**
+     * Parses the text and returns epoch milliseconds. Sub-millisecond digits are truncated toward
+     * negative infinity.
+     *
+     * @param text The text to parse.
+     * @param zone The zone used to interpret the wall-clock fields; ignored by patterns that carry
+     *             their own offset.
+     * @return Milliseconds since the Unix epoch.
+     * @throws ParseException If the text does not match the pattern.
+     */
+    public long parseMillis(CharSequence text, TimeZone zone) throws ParseException {
+        return CivilTime.floorDiv(parseMicros(text, zone), CivilTime.MICROS_PER_MILLI);
+    }
+
+    /**
+     * Parses the text in the default time zone and returns epoch microseconds.
+     *
+     * @param text The text to parse.
+     * @return Microseconds since the Unix epoch.
+     * @throws ParseException If the text does not match the pattern.
+     */
+    public long parseMicros(CharSequence text) throws ParseException {
+        return parseMicros(text, TimeZone.getDefault());
+    }
+
+    /**
+     * Parses the text and returns epoch microseconds.
+     *
+     * @param text The text to parse.
+     * @param zone The zone used to interpret the wall-clock fields; ignored by patterns that carry
+     *             their own offset.
+     * @return Microseconds since the Unix epoch.
+     * @throws ParseException If the text does not match the pattern.
+     */
+    public abstract long parseMicros(CharSequence text, TimeZone zone) throws ParseException;
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Reads {@code count} ASCII digits starting at {@code offset}.
+     */
+    static int digits(CharSequence text, int offset, int count) throws ParseException {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw error(text, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    static void expect(CharSequence text, int offset, char expected) throws ParseException {
+        if (text.charAt(offset) != expected) {
+            throw error(text, offset);
+        }
+    }
+
+    static void expectLength(CharSequence text, int length) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Unparseable date: null", 0);
+        }
+        if (text.length() != length) {
+            throw error(text, Math.min(text.length(), length));
+        }
+    }
+
+    static ParseException error(CharSequence text, int offset) {
+        return new ParseException("Unparseable date: \"" + text + "\"", offset);
+    }
+
+    /**
+     * Validates a calendar date and returns its epoch day.
+     *
+     * @param offset Offset of the year field, used for error reporting.
+     */
+    static long epochDay(CharSequence text, int offset, int year, int month, int day) throws ParseException {
+        if (month < 1 || month > 12 || day < 1 || day > CivilTime.daysInMonth(year, month)) {
+            throw error(text, offset);
+        }
+        return CivilTime.daysFromCivil(year, month, day);
+    }
+
+    /**
+     * Validates a time of day and returns it in milliseconds.
+     *
+     * @param offset Offset of the hour field, used for error reporting.
+     */
+    static long millisOfDay(CharSequence text, int offset, int hour, int minute, int second) throws ParseException {
+        if (hour > 23 || minute > 59 || second > 59) {
+            throw error(text, offset);
+        }
+        return ((hour * 60L + minute) * 60L + second) * 1000L;
+    }
+
+    /**
+     * Converts local wall-clock fields to epoch microseconds in the given zone.
+     */
+    static long toEpochMicros(long epochDay, long millisOfDay, int microsOfMilli, TimeZone zone) {
+        long localMillis = epochDay * CivilTime.MILLIS_PER_DAY + millisOfDay;
+        return CivilTime.localToUtcMillis(localMillis, zone) * CivilTime.MICROS_PER_MILLI + microsOfMilli;
+    }
+
+    /**
+     * Parses "yyyy-MM-dd" at the given offset.
+     */
+    static long parseDashDate(CharSequence text, int offset) throws ParseException {
+        int year = digits(text, offset, 4);
+        expect(text, offset + 4, '-');
+        int month = digits(text, offset + 5, 2);
+        expect(text, offset + 7, '-');
+        int day = digits(text, offset + 8, 2);
+        return epochDay(text, offset, year, month, day);
+    }
+
+    /**
+     * Parses "HH:mm:ss" at the given offset.
+     */
+    static long parseTime(CharSequence text, int offset) throws ParseException {
+        int hour = digits(text, offset, 2);
+        expect(text, offset + 2, ':');
+        int minute = digits(text, offset + 3, 2);
+        expect(text, offset + 5, ':');
+        int second = digits(text, offset + 6, 2);
+        return millisOfDay(text, offset, hour, minute, second);
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * "yyyy-MM-dd HH:mm:ss" optionally followed by "." and a fixed number of fraction digits.
+     * A six-digit fraction is read as microseconds, which is what the pattern means even though
+     * {@link java.text.SimpleDateFormat} reads it as milliseconds.
+     */
+    private static final class DateTimeParser extends FixedWidthDateParser {
+
+        private final int fractionDigits;
+        private final int length;
+
+        DateTimeParser(DateFormats format, int fractionDigits) {
+            super(format);
+            this.fractionDigits = fractionDigits;
+            this.length = fractionDigits == 0 ? 19 : 20 + fractionDigits;
+        }
+
+        @Override
+        public long parseMicros(CharSequence text, TimeZone zone) throws ParseException {
+            expectLength(text, length);
+            long epochDay = parseDashDate(text, 0);
+            expect(text, 10, ' ');
+            long millisOfDay = parseTime(text, 11);
+            int micros = 0;
+            if (fractionDigits > 0) {
+                expect(text, 19, '.');
+                micros = digits(text, 20, fractionDigits);
+            }
+            return toEpochMicros(epochDay, millisOfDay + micros / 1000, micros % 1000, zone);
+        }
+
+    }
+
+    /**
+     * "HH:mm:ss.SSSSSS". Like {@link java.text.SimpleDateFormat}, a time without a date is placed on
+     * 1970-01-01 in the given zone; the six fraction digits are read as microseconds.
+     */
+    private static final class TimeMicrosParser extends FixedWidthDateParser {
+
+        TimeMicrosParser() {
+            super(DateFormats.TIME_WITH_MICROS);
+        }
+
+        @Override
+        public long parseMicros(CharSequence text, TimeZone zone) throws ParseException {
+            expectLength(text, 15);
+            long millisOfDay = parseTime(text, 0);
+            expect(text, 8, '.');
+            int micros = digits(text, 9, 6);
+            return toEpochMicros(0, millisOfDay + micros / 1000, micros % 1000, zone);
+        }
+
+    }
+
+    /**
+     * "yyyy-MM-dd".
+     */
+    private static final class DateDashParser extends FixedWidthDateParser {
+
+        DateDashParser() {
+            super(DateFormats.DATE_DASH);
+        }
+
+        @Override
+        public long parseMicros(CharSequence text, TimeZone zone) throws ParseException {
+            expectLength(text, 10);
+            return toEpochMicros(parseDashDate(text, 0), 0, 0, zone);
+        }
+
+    }
+
+    /**
+     * "yyyyMMdd".
+     */
+    private static final class DateCompactParser extends FixedWidthDateParser {
+
+        DateCompactParser() {
+            super(DateFormats.DATE_COMPACT);
+        }
+
+        @Override
+        public long parseMicros(CharSequence text, TimeZone zone) throws ParseException {
+            expectLength(text, 8);
+            int year = digits(text, 0, 4);
+            int month = digits(text, 4, 2);
+            int day = digits(text, 6, 2);
+            return toEpochMicros(epochDay(text, 0, year, month, day), 0, 0, zone);
+        }
+
+    }
+
+    /**
+     * "yyyy-MM-dd'T'HH:mm:ss.SSS" followed by "Z", "+HH:mm" or "+HHmm". The zone argument is ignored
+     * because the text carries its own offset.
+     */
+    private static final class IsoOffsetParser extends FixedWidthDateParser {
+
+        IsoOffsetParser() {
+            super(DateFormats.ISO_WITH_OFFSET);
+        }
+
+        @Override
+        public long parseMicros(CharSequence text, TimeZone zone) throws ParseException {
+            if (text == null || text.length() < 24) {
+                throw text == null ? new ParseException("Unparseable date: null", 0) : error(text, text.length());
+            }
+            long epochDay = parseDashDate(text, 0);
+            expect(text, 10, 'T');
+            long millisOfDay = parseTime(text, 11);
+            expect(text, 19, '.');
+            int millis = digits(text, 20, 3);
+
+            long offsetMillis;
+            int length = text.length();
+            char sign = text.charAt(23);
+            if (sign == 'Z' && length == 24) {
+                offsetMillis = 0;
+            } else if ((sign == '+' || sign == '-') && (length == 29 || length == 28)) {
+                int hours = digits(text, 24, 2);
+                int minutesOffset = 26;
+                if (length == 29) {
+                    expect(text, 26, ':');
+                    minutesOffset = 27;
+                }
+                int minutes = digits(text, minutesOffset, 2);
+                if (hours > 18 || minutes > 59) {
+                    throw error(text, 24);
+                }
+                offsetMillis = (hours * 60L + minutes) * 60_000L;
+                if (sign == '-') {
+                    offsetMillis = -offsetMillis;
+                }
+            } else {
+                throw error(text, 23);
+            }
+
+            long utcMillis = epochDay * CivilTime.MILLIS_PER_DAY + millisOfDay + millis - offsetMillis;
+            return utcMillis * CivilTime.MICROS_PER_MILLI;
+        }
+
+    }
+
+}
@@ -0,0 +1,346 @@
+package com.elegidocodes.android.util.date;
+
+import android.os.SystemClock;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An instant with microsecond precision, stored as a single {@code long} of microseconds since
+ * the Unix epoch.
+ *
+ * <p>{@link java.text.SimpleDateFormat} reads the {@code SSSSSS} field of
+ * {@link DateFormats#DATETIME_WITH_MICROS} and {@link DateFormats#TIME_WITH_MICROS} as a count of
+ * milliseconds, so {@code "…:00.123456"} silently becomes {@code +123} seconds. This class parses and
+ * formats those two patterns with real microseconds, which keeps event ordering intact after a
+ * round trip.</p>
+ *
+ * <p>The static methods work directly on {@code long} values, so hot paths (sorting, comparing and
+ * diffing sensor logs) never need to box.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * long micros = MicroTimestamp.parseMicros("2025-01-02 15:04:05.123456",
+ *         DateFormats.DATETIME_WITH_MICROS, TimeZone.getDefault());
+ * String text = MicroTimestamp.format(micros, DateFormats.DATETIME_WITH_MICROS);
+ * // text == "2025-01-02 15:04:05.123456"
+ * }</pre>
+ * </p>
+ */
+public final class MicroTimestamp implements Comparable<MicroTimestamp> {
+
+    private static final long MICROS_PER_DAY = CivilTime.MILLIS_PER_DAY * CivilTime.MICROS_PER_MILLI;
+
+    /**
+     * Re-anchor {@link #nowMicros()} to the wall clock when it drifts by more than this.
+     */
+    private static final long MAX_DRIFT_MICROS = 2_000L * CivilTime.MICROS_PER_MILLI;
+
+    /**
+     * Created on first use, so parsing and formatting never touch {@link SystemClock}.
+     */
+    private static volatile Anchor anchor;
+
+    /**
+     * The last value returned by {@link #nowMicros()}.
+     */
+    private static final AtomicLong LAST_MICROS = new AtomicLong(Long.MIN_VALUE);
+
+    private final long epochMicros;
+
+    private MicroTimestamp(long epochMicros) {
+        this.epochMicros = epochMicros;
+    }
+
+    /**
+     * Creates a timestamp from microseconds since the Unix epoch.
+     *
+     * @param epochMicros Microseconds since the Unix epoch.
+     * @return The timestamp.
+     */
+    public static MicroTimestamp ofEpochMicros(long epochMicros) {
+        return new MicroTimestamp(epochMicros);
+    }
+
+    /**
+     * Creates a timestamp from milliseconds since the Unix epoch.
+     *
+     * @param epochMillis Milliseconds since the Unix epoch.
+     * @return The timestamp.
+     */
+    public static MicroTimestamp ofEpochMillis(long epochMillis) {
+        return new MicroTimestamp(epochMillis * CivilTime.MICROS_PER_MILLI);
+    }
+
+    /**
+     * Returns the current time as a timestamp.
+     *
+     * @return The timestamp.
+     * @see #nowMicros()
+     */
+    public static MicroTimestamp now() {
+        return new MicroTimestamp(nowMicros());
+    }
+
+    /**
+     * Returns the current time in microseconds since the Unix epoch.
+     *
+     * <p>{@link System#currentTimeMillis()} only has millisecond resolution, so many events logged in
+     * the same millisecond would collide. This method anchors the wall clock once and advances it with
+     * {@link SystemClock#elapsedRealtimeNanos()}. The anchor is refreshed if the wall clock is
+     * adjusted by more than two seconds.</p>
+     *
+     * <p>Every call returns a value greater than the one before, across all threads: two calls in the
+     * same microsecond get consecutive values. If the wall clock is set back, values keep counting up
+     * from the last one returned until the clock catches up.</p>
+     *
+     * @return Microseconds since the Unix epoch.
+     */
+    public static long nowMicros() {
+        Anchor current = anchor();
+        long micros = current.toEpochMicros(SystemClock.elapsedRealtimeNanos());
+        long wallMicros = System.currentTimeMillis() * CivilTime.MICROS_PER_MILLI;
+        if (Math.abs(micros - wallMicros) > MAX_DRIFT_MICROS) {
+            current = new Anchor();
+            anchor = current;
+            micros = current.toEpochMicros(SystemClock.elapsedRealtimeNanos());
+        }
+
+        while (true) {
+            long last = LAST_MICROS.get();
+            long next = Math.max(micros, last + 1);
+            if (LAST_MICROS.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Converts a {@link SystemClock#elapsedRealtimeNanos()} reading, such as
+     * {@code SensorEvent.timestamp}, to microseconds since the Unix epoch.
+     *
+     * @param elapsedRealtimeNanos Nanoseconds since boot, including deep sleep.
+     * @return Microseconds since the Unix epoch.
+     */
+    public static long fromElapsedRealtimeNanos(long elapsedRealtimeNanos) {
+        return anchor().toEpochMicros(elapsedRealtimeNanos);
+    }
+
+    private static Anchor anchor() {
+        Anchor current = anchor;
+        if (current == null) {
+            // Racing threads may each build one; any of them is a valid anchor.
+            current = new Anchor();
+            anchor = current;
+        }
+        return current;
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Parses text in one of the {@code _WITH_MICROS} formats in the default time zone.
+     *
+     * @param text   The text to parse (e.g. "2025-01-02 15:04:05.123456").
+     * @param format {@link DateFormats#DATETIME_WITH_MICROS} or {@link DateFormats#TIME_WITH_MICROS}.
+     * @return The parsed timestamp.
+     * @throws ParseException If the text does not match the format.
+     */
+    public static MicroTimestamp parse(CharSequence text, DateFormats format) throws ParseException {
+        return new MicroTimestamp(parseMicros(text, format, TimeZone.getDefault()));
+    }
+
+    /**
+     * Parses text in one of the {@code _WITH_MICROS} formats without allocating.
+     *
+     * <p>{@link DateFormats#TIME_WITH_MICROS} carries no date, so it is placed on 1970-01-01 in
+     * {@code zone}, matching {@link java.text.SimpleDateFormat}.</p>
+     *
+     * @param text   The text to parse.
+     * @param format {@link DateFormats#DATETIME_WITH_MICROS} or {@link DateFormats#TIME_WITH_MICROS}.
+     * @param zone   The zone used to interpret the wall-clock fields.
+     * @return Microseconds since the Unix epoch.
+     * @throws ParseException           If the text does not match the format.
+     * @throws IllegalArgumentException If {@code format} is not a microsecond format.
+     */
+    public static long parseMicros(CharSequence text, DateFormats format, TimeZone zone) throws ParseException {
+        return FixedWidthDateParser.forFormat(requireMicrosFormat(format)).parseMicros(text, zone);
+    }
+
+    /**
+     * Formats microseconds since the epoch in the default time zone.
+     *
+     * @param epochMicros Microseconds since the Unix epoch.
+     * @param format      {@link DateFormats#DATETIME_WITH_MICROS} or {@link DateFormats#TIME_WITH_MICROS}.
+     * @return The formatted text.
+     */
+    public static String format(long epochMicros, DateFormats format) {
+        return format(epochMicros, format, TimeZone.getDefault(), new StringBuilder(26)).toString();
+    }
+
+    /**
+     * Appends microseconds since the epoch, rendered in a {@code _WITH_MICROS} format, to a builder.
+     *
+     * @param epochMicros Microseconds since the Unix epoch.
+     * @param format      {@link DateFormats#DATETIME_WITH_MICROS} or {@link DateFormats#TIME_WITH_MICROS}.
+     * @param zone        The zone used to render the wall-clock fields.
+     * @param out         The builder that receives the text.
+     * @return The same {@code out} instance, for chaining.
+     * @throws IllegalArgumentException If {@code format} is not a microsecond format.
+     */
+    public static StringBuilder format(long epochMicros, DateFormats format, TimeZone zone, StringBuilder out) {
+        requireMicrosFormat(format);
+
+        long epochMillis = CivilTime.floorDiv(epochMicros, CivilTime.MICROS_PER_MILLI);
+        long localMicros = epochMicros + zone.getOffset(epochMillis) * CivilTime.MICROS_PER_MILLI;
+        long epochDay = CivilTime.floorDiv(localMicros, MICROS_PER_DAY);
+        long microsOfDay = localMicros - epochDay * MICROS_PER_DAY;
+
+        if (format == DateFormats.DATETIME_WITH_MICROS) {
+            long date = CivilTime.civilFromDays(epochDay);
+            appendDigits(out, date / 10000, 4);
+            out.append('-');
+            appendDigits(out, date / 100 % 100, 2);
+            out.append('-');
+            appendDigits(out, date % 100, 2);
+            out.append(' ');
+        }
+
+        long secondsOfDay = microsOfDay / 1_000_000L;
+        appendDigits(out, secondsOfDay / 3600, 2);
+        out.append(':');
+        appendDigits(out, secondsOfDay / 60 % 60, 2);
+        out.append(':');
+        appendDigits(out, secondsOfDay % 60, 2);
+        out.append('.');
+        appendDigits(out, microsOfDay % 1_000_000L, 6);
+        return out;
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Compares two epoch-microsecond values without boxing.
+     *
+     * @return A negative value, zero or a positive value as {@code a} is before, equal to or after {@code b}.
+     */
+    public static int compare(long a, long b) {
+        return Long.compare(a, b);
+    }
+
+    /**
+     * Returns the signed difference {@code to - from} between two epoch-microsecond values in the given unit.
+     *
+     * @param fromMicros The start, in microseconds since the Unix epoch.
+     * @param toMicros   The end, in microseconds since the Unix epoch.
+     * @param unit       The unit of the result; conversion truncates toward zero.
+     * @return The difference in {@code unit}.
+     */
+    public static long between(long fromMicros, long toMicros, TimeUnit unit) {
+        return unit.convert(toMicros - fromMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Returns microseconds since the Unix epoch.
+     *
+     * @return The raw value.
+     */
+    public long getEpochMicros() {
+        return epochMicros;
+    }
+
+    /**
+     * Returns milliseconds since the Unix epoch, truncated toward negative infinity.
+     *
+     * @return The value in milliseconds.
+     */
+    public long getEpochMillis() {
+        return CivilTime.floorDiv(epochMicros, CivilTime.MICROS_PER_MILLI);
+    }
+
+    /**
+     * Returns a {@link Date} for this instant. Microseconds below one millisecond are lost.
+     *
+     * @return A new {@link Date}.
+     */
+    public Date toDate() {
+        return new Date(getEpochMillis());
+    }
+
+    /**
+     * Returns the signed difference {@code other - this} in the given unit.
+     *
+     * @param other The other timestamp.
+     * @param unit  The unit of the result.
+     * @return The difference in {@code unit}.
+     */
+    public long until(MicroTimestamp other, TimeUnit unit) {
+        return between(epochMicros, other.epochMicros, unit);
+    }
+
+    @Override
+    public int compareTo(MicroTimestamp other) {
+        return Long.compare(epochMicros, other.epochMicros);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof MicroTimestamp && ((MicroTimestamp) o).epochMicros == epochMicros);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (epochMicros ^ (epochMicros >>> 32));
+    }
+
+    /**
+     * Returns this instant in {@link DateFormats#DATETIME_WITH_MICROS} in the default time zone.
+     */
+    @Override
+    public String toString() {
+        return format(epochMicros, DateFormats.DATETIME_WITH_MICROS);
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    private static DateFormats requireMicrosFormat(DateFormats format) {
+        if (format != DateFormats.DATETIME_WITH_MICROS && format != DateFormats.TIME_WITH_MICROS) {
+            throw new IllegalArgumentException("Not a microsecond format: " + format);
+        }
+        return format;
+    }
+
+    /**
+     * Writes a non-negative value as exactly {@code width} zero-padded ASCII digits.
+     */
+    static void appendDigits(StringBuilder out, long value, int width) {
+        int start = out.length();
+        for (int i = 0; i < width; i++) {
+            out.append('0');
+        }
+        for (int i = start + width - 1; i >= start; i--) {
+            out.setCharAt(i, (char) ('0' + value % 10));
+            value /= 10;
+        }
+    }
+
+    /**
+     * Pairs a wall-clock reading with an elapsed-realtime reading taken at the same moment.
+     */
+    private static final class Anchor {
+
+        private final long wallMicros = System.currentTimeMillis() * CivilTime.MICROS_PER_MILLI;
+        private final long elapsedNanos = SystemClock.elapsedRealtimeNanos();
+
+        long toEpochMicros(long elapsedRealtimeNanos) {
+            return wallMicros + (elapsedRealtimeNanos - elapsedNanos) / 1_000L;
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.elegidocodes.android.util.date;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A compiled formatter for {@link java.text.SimpleDateFormat} patterns made only of numeric fields
+ * ({@code y}, {@code M}, {@code d}, {@code H}, {@code m}, {@code s}, {@code S}) and literals.
+ *
+ * <p>It writes wall-clock fields from an instant and an already known UTC offset, so bulk
+ * formatting can take offsets from a {@link ZoneOffsetTable} instead of a {@link java.util.Calendar}.
+ * Output matches {@link java.text.SimpleDateFormat} for years 1 to 9999, except that six
+ * {@code S} letters write microseconds like {@link MicroTimestamp} does. Digits are always ASCII,
+ * so locales with other digits are not compiled.</p>
+ */
+final class NumericPatternFormatter {
+
+    /**
+     * First epoch day of year 1; earlier dates are left to {@link java.text.SimpleDateFormat}.
+     */
+    private static final long MIN_EPOCH_DAY = CivilTime.daysFromCivil(1, 1, 1);
+
+    /**
+     * Last epoch day of year 9999.
+     */
+    private static final long MAX_EPOCH_DAY = CivilTime.daysFromCivil(9999, 12, 31);
+
+    private final char[] letters;
+    private final int[] widths;
+    private final String[] literals;
+    private final int size;
+    private final int estimatedLength;
+
+    private NumericPatternFormatter(char[] letters, int[] widths, String[] literals, int size) {
+        this.letters = letters;
+        this.widths = widths;
+        this.literals = literals;
+        this.size = size;
+
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            length += letters[i] != 0 ? widths[i] : literals[i].length();
+        }
+        this.estimatedLength = length;
+    }
+
+    /**
+     * Compiles a pattern.
+     *
+     * @return The formatter, or {@code null} if the pattern uses a letter this class does not handle
+     * or the locale does not write ASCII digits.
+     */
+    static NumericPatternFormatter compile(String pattern, Locale locale) {
+        if (DecimalFormatSymbols.getInstance(locale).getZeroDigit() != '0') {
+            return null;
+        }
+        int capacity = pattern.length();
+        char[] letters = new char[capacity];
+        int[] widths = new int[capacity];
+        String[] literals = new String[capacity];
+        int size = 0;
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                // Quoted text, where two quotes in a row stand for one.
+                i++;
+                while (true) {
+                    if (i == pattern.length()) {
+                        return null;
+                    }
+                    char quoted = pattern.charAt(i);
+                    if (quoted != '\'') {
+                        literal.append(quoted);
+                        i++;
+                    } else if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                        literal.append('\'');
+                        i += 2;
+                    } else {
+                        i++;
+                        break;
+                    }
+                }
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int run = 1;
+                while (i + run < pattern.length() && pattern.charAt(i + run) == c) {
+                    run++;
+                }
+                if (!supports(c, run)) {
+                    return null;
+                }
+                if (literal.length() > 0) {
+                    literals[size++] = literal.toString();
+                    literal.setLength(0);
+                }
+                letters[size] = c;
+                widths[size] = run;
+                size++;
+                i += run;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (literal.length() > 0) {
+            literals[size++] = literal.toString();
+        }
+
+        return new NumericPatternFormatter(Arrays.copyOf(letters, size), Arrays.copyOf(widths, size),
+                Arrays.copyOf(literals, size), size);
+    }
+
+    /**
+     * Rewrites a pattern for {@link java.text.SimpleDateFormat} so that six {@code S} letters come
+     * out as microseconds like they do here, instead of as zero-padded milliseconds: the
+     * milliseconds followed by three of the locale's zero digits.
+     */
+    static String toSimpleDateFormatPattern(String pattern, Locale locale) {
+        if (!pattern.contains("SSSSSS")) {
+            return pattern;
+        }
+        char zero = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+        StringBuilder out = new StringBuilder(pattern.length() + 8);
+        boolean quoted = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int run = 1;
+            if (c == '\'') {
+                // A doubled quote flips the state twice, so it needs no special case.
+                quoted = !quoted;
+            } else if (c == 'S' && !quoted) {
+                while (i + run < pattern.length() && pattern.charAt(i + run) == 'S') {
+                    run++;
+                }
+                if (run == 6) {
+                    out.append("SSS'").append(zero).append(zero).append(zero).append('\'');
+                    i += run;
+                    continue;
+                }
+            }
+            out.append(pattern, i, i + run);
+            i += run;
+        }
+        return out.toString();
+    }
+
+    private static boolean supports(char letter, int run) {
+        switch (letter) {
+            case 'y':
+                return true;
+            case 'M':
+            case 'd':
+            case 'H':
+            case 'm':
+            case 's':
+                return run <= 2;
+            case 'S':
+                return run == 3 || run == 6;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns a capacity hint for the output of one value.
+     */
+    int estimatedLength() {
+        return estimatedLength;
+    }
+
+    /**
+     * Appends the wall-clock fields of {@code epochMillis} shifted by {@code offsetMillis}.
+     *
+     * @return {@code false}, leaving {@code out} untouched, if the date is outside years 1 to 9999.
+     */
+    boolean format(long epochMillis, int offsetMillis, StringBuilder out) {
+        long localMillis = epochMillis + offsetMillis;
+        long epochDay = CivilTime.floorDiv(localMillis, CivilTime.MILLIS_PER_DAY);
+        if (epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+            return false;
+        }
+        int millisOfDay = (int) (localMillis - epochDay * CivilTime.MILLIS_PER_DAY);
+        long date = CivilTime.civilFromDays(epochDay);
+
+        for (int i = 0; i < size; i++) {
+            int width = widths[i];
+            switch (letters[i]) {
+                case 0:
+                    out.append(literals[i]);
+                    break;
+                case 'y':
+                    int year = (int) (date / 10000);
+                    if (width == 2) {
+                        appendPadded(out, year % 100, 2);
+                    } else {
+                        appendPadded(out, year, width);
+                    }
+                    break;
+                case 'M':
+                    appendPadded(out, (int) (date / 100 % 100), width);
+                    break;
+                case 'd':
+                    appendPadded(out, (int) (date % 100), width);
+                    break;
+                case 'H':
+                    appendPadded(out, millisOfDay / 3_600_000, width);
+                    break;
+                case 'm':
+                    appendPadded(out, millisOfDay / 60_000 % 60, width);
+                    break;
+                case 's':
+                    appendPadded(out, millisOfDay / 1000 % 60, width);
+                    break;
+                default:
+                    int millis = millisOfDay % 1000;
+                    appendPadded(out, width == 6 ? millis * 1000 : millis, width);
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a non-negative value with at least {@code width} digits.
+     */
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Groups epoch-millisecond timestamps into hour, day or week buckets of a {@link TimeZone}
+ * without going through strings or boxed keys.
+ *
+ * <p>Buckets follow local wall-clock time: a day bucket runs from local midnight to the next local
+ * midnight, so it is 23 or 25 hours long on daylight-saving transition days, and a week bucket
+ * begins at local midnight of the configured first day of the week. Hour buckets are consecutive
+ * elapsed hours aligned to the local hour, so the repeated hour of a fall-back transition yields
+ * two buckets.</p>
+ *
+ * <p>Offsets come from the zone itself, or from a {@link ZoneOffsetTable} when one is supplied, which
+ * makes unsorted input over a known range cheaper to count.</p>
+ *
+ * <p>Instances are immutable and thread-safe.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * TimeBucketer byDay = new TimeBucketer(TimeBucketer.Granularity.DAY);
+ *
+ * // Sparse: only the days that have events, in ascending order.
+ * TimeHistogram histogram = byDay.histogram(eventMillis);
+ *
+ * // Dense: one slot per day for the last 7 days, including empty days.
+ * long[] days = byDay.bucketStarts(now - TimeUnit.DAYS.toMillis(6), 7);
+ * int[] lastWeek = byDay.count(eventMillis, days[0], 7);
+ * }</pre>
+ * </p>
+ */
+public final class TimeBucketer {
+
+    /**
+     * The size of a bucket.
+     */
+    public enum Granularity {
+        HOUR, DAY, WEEK
+    }
+
+    private final Granularity granularity;
+    private final ZoneOffsetTable offsets;
+    private final int firstDayOfWeek;
+
+    /**
+     * Creates a bucketer for the default time zone and the default locale's first day of week.
+     *
+     * @param granularity The bucket size.
+     */
+    public TimeBucketer(Granularity granularity) {
+        this(granularity, TimeZone.getDefault());
+    }
+
+    /**
+     * Creates a bucketer for the given time zone and the default locale's first day of week.
+     *
+     * @param granularity The bucket size.
+     * @param zone        The zone whose local time defines the buckets.
+     */
+    public TimeBucketer(Granularity granularity, TimeZone zone) {
+        this(granularity, zone, Calendar.getInstance(Locale.getDefault()).getFirstDayOfWeek());
+    }
+
+    /**
+     * Creates a bucketer.
+     *
+     * @param granularity    The bucket size.
+     * @param zone           The zone whose local time defines the buckets.
+     * @param firstDayOfWeek The day week buckets start on, {@link Calendar#SUNDAY} to
+     *                       {@link Calendar#SATURDAY}. Ignored for other granularities.
+     * @throws IllegalArgumentException If an argument is null or the day is out of range.
+     */
+    public TimeBucketer(Granularity granularity, TimeZone zone, int firstDayOfWeek) {
+        // An empty table simply defers every lookup to the zone.
+        this(granularity, zone != null ? ZoneOffsetTable.of(zone, 0, 0) : null, firstDayOfWeek);
+    }
+
+    /**
+     * Creates a bucketer that reads offsets from a precomputed table.
+     *
+     * @param granularity    The bucket size.
+     * @param offsets        The offsets of the zone whose local time defines the buckets.
+     * @param firstDayOfWeek The day week buckets start on, {@link Calendar#SUNDAY} to
+     *                       {@link Calendar#SATURDAY}. Ignored for other granularities.
+     * @throws IllegalArgumentException If an argument is null or the day is out of range.
+     */
+    public TimeBucketer(Granularity granularity, ZoneOffsetTable offsets, int firstDayOfWeek) {
+        if (granularity == null || offsets == null) {
+            throw new IllegalArgumentException("Granularity and time zone must not be null");
+        }
+        if (firstDayOfWeek < Calendar.SUNDAY || firstDayOfWeek > Calendar.SATURDAY) {
+            throw new IllegalArgumentException("Invalid first day of week: " + firstDayOfWeek);
+        }
+        this.granularity = granularity;
+        this.offsets = offsets;
+        this.firstDayOfWeek = firstDayOfWeek;
+    }
+
+    /**
+     * Returns the bucket size.
+     *
+     * @return The granularity.
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Returns the zone whose local time defines the buckets.
+     *
+     * @return A copy of the time zone.
+     */
+    public TimeZone getTimeZone() {
+        return offsets.getTimeZone();
+    }
+
+    /**
+     * Returns the day week buckets start on.
+     *
+     * @return A {@link Calendar} day-of-week constant.
+     */
+    public int getFirstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * Returns the start of the bucket containing the given instant.
+     *
+     * @param epochMillis The instant.
+     * @return The bucket start in epoch milliseconds.
+     */
+    public long bucketStart(long epochMillis) {
+        Bucket bucket = new Bucket();
+        locate(epochMillis, bucket);
+        return bucket.start;
+    }
+
+    /**
+     * Returns the starts of {@code bucketCount} consecutive buckets, beginning with the bucket that
+     * contains {@code fromMillis}.
+     *
+     * @param fromMillis  An instant in the first bucket.
+     * @param bucketCount The number of buckets.
+     * @return The bucket starts in ascending order.
+     */
+    public long[] bucketStarts(long fromMillis, int bucketCount) {
+        if (bucketCount < 0) {
+            throw new IllegalArgumentException("Bucket count must not be negative: " + bucketCount);
+        }
+        long[] starts = new long[bucketCount];
+        Bucket bucket = new Bucket();
+        long instant = fromMillis;
+        for (int i = 0; i < bucketCount; i++) {
+            locate(instant, bucket);
+            starts[i] = bucket.start;
+            instant = bucket.end;
+        }
+        return starts;
+    }
+
+    /**
+     * Counts the events of each non-empty bucket.
+     *
+     * <p>The input is copied and sorted, then counted in one pass; the time zone is only consulted
+     * once per bucket, not once per event.</p>
+     *
+     * @param epochMillis The event timestamps, in any order. Not modified.
+     * @return The non-empty buckets in ascending order with their counts.
+     */
+    public TimeHistogram histogram(long[] epochMillis) {
+        if (epochMillis == null) {
+            throw new IllegalArgumentException("Timestamps must not be null");
+        }
+
+        long[] sorted = Arrays.copyOf(epochMillis, epochMillis.length);
+        Arrays.sort(sorted);
+
+        // Worst case every event has its own bucket; sized to the input and trimmed by the histogram.
+        long[] starts = new long[sorted.length];
+        int[] counts = new int[sorted.length];
+        int size = 0;
+
+        Bucket bucket = new Bucket();
+        bucket.end = Long.MIN_VALUE;
+        for (long instant : sorted) {
+            if (instant >= bucket.end) {
+                locate(instant, bucket);
+                starts[size] = bucket.start;
+                size++;
+            }
+            counts[size - 1]++;
+        }
+        return new TimeHistogram(starts, counts, size);
+    }
+
+    /**
+     * Counts events into {@code bucketCount} consecutive buckets, beginning with the bucket that
+     * contains {@code fromMillis}. Events outside that range are ignored.
+     *
+     * <p>The input does not need to be sorted, but runs of events in the same bucket are resolved
+     * without consulting the time zone.</p>
+     *
+     * @param epochMillis The event timestamps, in any order.
+     * @param fromMillis  An instant in the first bucket.
+     * @param bucketCount The number of buckets.
+     * @return The count per bucket, aligned with {@link #bucketStarts(long, int)}.
+     */
+    public int[] count(long[] epochMillis, long fromMillis, int bucketCount) {
+        if (epochMillis == null) {
+            throw new IllegalArgumentException("Timestamps must not be null");
+        }
+        if (bucketCount < 0) {
+            throw new IllegalArgumentException("Bucket count must not be negative: " + bucketCount);
+        }
+
+        int[] counts = new int[bucketCount];
+        Bucket bucket = new Bucket();
+        locate(fromMillis, bucket);
+        long firstOrdinal = bucket.ordinal;
+
+        bucket.end = Long.MIN_VALUE;
+        long index = -1;
+        for (long instant : epochMillis) {
+            if (instant < bucket.start || instant >= bucket.end) {
+                locate(instant, bucket);
+                index = bucket.ordinal - firstOrdinal;
+            }
+            if (index >= 0 && index < bucketCount) {
+                counts[(int) index]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Resolves the bucket containing {@code instant} into {@code bucket}.
+     */
+    private void locate(long instant, Bucket bucket) {
+        if (granularity == Granularity.HOUR) {
+            long local = offsets.toLocalMillis(instant);
+            long start = instant - CivilTime.floorMod(local, CivilTime.MILLIS_PER_HOUR);
+            bucket.start = start;
+            bucket.end = start + CivilTime.MILLIS_PER_HOUR;
+            // Rounded so zones with half-hour offsets still number consecutive hours consecutively.
+            bucket.ordinal = CivilTime.floorDiv(start + CivilTime.MILLIS_PER_HOUR / 2, CivilTime.MILLIS_PER_HOUR);
+            return;
+        }
+
+        long epochDay = CivilTime.floorDiv(offsets.toLocalMillis(instant), CivilTime.MILLIS_PER_DAY);
+        long days = 1;
+        if (granularity == Granularity.WEEK) {
+            epochDay -= CivilTime.floorMod(CivilTime.dayOfWeek(epochDay) - firstDayOfWeek, 7);
+            days = 7;
+        }
+        bucket.start = offsets.toUtcMillis(epochDay * CivilTime.MILLIS_PER_DAY);
+        bucket.end = offsets.toUtcMillis((epochDay + days) * CivilTime.MILLIS_PER_DAY);
+        // Week starts are all congruent modulo 7, so this division is exact.
+        bucket.ordinal = CivilTime.floorDiv(epochDay, days);
+    }
+
+    /**
+     * Mutable scratch holder for one bucket, so resolving a bucket allocates nothing.
+     */
+    private static final class Bucket {
+        long start;
+        long end;
+        long ordinal;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.Arrays;
+
+/**
+ * Event counts per time bucket, as produced by {@link TimeBucketer#histogram(long[])}.
+ *
+ * <p>Only buckets that hold at least one event are present. Bucket starts are epoch milliseconds
+ * in ascending order, and {@code getCount(i)} is the number of events in the bucket that begins
+ * at {@code getBucketStart(i)}.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * TimeHistogram perDay = new TimeBucketer(TimeBucketer.Granularity.DAY).histogram(eventMillis);
+ * for (int i = 0; i < perDay.size(); i++) {
+ *     upload(perDay.getBucketStart(i), perDay.getCount(i));
+ * }
+ * }</pre>
+ * </p>
+ */
+public final class TimeHistogram {
+
+    private final long[] bucketStarts;
+    private final int[] counts;
+    private final int size;
+
+    /**
+     * @param bucketStarts The bucket starts in ascending order; only the first {@code size} are used.
+     * @param counts       The count per bucket; only the first {@code size} are used.
+     * @param size         The number of buckets.
+     */
+    TimeHistogram(long[] bucketStarts, int[] counts, int size) {
+        this.bucketStarts = bucketStarts;
+        this.counts = counts;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of non-empty buckets.
+     *
+     * @return The bucket count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the start of the bucket at the given position.
+     *
+     * @param index The position, {@code 0 <= index < size()}.
+     * @return The bucket start in epoch milliseconds.
+     */
+    public long getBucketStart(int index) {
+        checkIndex(index);
+        return bucketStarts[index];
+    }
+
+    /**
+     * Returns the number of events in the bucket at the given position.
+     *
+     * @param index The position, {@code 0 <= index < size()}.
+     * @return The event count, always at least 1.
+     */
+    public int getCount(int index) {
+        checkIndex(index);
+        return counts[index];
+    }
+
+    /**
+     * Returns the bucket starts in ascending order.
+     *
+     * @return A copy of the bucket starts.
+     */
+    public long[] getBucketStarts() {
+        return Arrays.copyOf(bucketStarts, size);
+    }
+
+    /**
+     * Returns the count of each bucket, aligned with {@link #getBucketStarts()}.
+     *
+     * @return A copy of the counts.
+     */
+    public int[] getCounts() {
+        return Arrays.copyOf(counts, size);
+    }
+
+    /**
+     * Returns the number of events over all buckets.
+     *
+     * @return The total count.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+}
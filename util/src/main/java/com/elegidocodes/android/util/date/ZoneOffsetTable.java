@@ -0,0 +1,254 @@
+package com.elegidocodes.android.util.date;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * A precomputed table of the UTC offset transitions of a {@link TimeZone} over a range of instants.
+ *
+ * <p>{@link TimeZone#getOffset(long)} runs a calendar computation on every call. Within the table's
+ * range an offset becomes a binary search over the transitions, and consecutive lookups that stay
+ * between the same two transitions (the common case for sorted or clustered input) skip even that.
+ * Outside the range the table falls back to the zone itself, so results are always correct.</p>
+ *
+ * <p>The table is built by sampling the zone every {@link #SAMPLE_STEP_MILLIS} and bisecting each
+ * change down to the millisecond. A pair of transitions closer together than the sample step would
+ * be missed; no zone has had one in modern tzdata. A range longer than {@link #MAX_SPAN_MILLIS} is
+ * cut to that length from its start, and the rest is answered by the zone.</p>
+ *
+ * <p>Instances are immutable apart from the lookup hint and are thread-safe.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * ZoneOffsetTable offsets = ZoneOffsetTable.of(TimeZone.getDefault(), minMillis, maxMillis + 1);
+ * for (int i = 0; i < events.length; i++) {
+ *     localMillis[i] = offsets.toLocalMillis(events[i]);
+ * }
+ * }</pre>
+ * </p>
+ */
+public final class ZoneOffsetTable {
+
+    /**
+     * Spacing of the samples taken while building a table.
+     */
+    public static final long SAMPLE_STEP_MILLIS = 6 * 60 * 60 * 1000L;
+
+    /**
+     * Longest range a table covers, about two centuries. Keeps the build to a few hundred thousand
+     * samples when the range comes from outliers such as {@link Long#MAX_VALUE}.
+     */
+    public static final long MAX_SPAN_MILLIS = 200 * 365 * 24 * 60 * 60 * 1000L;
+
+    private final TimeZone zone;
+    private final long fromMillis;
+    private final long toMillis;
+    private final int rawOffset;
+
+    /**
+     * {@code transitions[i]} is the first instant at which {@code offsets[i]} applies. The first
+     * entry is {@code fromMillis}.
+     */
+    private final long[] transitions;
+    private final int[] offsets;
+
+    /**
+     * Index of the interval that answered the last lookup. Racy but harmless: every value written
+     * is a valid index, and it is checked before it is trusted.
+     */
+    private int hint;
+
+    private ZoneOffsetTable(TimeZone zone, long fromMillis, long toMillis, long[] transitions, int[] offsets) {
+        this.zone = zone;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.rawOffset = zone.getRawOffset();
+        this.transitions = transitions;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Builds a table covering {@code [fromMillis, toMillis)}, or its first {@link #MAX_SPAN_MILLIS}
+     * if the range is longer.
+     *
+     * @param zone       The time zone.
+     * @param fromMillis The first covered instant, in epoch milliseconds.
+     * @param toMillis   The first instant after the covered range.
+     * @return The table.
+     * @throws IllegalArgumentException If the zone is null or the range is reversed.
+     */
+    public static ZoneOffsetTable of(TimeZone zone, long fromMillis, long toMillis) {
+        if (zone == null) {
+            throw new IllegalArgumentException("Time zone must not be null");
+        }
+        if (toMillis < fromMillis) {
+            throw new IllegalArgumentException("Range end " + toMillis + " is before its start " + fromMillis);
+        }
+        if (toMillis - fromMillis > MAX_SPAN_MILLIS || toMillis - fromMillis < 0) {
+            // The second test catches spans that overflow a long.
+            toMillis = fromMillis + MAX_SPAN_MILLIS;
+        }
+        TimeZone copy = (TimeZone) zone.clone();
+        if (toMillis == fromMillis) {
+            return new ZoneOffsetTable(copy, fromMillis, toMillis, new long[0], new int[0]);
+        }
+
+        long[] transitions = new long[8];
+        int[] offsets = new int[8];
+        int size = 0;
+
+        long previous = fromMillis;
+        int previousOffset = copy.getOffset(fromMillis);
+        transitions[size] = fromMillis;
+        offsets[size] = previousOffset;
+        size++;
+
+        while (previous < toMillis - 1) {
+            long sample = toMillis - previous > SAMPLE_STEP_MILLIS ? previous + SAMPLE_STEP_MILLIS : toMillis - 1;
+            int offset = copy.getOffset(sample);
+            if (offset != previousOffset) {
+                // Bisect to the first millisecond that has the new offset.
+                long low = previous;
+                long high = sample;
+                while (high - low > 1) {
+                    long middle = low + (high - low) / 2;
+                    if (copy.getOffset(middle) == previousOffset) {
+                        low = middle;
+                    } else {
+                        high = middle;
+                    }
+                }
+                if (size == transitions.length) {
+                    transitions = Arrays.copyOf(transitions, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                transitions[size] = high;
+                offsets[size] = offset;
+                size++;
+                previousOffset = offset;
+            }
+            previous = sample;
+        }
+
+        return new ZoneOffsetTable(copy, fromMillis, toMillis,
+                Arrays.copyOf(transitions, size), Arrays.copyOf(offsets, size));
+    }
+
+    /**
+     * Builds a table for the default time zone covering {@code [fromMillis, toMillis)}.
+     *
+     * @param fromMillis The first covered instant, in epoch milliseconds.
+     * @param toMillis   The first instant after the covered range.
+     * @return The table.
+     */
+    public static ZoneOffsetTable forDefault(long fromMillis, long toMillis) {
+        return of(TimeZone.getDefault(), fromMillis, toMillis);
+    }
+
+    /**
+     * Builds a table covering every value of {@code epochMillis}.
+     *
+     * @param zone        The time zone.
+     * @param epochMillis The instants that will be looked up.
+     * @return The table.
+     */
+    public static ZoneOffsetTable covering(TimeZone zone, long[] epochMillis) {
+        if (epochMillis == null || epochMillis.length == 0) {
+            return of(zone, 0, 0);
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long value : epochMillis) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return of(zone, min, max == Long.MAX_VALUE ? max : max + 1);
+    }
+
+    /**
+     * Returns the zone this table was built from.
+     *
+     * @return A copy of the time zone.
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * Returns the first instant covered by the table.
+     *
+     * @return Epoch milliseconds.
+     */
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    /**
+     * Returns the first instant after the range covered by the table. This is earlier than the
+     * requested end if the range was longer than {@link #MAX_SPAN_MILLIS}.
+     *
+     * @return Epoch milliseconds.
+     */
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    /**
+     * Returns the number of offset changes inside the covered range.
+     *
+     * @return The transition count.
+     */
+    public int getTransitionCount() {
+        return Math.max(transitions.length - 1, 0);
+    }
+
+    /**
+     * Returns the offset from UTC at the given instant, as {@link TimeZone#getOffset(long)} would.
+     *
+     * @param epochMillis The instant.
+     * @return The offset in milliseconds to add to UTC to get local time.
+     */
+    public int getOffset(long epochMillis) {
+        if (epochMillis < fromMillis || epochMillis >= toMillis) {
+            return zone.getOffset(epochMillis);
+        }
+
+        int index = hint;
+        if (transitions[index] <= epochMillis
+                && (index + 1 == transitions.length || epochMillis < transitions[index + 1])) {
+            return offsets[index];
+        }
+
+        index = Arrays.binarySearch(transitions, epochMillis);
+        if (index < 0) {
+            // Not an exact transition: take the interval that starts before the instant.
+            index = -index - 2;
+        }
+        hint = index;
+        return offsets[index];
+    }
+
+    /**
+     * Converts an instant to local wall-clock milliseconds.
+     *
+     * @param epochMillis The instant.
+     * @return {@code epochMillis} plus the offset in effect at that instant.
+     */
+    public long toLocalMillis(long epochMillis) {
+        return epochMillis + getOffset(epochMillis);
+    }
+
+    /**
+     * Converts local wall-clock milliseconds to an instant, resolving gaps and overlaps like
+     * {@link java.util.Calendar} does.
+     *
+     * @param localMillis Milliseconds since 1970-01-01T00:00 local time.
+     * @return The instant in epoch milliseconds.
+     */
+    public long toUtcMillis(long localMillis) {
+        int offset = getOffset(localMillis - rawOffset);
+        int adjusted = getOffset(localMillis - offset);
+        return localMillis - adjusted;
+    }
+
+}
@@ -0,0 +1,434 @@
+package com.elegidocodes.android.util.file;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * A checksum or digest fed from the buffer of a copy as the data streams through, so integrity
+ * checks and dedup keys need no second read of the file.
+ *
+ * <p>Sinks can be passed to {@link FileUtil#copyUriToFile(android.content.Context, android.net.Uri, java.io.File, ChecksumSink...)}
+ * and {@link FileUtil#uriToFile(android.content.Context, android.net.Uri, String, String, ChecksumSink...)}.
+ * For archives, name the {@link Algorithm}s in {@link ZipOptions.Builder#setChecksums(Algorithm...)}
+ * and read the per-entry values from the {@link ZipReport}.</p>
+ *
+ * <p>A sink is not thread-safe; use one per copy.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * ChecksumSink sha256 = ChecksumSink.sha256();
+ * ChecksumSink xxHash = ChecksumSink.xxHash64();
+ * if (FileUtil.copyUriToFile(context, uri, target, sha256, xxHash)) {
+ *     Log.i("IMPORT", "SHA-256 " + sha256.getHexValue() + ", XXH64 " + xxHash.getHexValue());
+ * }
+ * }</pre>
+ * </p>
+ */
+public abstract class ChecksumSink {
+
+    /**
+     * The checksums that can be named up front, for example in {@link ZipOptions}.
+     */
+    public enum Algorithm {
+
+        /**
+         * CRC-32, as used by ZIP and gzip. 4 bytes.
+         */
+        CRC32,
+
+        /**
+         * Adler-32, as used by zlib. Faster than CRC-32 but weaker on short inputs. 4 bytes.
+         */
+        ADLER32,
+
+        /**
+         * SHA-256. Cryptographic, and the slowest by far. 32 bytes.
+         */
+        SHA_256,
+
+        /**
+         * xxHash64 with seed 0. Not cryptographic, but fast, with far fewer collisions than the
+         * 32-bit checksums. 8 bytes.
+         */
+        XXHASH64;
+
+        /**
+         * Returns a new, empty sink for this algorithm.
+         */
+        public ChecksumSink newSink() {
+            switch (this) {
+                case CRC32:
+                    return crc32();
+                case ADLER32:
+                    return adler32();
+                case SHA_256:
+                    return sha256();
+                default:
+                    return xxHash64();
+            }
+        }
+
+    }
+
+    /**
+     * Scratch space for copying out of direct buffers, allocated on first use.
+     */
+    private byte[] scratch;
+
+    /**
+     * Feeds {@code length} bytes of {@code data} starting at {@code offset}.
+     */
+    public abstract void update(byte[] data, int offset, int length);
+
+    /**
+     * Feeds the remaining bytes of {@code buffer}, leaving its position at its limit.
+     */
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (scratch == null) {
+            scratch = new byte[8 * 1024];
+        }
+        while (buffer.hasRemaining()) {
+            int length = Math.min(scratch.length, buffer.remaining());
+            buffer.get(scratch, 0, length);
+            update(scratch, 0, length);
+        }
+    }
+
+    /**
+     * Returns the checksum of everything fed since creation or the last {@link #reset()}, big-endian.
+     * Reading the value does not end the sink; more data may follow.
+     */
+    public abstract byte[] getValue();
+
+    /**
+     * Returns {@link #getValue()} as lowercase hexadecimal.
+     */
+    public String getHexValue() {
+        return toHex(getValue());
+    }
+
+    /**
+     * Returns the sink to its initial state.
+     */
+    public abstract void reset();
+
+    /**
+     * Returns the algorithm name, such as "CRC32" or "SHA-256".
+     */
+    public abstract String getAlgorithm();
+
+    @Override
+    public String toString() {
+        return getAlgorithm() + ":" + getHexValue();
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Returns a CRC-32 sink.
+     */
+    public static ChecksumSink crc32() {
+        return of("CRC32", new CRC32());
+    }
+
+    /**
+     * Returns an Adler-32 sink.
+     */
+    public static ChecksumSink adler32() {
+        return of("Adler32", new Adler32());
+    }
+
+    /**
+     * Returns a SHA-256 sink.
+     */
+    public static ChecksumSink sha256() {
+        try {
+            return of(MessageDigest.getInstance("SHA-256"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns an xxHash64 sink with seed 0.
+     */
+    public static ChecksumSink xxHash64() {
+        return new XxHash64(0);
+    }
+
+    /**
+     * Returns an xxHash64 sink with the given seed.
+     */
+    public static ChecksumSink xxHash64(long seed) {
+        return new XxHash64(seed);
+    }
+
+    /**
+     * Wraps a 32-bit {@link Checksum}, such as {@link CRC32}.
+     *
+     * @param algorithm The name reported by {@link #getAlgorithm()}.
+     * @param checksum  The checksum to feed.
+     * @throws IllegalArgumentException If {@code checksum} is {@code null}.
+     */
+    public static ChecksumSink of(String algorithm, Checksum checksum) {
+        if (checksum == null) {
+            throw new IllegalArgumentException("Checksum cannot be null");
+        }
+        return new ChecksumAdapter(algorithm, checksum);
+    }
+
+    /**
+     * Wraps a {@link MessageDigest}. Reading the value clones the digest, so digests that cannot be
+     * cloned are reset by {@link #getValue()}.
+     *
+     * @param digest The digest to feed.
+     * @throws IllegalArgumentException If {@code digest} is {@code null}.
+     */
+    public static ChecksumSink of(MessageDigest digest) {
+        if (digest == null) {
+            throw new IllegalArgumentException("Digest cannot be null");
+        }
+        return new DigestAdapter(digest);
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] text = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            text[i * 2] = digits[(bytes[i] >> 4) & 0x0F];
+            text[i * 2 + 1] = digits[bytes[i] & 0x0F];
+        }
+        return new String(text);
+    }
+
+    private static final class ChecksumAdapter extends ChecksumSink {
+
+        private final String algorithm;
+        private final Checksum checksum;
+
+        ChecksumAdapter(String algorithm, Checksum checksum) {
+            this.algorithm = algorithm;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            checksum.update(data, offset, length);
+        }
+
+        @Override
+        public byte[] getValue() {
+            int value = (int) checksum.getValue();
+            return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+
+        @Override
+        public void reset() {
+            checksum.reset();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+    }
+
+    private static final class DigestAdapter extends ChecksumSink {
+
+        private final MessageDigest digest;
+
+        DigestAdapter(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            digest.update(data, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer); // Handles direct buffers without an extra copy loop
+        }
+
+        @Override
+        public byte[] getValue() {
+            try {
+                return ((MessageDigest) digest.clone()).digest();
+            } catch (CloneNotSupportedException e) {
+                return digest.digest();
+            }
+        }
+
+        @Override
+        public void reset() {
+            digest.reset();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return digest.getAlgorithm();
+        }
+
+    }
+
+    /**
+     * Streaming xxHash64, following the reference implementation.
+     */
+    private static final class XxHash64 extends ChecksumSink {
+
+        private static final long PRIME1 = 0x9E3779B185EBCA87L;
+        private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long PRIME3 = 0x165667B19E3779F9L;
+        private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+        private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+        private final long seed;
+        private final byte[] pending = new byte[32];
+        private int pendingLength;
+        private long totalLength;
+        private long v1;
+        private long v2;
+        private long v3;
+        private long v4;
+
+        XxHash64(long seed) {
+            this.seed = seed;
+            reset();
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            totalLength += length;
+            int end = offset + length;
+
+            if (pendingLength > 0) {
+                int take = Math.min(32 - pendingLength, length);
+                System.arraycopy(data, offset, pending, pendingLength, take);
+                pendingLength += take;
+                offset += take;
+                if (pendingLength < 32) {
+                    return;
+                }
+                consumeStripe(pending, 0);
+                pendingLength = 0;
+            }
+
+            while (end - offset >= 32) {
+                consumeStripe(data, offset);
+                offset += 32;
+            }
+
+            pendingLength = end - offset;
+            System.arraycopy(data, offset, pending, 0, pendingLength);
+        }
+
+        private void consumeStripe(byte[] data, int offset) {
+            v1 = round(v1, readLong(data, offset));
+            v2 = round(v2, readLong(data, offset + 8));
+            v3 = round(v3, readLong(data, offset + 16));
+            v4 = round(v4, readLong(data, offset + 24));
+        }
+
+        @Override
+        public byte[] getValue() {
+            long hash;
+            if (totalLength >= 32) {
+                hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                        + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                hash = mergeRound(hash, v1);
+                hash = mergeRound(hash, v2);
+                hash = mergeRound(hash, v3);
+                hash = mergeRound(hash, v4);
+            } else {
+                hash = seed + PRIME5;
+            }
+            hash += totalLength;
+
+            int offset = 0;
+            while (pendingLength - offset >= 8) {
+                hash ^= round(0, readLong(pending, offset));
+                hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+                offset += 8;
+            }
+            if (pendingLength - offset >= 4) {
+                hash ^= (readInt(pending, offset) & 0xFFFFFFFFL) * PRIME1;
+                hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+                offset += 4;
+            }
+            while (offset < pendingLength) {
+                hash ^= (pending[offset] & 0xFFL) * PRIME5;
+                hash = Long.rotateLeft(hash, 11) * PRIME1;
+                offset++;
+            }
+
+            hash ^= hash >>> 33;
+            hash *= PRIME2;
+            hash ^= hash >>> 29;
+            hash *= PRIME3;
+            hash ^= hash >>> 32;
+
+            byte[] value = new byte[8];
+            for (int i = 0; i < 8; i++) {
+                value[i] = (byte) (hash >>> (56 - 8 * i));
+            }
+            return value;
+        }
+
+        @Override
+        public void reset() {
+            v1 = seed + PRIME1 + PRIME2;
+            v2 = seed + PRIME2;
+            v3 = seed;
+            v4 = seed - PRIME1;
+            pendingLength = 0;
+            totalLength = 0;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "XXH64";
+        }
+
+        private static long round(long accumulator, long input) {
+            accumulator += input * PRIME2;
+            accumulator = Long.rotateLeft(accumulator, 31);
+            return accumulator * PRIME1;
+        }
+
+        private static long mergeRound(long hash, long value) {
+            hash ^= round(0, value);
+            return hash * PRIME1 + PRIME4;
+        }
+
+        private static long readLong(byte[] data, int offset) {
+            return (data[offset] & 0xFFL)
+                    | (data[offset + 1] & 0xFFL) << 8
+                    | (data[offset + 2] & 0xFFL) << 16
+                    | (data[offset + 3] & 0xFFL) << 24
+                    | (data[offset + 4] & 0xFFL) << 32
+                    | (data[offset + 5] & 0xFFL) << 40
+                    | (data[offset + 6] & 0xFFL) << 48
+                    | (data[offset + 7] & 0xFFL) << 56;
+        }
+
+        private static int readInt(byte[] data, int offset) {
+            return (data[offset] & 0xFF)
+                    | (data[offset + 1] & 0xFF) << 8
+                    | (data[offset + 2] & 0xFF) << 16
+                    | (data[offset + 3] & 0xFF) << 24;
+        }
+
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.elegidocodes.android.util.file;
+
+import java.util.Locale;
+
+/**
+ * Decides, per file, whether
+ * {@link FileUtil#zipFolder(android.content.Context, java.io.File, String, String, ZipOptions)} deflates
+ * an entry or stores it as is.
+ *
+ * <p>JPEG, PNG, PDF, video and archive files are already compressed; deflating them again costs CPU
+ * and battery for a gain of a percent or less. Stored entries are copied straight into the archive,
+ * with their CRC-32 computed in a first pass so the entry header is complete.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * ZipOptions options = new ZipOptions.Builder()
+ *         .setCompressionPolicy(CompressionPolicy.ADAPTIVE)
+ *         .build();
+ * ZipReport report = FileUtil.zipFolder(context, parent, "Photos", "ZIP", options);
+ * Log.i("ZIP", "Stored " + report.getStoredEntryCount() + " entries without deflating");
+ * }</pre>
+ * </p>
+ */
+public enum CompressionPolicy {
+
+    /**
+     * Deflates every entry.
+     */
+    DEFLATE_ALL,
+
+    /**
+     * Stores entries whose MIME type, as reported by {@link MimeTypeUtil}, is an already-compressed
+     * format, and deflates the rest.
+     */
+    STORE_COMPRESSED_TYPES,
+
+    /**
+     * Like {@link #STORE_COMPRESSED_TYPES}, and also stores entries of unknown or other types whose
+     * first block looks incompressible: a byte entropy of at least
+     * {@link #INCOMPRESSIBLE_BITS_PER_BYTE} bits per byte.
+     */
+    ADAPTIVE;
+
+    /**
+     * Entropy above which a probed block is treated as incompressible. Text sits around 4.5 to 5.5
+     * bits per byte; deflated, encrypted and media data come within a few hundredths of 8.
+     */
+    public static final double INCOMPRESSIBLE_BITS_PER_BYTE = 7.5;
+
+    /**
+     * Number of leading bytes examined by {@link #ADAPTIVE}.
+     */
+    static final int PROBE_SIZE = 16 * 1024;
+
+    /**
+     * Below this many bytes the probe says nothing useful, so the file is deflated.
+     */
+    private static final int MIN_PROBE_SIZE = 1024;
+
+    /**
+     * Returns whether this policy needs a look at the first bytes of a file of the given type.
+     */
+    boolean needsProbe(String mimeType) {
+        return this == ADAPTIVE && !isCompressedType(mimeType);
+    }
+
+    /**
+     * Returns whether a file should be stored rather than deflated.
+     *
+     * @param mimeType The file's MIME type, or {@code null} if unknown.
+     * @param head     The first bytes of the file, or {@code null} if {@link #needsProbe(String)} was false.
+     * @param length   The number of valid bytes in {@code head}.
+     */
+    boolean shouldStore(String mimeType, byte[] head, int length) {
+        switch (this) {
+            case STORE_COMPRESSED_TYPES:
+                return isCompressedType(mimeType);
+            case ADAPTIVE:
+                return isCompressedType(mimeType)
+                        || (head != null && length >= MIN_PROBE_SIZE
+                        && bitsPerByte(head, length) >= INCOMPRESSIBLE_BITS_PER_BYTE);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether a MIME type denotes a format whose content is already compressed.
+     *
+     * @param mimeType The MIME type, or {@code null}.
+     * @return {@code true} for compressed images, audio, video, PDF and archive formats.
+     */
+    public static boolean isCompressedType(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("video/")) {
+            return true;
+        }
+        if (type.startsWith("audio/")) {
+            // Only uncompressed PCM formats gain from deflate.
+            return !type.equals("audio/wav") && !type.equals("audio/x-wav") && !type.equals("audio/wave");
+        }
+        if (type.startsWith("image/")) {
+            // Uncompressed bitmaps and vector formats deflate well.
+            return !type.equals("image/bmp") && !type.equals("image/x-ms-bmp")
+                    && !type.equals("image/svg+xml") && !type.equals("image/tiff");
+        }
+        if (type.startsWith("application/vnd.openxmlformats-officedocument.")
+                || type.startsWith("application/vnd.oasis.opendocument.")) {
+            return true; // ZIP containers
+        }
+        switch (type) {
+            case "application/pdf":
+            case "application/zip":
+            case "application/gzip":
+            case "application/x-gzip":
+            case "application/x-bzip2":
+            case "application/x-xz":
+            case "application/x-7z-compressed":
+            case "application/x-rar-compressed":
+            case "application/vnd.rar":
+            case "application/java-archive":
+            case "application/vnd.android.package-archive":
+            case "application/epub+zip":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Computes the Shannon entropy of a block, in bits per byte.
+     */
+    static double bitsPerByte(byte[] data, int length) {
+        int[] counts = new int[256];
+        for (int i = 0; i < length; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        // H = log2(n) - (1/n) * sum(c * log2(c))
+        double sum = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                sum += count * Math.log(count);
+            }
+        }
+        return (Math.log(length) - sum / length) / Math.log(2);
+    }
+
+}
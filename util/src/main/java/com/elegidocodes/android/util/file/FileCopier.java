@@ -0,0 +1,242 @@
+package com.elegidocodes.android.util.file;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Copies content with as little copying through the Java heap as possible.
+ *
+ * <p>When both ends are files and the source size is known, the copy is handed to the kernel with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} (sendfile on Linux), so the data
+ * never enters the process. Everything else, such as pipes from content providers that stream
+ * generated data, goes through a pooled direct {@link ByteBuffer} sized for the content: small for
+ * small files, up to {@link #MAX_BUFFER_SIZE} for large ones.</p>
+ */
+final class FileCopier {
+
+    static final int MIN_BUFFER_SIZE = 8 * 1024;
+    static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Buffer used when the size is unknown.
+     */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Largest single transferTo() call. Keeps each system call short, and stays well below the
+     * 2 GB that sendfile accepts at once.
+     */
+    private static final long MAX_TRANSFER = 16L * 1024 * 1024;
+
+    /**
+     * Buffers kept per size class. More concurrent copies than this allocate fresh buffers.
+     */
+    private static final int MAX_POOLED_PER_SIZE = 4;
+
+    private static final ChecksumSink[] NO_SINKS = new ChecksumSink[0];
+
+    /**
+     * One pool per power-of-two size from {@link #MIN_BUFFER_SIZE} to {@link #MAX_BUFFER_SIZE}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ConcurrentLinkedQueue<ByteBuffer>[] POOLS = new ConcurrentLinkedQueue[
+            Integer.numberOfTrailingZeros(MAX_BUFFER_SIZE) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE) + 1];
+
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private FileCopier() {
+    }
+
+    /**
+     * Copies the content of {@code uri} into {@code target}, replacing its content.
+     *
+     * @return The number of bytes copied.
+     */
+    static long copy(ContentResolver resolver, Uri uri, File target) throws IOException {
+        return copy(resolver, uri, target, NO_SINKS);
+    }
+
+    /**
+     * Copies the content of {@code uri} into {@code target}, replacing its content, and feeds every
+     * byte to {@code sinks} on the way.
+     *
+     * @param sinks The checksums to update, possibly none. With sinks the data has to pass through
+     *              the process, so the kernel copy is not used.
+     * @return The number of bytes copied.
+     */
+    static long copy(ContentResolver resolver, Uri uri, File target, ChecksumSink... sinks) throws IOException {
+        ParcelFileDescriptor descriptor;
+        try {
+            descriptor = resolver.openFileDescriptor(uri, "r");
+        } catch (FileNotFoundException | SecurityException e) {
+            // Some providers only serve streams (virtual or generated documents).
+            descriptor = null;
+        }
+
+        if (descriptor == null) {
+            try (InputStream in = resolver.openInputStream(uri);
+                 FileOutputStream out = new FileOutputStream(target)) {
+                if (in == null) {
+                    throw new FileNotFoundException("No content for " + uri);
+                }
+                return copy(in, out, -1, sinks);
+            }
+        }
+
+        // The stream owns the descriptor and closes it.
+        try (FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+             FileOutputStream out = new FileOutputStream(target)) {
+            return copy(in, out, descriptor.getStatSize(), sinks);
+        }
+    }
+
+    /**
+     * Copies {@code in} to {@code out} until the end of {@code in}. Neither stream is closed.
+     *
+     * @param sizeHint The number of bytes expected, or -1 if unknown. With file streams on both
+     *                 ends and a known size, the copy is done by the kernel.
+     * @return The number of bytes copied.
+     */
+    static long copy(InputStream in, OutputStream out, long sizeHint) throws IOException {
+        return copy(in, out, sizeHint, NO_SINKS);
+    }
+
+    /**
+     * Like {@link #copy(InputStream, OutputStream, long)}, also feeding every byte to each of
+     * {@code sinks}.
+     */
+    static long copy(InputStream in, OutputStream out, long sizeHint, ChecksumSink... sinks) throws IOException {
+        OperationMonitor.current().expect(sizeHint);
+        if (sinks.length == 0 && in instanceof FileInputStream && out instanceof FileOutputStream) {
+            FileChannel source = ((FileInputStream) in).getChannel();
+            FileChannel target = ((FileOutputStream) out).getChannel();
+            long copied = 0;
+            if (sizeHint >= 0) {
+                copied = transfer(source, target, sizeHint);
+            }
+            // Picks up whatever the kernel copy did not: a file that grew, or a pipe.
+            return copied + copyBuffered(source, target, sizeHint < 0 ? -1 : sizeHint - copied, NO_SINKS);
+        }
+        return copyBuffered(in instanceof FileInputStream ? ((FileInputStream) in).getChannel() : Channels.newChannel(in),
+                out instanceof FileOutputStream ? ((FileOutputStream) out).getChannel() : Channels.newChannel(out),
+                sizeHint, sinks);
+    }
+
+    /**
+     * Copies up to {@code count} bytes from the current position of {@code source} with
+     * transferTo(), stopping early if the source turns out to be shorter.
+     */
+    private static long transfer(FileChannel source, FileChannel target, long count) throws IOException {
+        long start = source.position();
+        long position = start;
+        long end = start + count;
+        OperationMonitor monitor = OperationMonitor.current();
+        while (position < end) {
+            long transferred = source.transferTo(position, Math.min(end - position, MAX_TRANSFER), target);
+            if (transferred <= 0) {
+                break; // End of file, or a channel that does not support it
+            }
+            position += transferred;
+            monitor.advance(transferred);
+        }
+        // transferTo() does not move the source position.
+        source.position(position);
+        return position - start;
+    }
+
+    /**
+     * Copies until the end of {@code source} through a pooled direct buffer.
+     *
+     * @param sizeHint The number of bytes expected, or -1 if unknown, used to size the buffer.
+     * @param sinks    The checksums to update with the bytes read.
+     */
+    private static long copyBuffered(ReadableByteChannel source, WritableByteChannel target, long sizeHint,
+                                     ChecksumSink[] sinks) throws IOException {
+        ByteBuffer buffer = acquireBuffer(sizeHint);
+        OperationMonitor monitor = OperationMonitor.current();
+        try {
+            long copied = 0;
+            int start = 0;
+            while (source.read(buffer) >= 0 || buffer.position() > 0) {
+                if (buffer.position() > start) {
+                    // Only the bytes just read; the rest were fed before the last compact().
+                    for (ChecksumSink sink : sinks) {
+                        ByteBuffer fresh = buffer.duplicate();
+                        fresh.flip().position(start);
+                        sink.update(fresh);
+                    }
+                }
+                buffer.flip();
+                int written = target.write(buffer);
+                copied += written;
+                monitor.advance(written);
+                buffer.compact();
+                start = buffer.position();
+            }
+            return copied;
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Returns a cleared direct buffer suited to copying {@code size} bytes (-1 if unknown).
+     */
+    static ByteBuffer acquireBuffer(long size) {
+        int capacity = bufferSizeFor(size);
+        ByteBuffer buffer = POOLS[poolIndex(capacity)].poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer from {@link #acquireBuffer(long)} to the pool.
+     */
+    static void releaseBuffer(ByteBuffer buffer) {
+        ConcurrentLinkedQueue<ByteBuffer> pool = POOLS[poolIndex(buffer.capacity())];
+        // The size check races, so a pool may briefly exceed the limit; that is harmless.
+        if (pool.size() < MAX_POOLED_PER_SIZE) {
+            pool.offer(buffer);
+        }
+    }
+
+    /**
+     * Picks a power-of-two buffer size of about an eighth of the content, so small files do not pay
+     * for a large buffer and multi-GB files are copied in few system calls.
+     */
+    static int bufferSizeFor(long size) {
+        if (size < 0) {
+            return DEFAULT_BUFFER_SIZE;
+        }
+        long target = Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, size / 8));
+        int capacity = Integer.highestOneBit((int) target);
+        return capacity < target ? capacity << 1 : capacity;
+    }
+
+    private static int poolIndex(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+
+}
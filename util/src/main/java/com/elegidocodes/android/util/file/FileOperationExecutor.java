@@ -0,0 +1,584 @@
+package com.elegidocodes.android.util.file;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the blocking {@link FileUtil} operations in the background, with progress and cancellation.
+ *
+ * <p>Operations run on a bounded pool of I/O threads. Heavy operations, which stream whole files
+ * ({@code zipFolder} and {@code uriToFile}), are further limited by
+ * {@link Builder#setMaxHeavyOperations(int)}: when that many are running, further ones wait in
+ * order without holding a thread, so several large imports started together take turns instead of
+ * thrashing storage. Image operations are not limited this way.</p>
+ *
+ * <p>Progress is reported in bytes, at most once per {@link Builder#setProgressIntervalMillis(long)
+ * progress interval}, and reports are coalesced while the callback executor is busy. Cancellation is
+ * cooperative: the copy and zip loops check for it between buffers, clean up partial output and
+ * stop. Callbacks run on the main thread unless another executor is set.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * FileOperationExecutor executor = new FileOperationExecutor.Builder()
+ *         .setMaxHeavyOperations(1)
+ *         .build();
+ * FileOperationExecutor.Operation<File> task = executor.uriToFile(context, videoUri, "import_", ".mp4",
+ *         new FileOperationExecutor.Callback<File>() {
+ *             @Override
+ *             public void onProgress(long done, long total) {
+ *                 progressBar.setProgress(total > 0 ? (int) (100 * done / total) : 0);
+ *             }
+ *
+ *             @Override
+ *             public void onSuccess(File file) {
+ *                 showVideo(file);
+ *             }
+ *
+ *             @Override
+ *             public void onFailure(Exception e) {
+ *                 showError(e);
+ *             }
+ *         });
+ * cancelButton.setOnClickListener(v -> task.cancel());
+ * }</pre>
+ * </p>
+ */
+public final class FileOperationExecutor {
+
+    private static final String TAG = "FileOperationExecutor";
+
+    /**
+     * Default number of I/O threads.
+     */
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Default number of heavy operations that may run at once.
+     */
+    public static final int DEFAULT_MAX_HEAVY_OPERATIONS = 2;
+
+    /**
+     * Default minimum time between two progress reports of an operation, 100 ms.
+     */
+    public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 100;
+
+    private static final long IDLE_THREAD_SECONDS = 30;
+
+    private final ThreadPoolExecutor pool;
+    private final Executor callbackExecutor;
+    private final long progressIntervalNanos;
+    private final Semaphore heavyPermits;
+    private final ArrayDeque<Operation<?>> waitingHeavy = new ArrayDeque<>();
+    private final Set<Operation<?>> running = Collections.newSetFromMap(new ConcurrentHashMap<Operation<?>, Boolean>());
+    private volatile boolean shutDown;
+
+    private FileOperationExecutor(Builder builder) {
+        this.pool = new ThreadPoolExecutor(builder.threads, builder.threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new IoThreadFactory());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.callbackExecutor = builder.callbackExecutor != null
+                ? builder.callbackExecutor
+                : new MainThreadExecutor();
+        this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.progressIntervalMillis);
+        this.heavyPermits = new Semaphore(builder.maxHeavyOperations);
+    }
+
+    /**
+     * Copies a {@link Uri} to a temporary file in the background, as
+     * {@link FileUtil#uriToFile(Context, Uri, String, String)} does.
+     *
+     * @param context  The application context.
+     * @param uri      The {@link Uri} of the file to convert.
+     * @param prefix   The prefix for the temporary file name.
+     * @param suffix   The suffix for the temporary file name.
+     * @param callback Receives progress and the temporary file.
+     * @return A handle to cancel the operation.
+     */
+    public Operation<File> uriToFile(final Context context, final Uri uri, final String prefix, final String suffix,
+                                     Callback<File> callback) {
+        return submit(true, "uriToFile " + uri, callback, new Callable<File>() {
+            @Override
+            public File call() {
+                return FileUtil.uriToFile(context, uri, prefix, suffix);
+            }
+        });
+    }
+
+    /**
+     * Compresses a folder in the background, as
+     * {@link FileUtil#zipFolder(Context, File, String, String, ZipOptions)} does. A cancelled run
+     * leaves any previous archive untouched.
+     *
+     * @param context          The application context.
+     * @param parentFolder     The parent folder containing the folder to be zipped.
+     * @param targetFolderName The name of the folder to compress.
+     * @param outputFolderName The name of the folder where the ZIP file will be saved.
+     * @param options          The ZIP options.
+     * @param callback         Receives progress, in uncompressed bytes, and the report.
+     * @return A handle to cancel the operation.
+     */
+    public Operation<ZipReport> zipFolder(final Context context, final File parentFolder, final String targetFolderName,
+                                          final String outputFolderName, final ZipOptions options,
+                                          Callback<ZipReport> callback) {
+        return submit(true, "zipFolder " + targetFolderName, callback, new Callable<ZipReport>() {
+            @Override
+            public ZipReport call() {
+                return FileUtil.zipFolder(context, parentFolder, targetFolderName, outputFolderName, options);
+            }
+        });
+    }
+
+    /**
+     * Decodes and re-encodes an image {@link Uri} into a file in the background, as
+     * {@link FileUtil#uriToFileForImage(Context, Uri, String, String, int)} does.
+     *
+     * @param context         The application context.
+     * @param uri             The {@link Uri} of the image to convert.
+     * @param directory       The directory where the image file will be saved.
+     * @param mimeType        The MIME type of the image (e.g., "image/jpeg" or "image/png").
+     * @param compressQuality The compression quality for the image (0–100).
+     * @param callback        Receives progress, in bytes read, and the image file.
+     * @return A handle to cancel the operation.
+     */
+    public Operation<File> uriToFileForImage(final Context context, final Uri uri, final String directory,
+                                             final String mimeType, final int compressQuality,
+                                             Callback<File> callback) {
+        return submit(false, "uriToFileForImage " + uri, callback, new Callable<File>() {
+            @Override
+            public File call() {
+                return FileUtil.uriToFileForImage(context, uri, directory, mimeType, compressQuality);
+            }
+        });
+    }
+
+    /**
+     * Compresses an image file in place in the background, as
+     * {@link FileUtil#compressAndOverwriteImage(String, String, int)} does. Cancelling once the
+     * image has been decoded still leaves the original untouched; cancelling during the write has
+     * no effect.
+     *
+     * @param filePath        The absolute path of the image file to compress.
+     * @param mimeType        The MIME type of the image (e.g., "image/jpeg" or "image/png").
+     * @param compressQuality The compression quality (0–100).
+     * @param callback        Receives {@link Boolean#TRUE} on success.
+     * @return A handle to cancel the operation.
+     */
+    public Operation<Boolean> compressAndOverwriteImage(final String filePath, final String mimeType,
+                                                        final int compressQuality, Callback<Boolean> callback) {
+        return submit(false, "compressAndOverwriteImage " + filePath, callback, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return FileUtil.compressAndOverwriteImage(filePath, mimeType, compressQuality);
+            }
+        });
+    }
+
+    /**
+     * Cancels every queued and running operation and lets the threads end. Operations submitted
+     * afterwards are rejected.
+     */
+    public void shutdown() {
+        // Set first, so an operation starting now either sees it or is already in the running set.
+        shutDown = true;
+        for (Operation<?> operation : running.toArray(new Operation<?>[0])) {
+            operation.cancel();
+        }
+        Operation<?>[] waiting;
+        synchronized (waitingHeavy) {
+            waiting = waitingHeavy.toArray(new Operation<?>[0]);
+        }
+        for (Operation<?> operation : waiting) {
+            operation.cancel();
+        }
+        for (Runnable queued : pool.getQueue().toArray(new Runnable[0])) {
+            ((Operation<?>) queued).cancel();
+        }
+        pool.shutdown();
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    private <T> Operation<T> submit(boolean heavy, String name, Callback<T> callback, Callable<T> body) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback cannot be null");
+        }
+        Operation<T> operation = new Operation<>(heavy, name, callback, body);
+        if (heavy) {
+            synchronized (waitingHeavy) {
+                if (!heavyPermits.tryAcquire()) {
+                    waitingHeavy.add(operation);
+                    return operation;
+                }
+            }
+        }
+        pool.execute(operation);
+        return operation;
+    }
+
+    /**
+     * Hands the permit of a finished heavy operation to the next waiting one, if any.
+     */
+    private void releaseHeavy() {
+        Operation<?> next;
+        synchronized (waitingHeavy) {
+            next = waitingHeavy.poll();
+            if (next == null) {
+                heavyPermits.release();
+                return;
+            }
+        }
+        pool.execute(next);
+    }
+
+    /**
+     * Removes a heavy operation that has not started yet.
+     *
+     * @return {@code true} if it was waiting.
+     */
+    private boolean removeWaiting(Operation<?> operation) {
+        synchronized (waitingHeavy) {
+            return waitingHeavy.remove(operation);
+        }
+    }
+
+    /**
+     * Receives the outcome of an operation, on the callback executor.
+     *
+     * <p>Exactly one of {@link #onSuccess(Object)}, {@link #onFailure(Exception)} and
+     * {@link #onCancelled()} is called, after any progress reports.</p>
+     *
+     * @param <T> The result type.
+     */
+    public abstract static class Callback<T> {
+
+        /**
+         * Called with the bytes processed so far, at most once per progress interval.
+         *
+         * @param done  The bytes processed.
+         * @param total The bytes expected, or -1 if unknown.
+         */
+        public void onProgress(long done, long total) {
+        }
+
+        /**
+         * Called when the operation completed.
+         *
+         * @param result The result.
+         */
+        public abstract void onSuccess(T result);
+
+        /**
+         * Called when the operation failed. Details are also logged by {@link FileUtil}.
+         *
+         * @param e The failure.
+         */
+        public abstract void onFailure(Exception e);
+
+        /**
+         * Called when the operation stopped because it was cancelled.
+         */
+        public void onCancelled() {
+        }
+
+    }
+
+    /**
+     * A submitted operation.
+     *
+     * @param <T> The result type.
+     */
+    public final class Operation<T> implements Runnable {
+
+        private final boolean heavy;
+        private final String name;
+        private final Callback<T> callback;
+        private final Callable<T> body;
+        private final CancellationSignal signal = new CancellationSignal();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicBoolean progressPosted = new AtomicBoolean();
+        private volatile long progressDone;
+        private volatile long progressTotal;
+
+        private Operation(boolean heavy, String name, Callback<T> callback, Callable<T> body) {
+            this.heavy = heavy;
+            this.name = name;
+            this.callback = callback;
+            this.body = body;
+        }
+
+        /**
+         * Asks the operation to stop. An operation that has not started yet is dropped; a running one
+         * stops at its next check. {@link Callback#onCancelled()} follows unless it finished first.
+         */
+        public void cancel() {
+            signal.cancel();
+            if (heavy && removeWaiting(this)) {
+                deliverCancelled();
+            } else if (pool.remove(this)) {
+                deliverCancelled();
+                if (heavy) {
+                    releaseHeavy();
+                }
+            }
+        }
+
+        /**
+         * Returns whether {@link #cancel()} was called.
+         */
+        public boolean isCancelled() {
+            return signal.isCanceled();
+        }
+
+        /**
+         * Returns whether the outcome has been decided, whether or not the callback has run yet.
+         */
+        public boolean isDone() {
+            return finished.get();
+        }
+
+        @Override
+        public void run() {
+            try {
+                execute();
+            } finally {
+                if (heavy) {
+                    releaseHeavy();
+                }
+            }
+        }
+
+        private void execute() {
+            running.add(this);
+            try {
+                if (shutDown) {
+                    signal.cancel();
+                }
+                if (signal.isCanceled()) {
+                    deliverCancelled();
+                    return;
+                }
+                runBody();
+            } finally {
+                running.remove(this);
+            }
+        }
+
+        private void runBody() {
+
+            OperationMonitor monitor = new OperationMonitor(signal, new OperationMonitor.Listener() {
+                @Override
+                public void onProgress(long done, long total) {
+                    postProgress(done, total);
+                }
+            }, progressIntervalNanos);
+
+            T result;
+            monitor.attach();
+            try {
+                result = body.call();
+            } catch (OperationCanceledException e) {
+                deliverCancelled();
+                return;
+            } catch (Exception e) {
+                if (signal.isCanceled()) {
+                    deliverCancelled();
+                } else {
+                    Log.e(TAG, "Operation failed: " + name, e);
+                    deliverFailure(e);
+                }
+                return;
+            } finally {
+                monitor.detach();
+            }
+
+            // FileUtil reports errors, cancellation included, as null or false.
+            if (signal.isCanceled() && (result == null || Boolean.FALSE.equals(result))) {
+                deliverCancelled();
+            } else if (result == null || Boolean.FALSE.equals(result)) {
+                deliverFailure(new IOException("Operation failed: " + name));
+            } else {
+                monitor.finish();
+                deliverSuccess(result);
+            }
+        }
+
+        /**
+         * Posts progress unless a report is already waiting to run, in which case that report picks
+         * up the newer numbers.
+         */
+        private void postProgress(long done, long total) {
+            progressDone = done;
+            progressTotal = total;
+            if (progressPosted.compareAndSet(false, true)) {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressPosted.set(false);
+                        if (!isCancelled()) {
+                            callback.onProgress(progressDone, progressTotal);
+                        }
+                    }
+                });
+            }
+        }
+
+        private void deliverSuccess(final T result) {
+            if (finished.compareAndSet(false, true)) {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onSuccess(result);
+                    }
+                });
+            }
+        }
+
+        private void deliverFailure(final Exception e) {
+            if (finished.compareAndSet(false, true)) {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onFailure(e);
+                    }
+                });
+            }
+        }
+
+        private void deliverCancelled() {
+            if (finished.compareAndSet(false, true)) {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onCancelled();
+                    }
+                });
+            }
+        }
+
+    }
+
+    /**
+     * Builds a {@link FileOperationExecutor}.
+     */
+    public static final class Builder {
+
+        private int threads = DEFAULT_THREADS;
+        private int maxHeavyOperations = DEFAULT_MAX_HEAVY_OPERATIONS;
+        private long progressIntervalMillis = DEFAULT_PROGRESS_INTERVAL_MILLIS;
+        private Executor callbackExecutor;
+
+        /**
+         * Sets the number of I/O threads. Defaults to {@link #DEFAULT_THREADS}.
+         *
+         * @param threads At least 1.
+         * @return This builder.
+         */
+        public Builder setThreads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets how many heavy operations may run at once. Defaults to
+         * {@link #DEFAULT_MAX_HEAVY_OPERATIONS}.
+         *
+         * @param maxHeavyOperations At least 1.
+         * @return This builder.
+         */
+        public Builder setMaxHeavyOperations(int maxHeavyOperations) {
+            if (maxHeavyOperations < 1) {
+                throw new IllegalArgumentException("Max heavy operations must be at least 1: " + maxHeavyOperations);
+            }
+            this.maxHeavyOperations = maxHeavyOperations;
+            return this;
+        }
+
+        /**
+         * Sets the minimum time between two progress reports of an operation. Defaults to
+         * {@link #DEFAULT_PROGRESS_INTERVAL_MILLIS}.
+         *
+         * @param progressIntervalMillis The interval in milliseconds, not negative.
+         * @return This builder.
+         */
+        public Builder setProgressIntervalMillis(long progressIntervalMillis) {
+            if (progressIntervalMillis < 0) {
+                throw new IllegalArgumentException("Progress interval cannot be negative: " + progressIntervalMillis);
+            }
+            this.progressIntervalMillis = progressIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs callbacks. Defaults to the main thread.
+         *
+         * @param callbackExecutor The executor, not {@code null}.
+         * @return This builder.
+         */
+        public Builder setCallbackExecutor(Executor callbackExecutor) {
+            if (callbackExecutor == null) {
+                throw new IllegalArgumentException("Callback executor must not be null");
+            }
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Creates the executor.
+         *
+         * @return The executor.
+         */
+        public FileOperationExecutor build() {
+            return new FileOperationExecutor(this);
+        }
+
+    }
+
+    private static final class MainThreadExecutor implements Executor {
+
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            handler.post(command);
+        }
+
+    }
+
+    private static final class IoThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "FileOperation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
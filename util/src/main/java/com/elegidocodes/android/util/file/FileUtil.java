@@ -2,14 +2,19 @@ package com.elegidocodes.android.util.file;
 
 import static com.elegidocodes.android.util.date.DateUtil.DateFormats.DATE_COMPACT_WITH_UNDERSCORE;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
+import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.pdf.PdfRenderer;
 import android.net.Uri;
-import android.os.Build;
+import android.os.OperationCanceledException;
 import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
 import android.util.Log;
 
 import androidx.core.content.FileProvider;
@@ -22,9 +27,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -319,11 +329,225 @@ public class FileUtil {
         }
     }
 
+    /**
+     * Compresses a folder into a ZIP file, deflating on several threads.
+     *
+     * <p>Works like {@link #zipFolder(Context, File, String, String)}, but each file is split into
+     * chunks that are deflated in parallel and written back in order, so large folders compress in a
+     * fraction of the time on multi-core devices. The result is a standard ZIP archive that any
+     * unzip tool can read. Memory use is bounded by {@link ZipOptions#getMaxInFlightBytes()}.</p>
+     *
+     * <p>Files that are already compressed (JPEG, PNG, PDF, video, archives...) are stored rather
+     * than deflated, according to {@link ZipOptions#getCompressionPolicy()}; the returned report says
+     * how many bytes were stored, how much space was saved and how long it took.</p>
+     *
+     * <p>With {@link ZipOptions#isRecursive()} subfolders are included under their relative paths.
+     * With {@link ZipOptions#isIncremental()} a manifest is kept next to the archive
+     * ({@code <archive>.manifest}) and the next run copies the compressed data of unchanged files
+     * straight from the previous archive, so its cost follows what changed rather than the size of
+     * the folder.</p>
+     *
+     * <p>The archive is written to a temporary file and renamed into place. Unlike the
+     * single-threaded variant, a file that cannot be read fails the whole run, leaving any previous
+     * archive untouched.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * File parentFolder = context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS);
+     * ZipOptions options = new ZipOptions.Builder().setCompressionLevel(Deflater.BEST_SPEED).build();
+     * ZipReport report = FileUtil.zipFolder(context, parentFolder, "PDF", "ZIP", options);
+     * if (report != null) {
+     *     System.out.println("ZIP File Path: " + report.getArchivePath());
+     * }
+     * }</pre>
+     *
+     * @param context          The application context.
+     * @param parentFolder     The parent folder containing the folder to be zipped.
+     * @param targetFolderName The name of the folder to compress.
+     * @param outputFolderName The name of the folder where the ZIP file will be saved.
+     * @param options          The parallelism, compression level and memory budget to use.
+     * @return A report describing the created ZIP file, or {@code null} if an error occurred.
+     */
+    public static ZipReport zipFolder(Context context, File parentFolder, String targetFolderName, String outputFolderName,
+                                      ZipOptions options) {
+        File targetFolder = new File(parentFolder, targetFolderName);
+
+        if (!targetFolder.exists() || !targetFolder.isDirectory()) {
+            Log.e("FILE_UTILS", "Target folder does not exist or is not a directory: " + targetFolder.getAbsolutePath());
+            return null;
+        }
+
+        File outputFolder = new File(parentFolder, outputFolderName);
+        if (!outputFolder.exists()) {
+            if (outputFolder.mkdir()) {
+                Log.i("FILE_UTILS", "Output folder created: " + outputFolder.getAbsolutePath());
+            } else {
+                Log.e("FILE_UTILS", "Failed to create output folder: " + outputFolder.getAbsolutePath());
+                return null;
+            }
+        }
+
+        List<File> files = new ArrayList<>();
+        List<String> entryNames = new ArrayList<>();
+        collectFiles(targetFolder, "", options.isRecursive(), files, entryNames);
+        if (files.isEmpty()) {
+            Log.e("FILE_UTILS", "No files found in target folder: " + targetFolder.getAbsolutePath());
+            return null;
+        }
+
+        String zipFileName = targetFolderName + "_compressed.zip";
+        File zipFile = new File(outputFolder, zipFileName);
+        File manifestFile = new File(outputFolder, zipFileName + ".manifest");
+        ZipManifest previous = options.isIncremental() ? ZipManifest.read(manifestFile, zipFile, options) : null;
+
+        ParallelZipEncoder encoder = new ParallelZipEncoder(options);
+        ZipReport report;
+        try {
+            report = encoder.zip(toZipSources(context, files, entryNames, options), zipFile, previous);
+        } catch (IOException e) {
+            Log.e("FILE_UTILS", "Error while creating ZIP file", e);
+            return null;
+        }
+
+        if (options.isIncremental()) {
+            try {
+                encoder.getManifest().write(manifestFile, zipFile);
+            } catch (IOException e) {
+                // The archive is fine; the next run just cannot reuse it.
+                Log.e("FILE_UTILS", "Error while writing ZIP manifest", e);
+                manifestFile.delete();
+            }
+        } else if (manifestFile.exists()) {
+            // A leftover manifest would no longer match the rebuilt archive.
+            manifestFile.delete();
+        }
+        return report;
+    }
+
+    /**
+     * Compresses a folder into a ZIP archive written straight to a stream.
+     *
+     * <p>Works like {@link #zipFolder(Context, File, String, String, ZipOptions)}, but nothing is
+     * written to disk: the archive goes into {@code out} in a single forward pass, using data
+     * descriptors for entry sizes and ZIP64 records where an entry or the archive reaches 4 GB. This
+     * lets a folder be zipped while it is uploaded, or written to a {@code ContentResolver} URI,
+     * without a temporary file. {@link ZipOptions#isIncremental()} is ignored, since there is no
+     * previous archive to reuse.</p>
+     *
+     * <p>The stream is flushed but not closed. If an error occurs, {@code out} holds an incomplete
+     * archive and should be discarded.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * Uri target = ...; // A document created with ACTION_CREATE_DOCUMENT
+     * try (OutputStream out = context.getContentResolver().openOutputStream(target)) {
+     *     ZipReport report = FileUtil.zipFolder(context, parentFolder, "PDF", out, ZipOptions.defaults());
+     * }
+     * }</pre>
+     *
+     * @param context          The application context.
+     * @param parentFolder     The parent folder containing the folder to be zipped.
+     * @param targetFolderName The name of the folder to compress.
+     * @param out              The stream that receives the archive.
+     * @param options          The parallelism, compression level and memory budget to use.
+     * @return A report describing the written archive, with a {@code null} path, or {@code null} if
+     * an error occurred.
+     */
+    public static ZipReport zipFolder(Context context, File parentFolder, String targetFolderName, OutputStream out,
+                                      ZipOptions options) {
+        File targetFolder = new File(parentFolder, targetFolderName);
+
+        if (!targetFolder.exists() || !targetFolder.isDirectory()) {
+            Log.e("FILE_UTILS", "Target folder does not exist or is not a directory: " + targetFolder.getAbsolutePath());
+            return null;
+        }
+
+        List<File> files = new ArrayList<>();
+        List<String> entryNames = new ArrayList<>();
+        collectFiles(targetFolder, "", options.isRecursive(), files, entryNames);
+        if (files.isEmpty()) {
+            Log.e("FILE_UTILS", "No files found in target folder: " + targetFolder.getAbsolutePath());
+            return null;
+        }
+
+        try {
+            return new ParallelZipEncoder(options).zip(toZipSources(context, files, entryNames, options), out);
+        } catch (IOException e) {
+            Log.e("FILE_UTILS", "Error while streaming ZIP archive", e);
+            return null;
+        }
+    }
+
+    /**
+     * Compresses a folder into a ZIP archive written straight to a channel.
+     *
+     * <p>Same as {@link #zipFolder(Context, File, String, OutputStream, ZipOptions)}, for callers that
+     * hold a channel, such as a socket or a {@link java.nio.channels.Pipe} sink. The channel must
+     * be in blocking mode. It is not closed.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * try (FileChannel channel = new FileOutputStream(target).getChannel()) {
+     *     ZipReport report = FileUtil.zipFolder(context, parentFolder, "PDF", channel, ZipOptions.defaults());
+     * }
+     * }</pre>
+     *
+     * @param context          The application context.
+     * @param parentFolder     The parent folder containing the folder to be zipped.
+     * @param targetFolderName The name of the folder to compress.
+     * @param channel          The channel that receives the archive.
+     * @param options          The parallelism, compression level and memory budget to use.
+     * @return A report describing the written archive, with a {@code null} path, or {@code null} if
+     * an error occurred.
+     */
+    public static ZipReport zipFolder(Context context, File parentFolder, String targetFolderName,
+                                      WritableByteChannel channel, ZipOptions options) {
+        return zipFolder(context, parentFolder, targetFolderName, Channels.newOutputStream(channel), options);
+    }
+
+    /**
+     * Pairs each file with its entry name and, if the compression policy needs it, its MIME type.
+     */
+    private static List<ZipSource> toZipSources(Context context, List<File> files, List<String> entryNames,
+                                                ZipOptions options) {
+        List<ZipSource> sources = new ArrayList<>(files.size());
+        boolean needsMimeTypes = options.getCompressionPolicy() != CompressionPolicy.DEFLATE_ALL;
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            String mimeType = needsMimeTypes ? MimeTypeUtil.getMimeType(context, file.getAbsolutePath()) : null;
+            sources.add(ZipSource.of(file, entryNames.get(i), mimeType));
+        }
+        return sources;
+    }
+
+    /**
+     * Adds the files in {@code folder} to {@code files}, sorted by name, with their entry names
+     * (relative paths using '/') to {@code entryNames}.
+     */
+    private static void collectFiles(File folder, String prefix, boolean recursive, List<File> files,
+                                     List<String> entryNames) {
+        File[] listed = folder.listFiles();
+        if (listed == null) {
+            return;
+        }
+        Arrays.sort(listed);
+        for (File file : listed) {
+            if (file.isFile()) { // Ensure only files are processed
+                files.add(file);
+                entryNames.add(prefix + file.getName());
+            } else if (recursive && file.isDirectory()) {
+                collectFiles(file, prefix + file.getName() + "/", true, files, entryNames);
+            }
+        }
+    }
+
     /**
      * Converts a {@link Uri} to a temporary {@link File}.
      *
      * <p>This method reads the content from the provided {@code Uri} and writes it to a temporary file
-     * in the app's cache directory. The file is set to be automatically deleted when the app exits.</p>
+     * in the app's {@link TempFileCache}. The cache keeps its files under a byte budget, deleting the
+     * least recently used ones when it needs the space. The returned file is held until passed to
+     * {@link TempFileCache#release(File)}, so later imports never evict it while it is in use.</p>
      *
      * <p>Example usage:
      * <pre>{@code
@@ -341,47 +565,306 @@ public class FileUtil {
      * @return A {@link File} object pointing to the temporary file, or {@code null} if an error occurred.
      */
     public static File uriToFile(Context context, Uri uri, String prefix, String suffix) {
-        try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
-            if (inputStream == null) {
-                Log.e("FileUtil", "Failed to open InputStream for URI: " + uri);
-                return null;
-            }
+        return uriToFile(context, uri, prefix, suffix, false);
+    }
 
-            // Create a temporary file with the specified prefix and suffix
-            File tempFile = File.createTempFile(prefix, suffix, context.getCacheDir());
-            tempFile.deleteOnExit(); // Mark the file for deletion when the app exits
+    /**
+     * Converts a {@link Uri} to a temporary {@link File}, optionally reusing an earlier import of the
+     * same content.
+     *
+     * <p>In dedup mode the URI is first identified by the size and last-modified time its provider
+     * reports. If the same URI with the same metadata was imported before and the file is still in
+     * the {@link TempFileCache}, that file is returned without copying anything. Otherwise the
+     * content is copied while its SHA-256 is computed, and if identical content is already cached,
+     * for example the same photo picked through another URI, the new copy is dropped in favour of the
+     * existing file.</p>
+     *
+     * <p>Files returned in dedup mode may be shared between callers, so treat them as read-only and
+     * do not delete them; pass each one to {@link TempFileCache#release(File)} once done. Providers that report no size or last-modified time are always copied,
+     * though their content is still deduplicated.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * Uri uri = ...; // Picked from the gallery, possibly again
+     * File photo = FileUtil.uriToFile(context, uri, "photo_", ".jpg", true);
+     * if (photo != null) {
+     *     imageView.setImageURI(Uri.fromFile(photo));
+     * }
+     * }</pre>
+     *
+     * @param context The application context.
+     * @param uri     The {@link Uri} of the file to convert.
+     * @param prefix  The prefix for the temporary file name.
+     * @param suffix  The suffix for the temporary file name, typically a file extension (e.g., ".tmp").
+     * @param dedup   Whether to reuse an earlier import of the same URI or content.
+     * @return A {@link File} object pointing to the temporary file, or {@code null} if an error occurred.
+     */
+    public static File uriToFile(Context context, Uri uri, String prefix, String suffix, boolean dedup) {
+        return uriToFile(context, uri, prefix, suffix, dedup, new ChecksumSink[0]);
+    }
 
-            // Conditionally use appropriate output stream based on API level
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                try (OutputStream outputStream = Files.newOutputStream(tempFile.toPath())) {
-                    copyStream(inputStream, outputStream);
-                }
-            } else {
-                try (OutputStream outputStream = new FileOutputStream(tempFile)) {
-                    copyStream(inputStream, outputStream);
-                }
+    /**
+     * Converts a {@link Uri} to a temporary {@link File}, computing checksums of the content as it is
+     * copied.
+     *
+     * <p>The sinks are fed from the copy buffer, so no second read of the file is needed. This keeps
+     * the data in the app's memory for a moment, so the kernel-side copy is not used.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * ChecksumSink sha256 = ChecksumSink.sha256();
+     * File file = FileUtil.uriToFile(context, uri, "doc_", ".pdf", sha256);
+     * if (file != null && !expectedHash.equals(sha256.getHexValue())) {
+     *     Log.w("IMPORT", "Content does not match the expected hash");
+     * }
+     * }</pre>
+     *
+     * @param context The application context.
+     * @param uri     The {@link Uri} of the file to convert.
+     * @param prefix  The prefix for the temporary file name.
+     * @param suffix  The suffix for the temporary file name, typically a file extension (e.g., ".tmp").
+     * @param sinks   The checksums to feed with the content.
+     * @return A {@link File} object pointing to the temporary file, or {@code null} if an error occurred.
+     */
+    public static File uriToFile(Context context, Uri uri, String prefix, String suffix, ChecksumSink... sinks) {
+        return uriToFile(context, uri, prefix, suffix, false, sinks);
+    }
+
+    private static File uriToFile(Context context, Uri uri, String prefix, String suffix, boolean dedup,
+                                  ChecksumSink[] sinks) {
+        TempFileCache cache = TempFileCache.get(context);
+        String sourceKey = null;
+        if (dedup) {
+            sourceKey = getSourceKey(context, uri, suffix);
+            File previous = sourceKey != null ? cache.findImport(sourceKey) : null;
+            if (previous != null) {
+                return previous;
             }
+        }
 
+        File tempFile = null;
+        // The lease keeps the file from being evicted while it is written
+        try (TempFileCache.Lease lease = cache.createFile(prefix, suffix)) {
+            tempFile = lease.getFile();
+            ChecksumSink digest = dedup ? ChecksumSink.sha256() : null;
+            if (digest != null) {
+                sinks = Arrays.copyOf(sinks, sinks.length + 1);
+                sinks[sinks.length - 1] = digest;
+            }
+            FileCopier.copy(context.getContentResolver(), uri, tempFile, sinks);
+            if (digest != null) {
+                // The suffix is part of the key so a hit never changes the file type.
+                String contentKey = digest.getHexValue() + (suffix != null ? suffix : "");
+                tempFile = cache.registerImport(tempFile, sourceKey, contentKey);
+            } else {
+                cache.handOut(tempFile);
+            }
             return tempFile;
         } catch (Exception e) {
-            Log.e("FileUtil", "Error converting URI to File: " + uri, e);
+            if (tempFile != null) {
+                cache.delete(tempFile);
+            }
+            logError("Error converting URI to File: " + uri, e);
             return null; // Return null if an error occurred
         }
     }
 
     /**
-     * Copies data from an InputStream to an OutputStream.
+     * Logs an exception caught by a method that reports failure through its return value.
+     *
+     * <p>A cancellation is not a failure: an {@link OperationCanceledException}, thrown when the
+     * {@link FileOperationExecutor} running the method cancels it, is rethrown so the executor can
+     * report it as cancelled.</p>
+     */
+    private static void logError(String message, Exception e) {
+        if (e instanceof OperationCanceledException) {
+            throw (OperationCanceledException) e;
+        }
+        Log.e("FileUtil", message, e);
+    }
+
+    /**
+     * Identifies the content behind a URI by the URI and the size and last-modified time its
+     * provider reports, or returns {@code null} if the provider does not report both.
+     */
+    private static String getSourceKey(Context context, Uri uri, String suffix) {
+        long[] metadata = querySizeAndLastModified(context, uri);
+        if (metadata[0] < 0 || metadata[1] <= 0) {
+            return null;
+        }
+        return uri + "|" + metadata[0] + "|" + metadata[1] + "|" + (suffix != null ? suffix : "");
+    }
+
+    /**
+     * Asks the provider, or the file system for {@code file} URIs, for the content's size and
+     * last-modified time.
+     *
+     * @return The size in bytes, or -1 if unknown, and the last-modified time in milliseconds, or 0
+     * if unknown.
+     */
+    private static long[] querySizeAndLastModified(Context context, Uri uri) {
+        long size = -1;
+        long lastModified = 0;
+
+        if ("file".equals(uri.getScheme()) && uri.getPath() != null) {
+            File file = new File(uri.getPath());
+            size = file.isFile() ? file.length() : -1;
+            lastModified = file.lastModified();
+        } else if (ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+            boolean media = MediaStore.AUTHORITY.equals(uri.getAuthority());
+            boolean document = !media && DocumentsContract.isDocumentUri(context, uri);
+            String[] projection = media
+                    ? new String[]{MediaStore.MediaColumns.SIZE, MediaStore.MediaColumns.DATE_MODIFIED}
+                    : document
+                    ? new String[]{OpenableColumns.SIZE, DocumentsContract.Document.COLUMN_LAST_MODIFIED}
+                    : new String[]{OpenableColumns.SIZE};
+            try (Cursor cursor = context.getContentResolver().query(uri, projection, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    if (!cursor.isNull(0)) {
+                        size = cursor.getLong(0);
+                    }
+                    if (projection.length > 1 && !cursor.isNull(1)) {
+                        // MediaStore keeps seconds.
+                        lastModified = media ? cursor.getLong(1) * 1000L : cursor.getLong(1);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e("FileUtil", "Error querying " + uri, e);
+            }
+        }
+        return new long[]{size, lastModified};
+    }
+
+    /**
+     * Copies the content of a {@link Uri} into a file.
      *
-     * @param inputStream  The source InputStream.
-     * @param outputStream The destination OutputStream.
-     * @throws IOException If an I/O error occurs during the copy operation.
+     * <p>When the provider can hand out a file descriptor with a known size, the copy is done by the
+     * kernel ({@code FileChannel.transferTo}), without passing the data through the app's memory.
+     * Otherwise it is streamed through a pooled direct buffer sized for the content. This makes
+     * importing multi-GB videos markedly cheaper than a plain stream copy.</p>
+     *
+     * <p>Checksum sinks, if given, are fed from the copy buffer as the data streams through, so
+     * integrity checks need no second read of the file. With sinks the kernel-side copy is not used.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * Uri video = ...; // Picked by the user
+     * File target = new File(context.getFilesDir(), "import.mp4");
+     * ChecksumSink crc = ChecksumSink.crc32();
+     * if (FileUtil.copyUriToFile(context, video, target, crc)) {
+     *     System.out.println("Imported " + FileUtil.formatFileSize(target.length(), true)
+     *             + ", CRC-32 " + crc.getHexValue());
+     * }
+     * }</pre>
+     *
+     * @param context The application context.
+     * @param uri     The {@link Uri} of the content to copy.
+     * @param target  The file to write. Existing content is replaced.
+     * @param sinks   The checksums to feed with the content, possibly none.
+     * @return {@code true} if the content was copied, {@code false} if an error occurred.
+     */
+    public static boolean copyUriToFile(Context context, Uri uri, File target, ChecksumSink... sinks) {
+        try {
+            FileCopier.copy(context.getContentResolver(), uri, target, sinks);
+            return true;
+        } catch (Exception e) {
+            logError("Error copying URI to file: " + uri, e);
+            return false;
+        }
+    }
+
+    /**
+     * Copies the content of a {@link Uri} into a file so that an interrupted copy can be resumed.
+     *
+     * <p>The data is written to {@code <target>.part}, with a small checkpoint record saved next to
+     * it every few megabytes. If the copy fails, is cancelled, or the process dies, calling this
+     * method again for the same URI and target continues from the last checkpoint, provided the
+     * provider still reports the same size and last-modified time and the bytes just before the
+     * checkpoint still match on both sides. Otherwise the copy starts over. The part file is renamed
+     * to {@code target} once complete, and the checkpoint is kept next to it: calling again for the
+     * unchanged source only reads {@code target} back to check its CRC-32. Calls for the same target
+     * wait for each other.</p>
+     *
+     * <p>Only content whose size the provider reports can be resumed; anything else is copied in one
+     * go. Meant for multi-GB imports, where starting over is expensive.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * File target = new File(context.getFilesDir(), "backup.zip");
+     * long crc = FileUtil.copyUriToFileResumable(context, uri, target);
+     * if (crc < 0) {
+     *     // Try again later; the copy continues where it stopped.
+     * }
+     * }</pre>
+     * </p>
+     *
+     * @param context The application context.
+     * @param uri     The {@link Uri} of the content to copy.
+     * @param target  The file to write. Existing content is replaced once the copy completes.
+     * @return The CRC-32 of the content, or -1 if an error occurred.
+     */
+    public static long copyUriToFileResumable(Context context, Uri uri, File target) {
+        long[] metadata = querySizeAndLastModified(context, uri);
+        try {
+            return ResumableCopier.copy(context.getContentResolver(), uri, metadata[0], metadata[1], target);
+        } catch (Exception e) {
+            logError("Error copying URI to file: " + uri, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Converts a {@link Uri} to a file in the app's {@link TempFileCache}, resuming an earlier
+     * interrupted conversion of the same URI.
+     *
+     * <p>Unlike {@link #uriToFile(Context, Uri, String, String)}, the file name is derived from the
+     * URI instead of being random, so a later call can find the partial copy. See
+     * {@link #copyUriToFileResumable(Context, Uri, File)} for when a copy is resumed. The returned
+     * file is held until passed to {@link TempFileCache#release(File)}.</p>
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * File video = FileUtil.uriToFileResumable(context, uri, "video_", ".mp4");
+     * if (video == null) {
+     *     // Try again later; the copy continues where it stopped.
+     * }
+     * }</pre>
+     * </p>
+     *
+     * @param context The application context.
+     * @param uri     The {@link Uri} of the file to convert.
+     * @param prefix  The prefix for the file name.
+     * @param suffix  The suffix for the file name, typically a file extension (e.g., ".mp4").
+     * @return A {@link File} object pointing to the file, or {@code null} if an error occurred.
      */
-    private static void copyStream(InputStream inputStream, OutputStream outputStream) throws IOException {
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-            outputStream.write(buffer, 0, bytesRead);
+    public static File uriToFileResumable(Context context, Uri uri, String prefix, String suffix) {
+        TempFileCache cache = TempFileCache.get(context);
+        File directory = cache.getDirectory();
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            Log.e("FileUtil", "Could not create cache directory: " + directory.getAbsolutePath());
+            return null;
         }
+
+        byte[] name = uri.toString().getBytes(Charset.forName("UTF-8"));
+        ChecksumSink hash = ChecksumSink.sha256();
+        hash.update(name, 0, name.length);
+        File target = new File(directory,
+                (prefix != null ? prefix : "") + hash.getHexValue().substring(0, 16) + (suffix != null ? suffix : ""));
+        File part = new File(target.getPath() + ResumableCopier.PART_SUFFIX);
+
+        long[] metadata = querySizeAndLastModified(context, uri);
+        // The lease keeps the partial copy from being evicted while it is written
+        TempFileCache.Lease lease = cache.track(part);
+        try {
+            ResumableCopier.copy(context.getContentResolver(), uri, metadata[0], metadata[1], target);
+        } catch (Exception e) {
+            logError("Error converting URI to File: " + uri, e);
+            return null;
+        } finally {
+            lease.close();
+        }
+        cache.delete(part);
+        return cache.handOut(target);
     }
 
     /**
@@ -389,7 +872,9 @@ public class FileUtil {
      *
      * <p>This method generates a file in the specified directory. If the directory does not exist,
      * it will attempt to create it. The prefix and suffix can be customized, and a date pattern can be
-     * used to include timestamps in the file name.</p>
+     * used to include timestamps in the file name. If a {@link TempFileCache} manages the directory,
+     * the file is allocated through it and counts towards its budget; it is never evicted before it
+     * is passed to {@link TempFileCache#release(File)}.</p>
      *
      * <p>Example usage:
      * <pre>{@code
@@ -438,7 +923,10 @@ public class FileUtil {
         }
 
         // Create the temporary file in the specified directory
-
+        TempFileCache cache = TempFileCache.find(fileDirectory);
+        if (cache != null) {
+            return cache.allocate(prefix, suffix);
+        }
         return File.createTempFile(prefix, suffix, fileDirectory);
     }
 
@@ -471,7 +959,8 @@ public class FileUtil {
         Bitmap.CompressFormat compressFormat;
         String fileExtension;
 
-        try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+        // Reading through the monitor reports progress when run by a FileOperationExecutor
+        try (InputStream inputStream = OperationMonitor.monitor(context.getContentResolver().openInputStream(uri))) {
             if (inputStream == null) {
                 Log.e("FileUtil", "Failed to open InputStream for URI: " + uri);
                 return null;
@@ -496,6 +985,9 @@ public class FileUtil {
                 return null;
             }
 
+            // Stop here if the operation running this was cancelled while decoding
+            OperationMonitor.current().throwIfCanceled();
+
             // Create the output file with the appropriate extension
             File outputFile = createFile("image", fileExtension, directory, DATE_COMPACT_WITH_UNDERSCORE.getPattern());
             if (outputFile == null) {
@@ -514,7 +1006,7 @@ public class FileUtil {
             return outputFile;
 
         } catch (Exception e) {
-            Log.e("FileUtil", "Error converting URI to file: " + uri, e);
+            logError("Error converting URI to file: " + uri, e);
             return null;
         }
     }
@@ -572,6 +1064,9 @@ public class FileUtil {
                 return false;
             }
 
+            // Last point where cancelling leaves the original untouched
+            OperationMonitor.current().throwIfCanceled();
+
             // Overwrite the original file with compressed content
             try (OutputStream outputStream = new FileOutputStream(filePath)) {
                 if (!bitmap.compress(compressFormat, compressQuality, outputStream)) {
@@ -583,7 +1078,7 @@ public class FileUtil {
             return true; // Compression and overwrite were successful
 
         } catch (Exception e) {
-            Log.e("FileUtil", "Error compressing image in place: " + filePath, e);
+            logError("Error compressing image in place: " + filePath, e);
             return false;
         }
     }
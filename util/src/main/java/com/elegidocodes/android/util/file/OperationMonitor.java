@@ -0,0 +1,153 @@
+package com.elegidocodes.android.util.file;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Progress and cancellation of the {@link FileOperationExecutor} operation running on the current
+ * thread.
+ *
+ * <p>The copy and zip loops ask {@link #current()} for the monitor once and call
+ * {@link #advance(long)} as bytes go through. Outside an operation they get a monitor that does
+ * nothing, so the blocking {@link FileUtil} methods behave exactly as before.</p>
+ */
+final class OperationMonitor {
+
+    /**
+     * Receives throttled progress.
+     */
+    interface Listener {
+
+        /**
+         * @param done  The bytes processed so far.
+         * @param total The bytes expected in all, or -1 if unknown.
+         */
+        void onProgress(long done, long total);
+
+    }
+
+    private static final OperationMonitor NONE = new OperationMonitor(null, null, 0);
+
+    private static final ThreadLocal<OperationMonitor> CURRENT = new ThreadLocal<>();
+
+    private final CancellationSignal signal;
+    private final Listener listener;
+    private final long intervalNanos;
+
+    private long done;
+    private long total = -1;
+    private long lastReport;
+
+    OperationMonitor(CancellationSignal signal, Listener listener, long intervalNanos) {
+        this.signal = signal;
+        this.listener = listener;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Returns the monitor of the operation running on this thread, or one that does nothing.
+     */
+    static OperationMonitor current() {
+        OperationMonitor monitor = CURRENT.get();
+        return monitor != null ? monitor : NONE;
+    }
+
+    /**
+     * Makes this the monitor of the current thread until {@link #detach()}.
+     */
+    void attach() {
+        lastReport = System.nanoTime();
+        CURRENT.set(this);
+    }
+
+    void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Sets the expected number of bytes, unless it is already known.
+     */
+    void expect(long bytes) {
+        if (listener != null && total < 0 && bytes >= 0) {
+            total = bytes;
+        }
+    }
+
+    /**
+     * @throws OperationCanceledException If the operation was cancelled.
+     */
+    void throwIfCanceled() {
+        if (signal != null) {
+            signal.throwIfCanceled();
+        }
+    }
+
+    /**
+     * Counts processed bytes and reports progress if the interval has passed.
+     *
+     * @throws OperationCanceledException If the operation was cancelled.
+     */
+    void advance(long bytes) {
+        if (signal == null) {
+            return;
+        }
+        signal.throwIfCanceled();
+        done += bytes;
+        long now = System.nanoTime();
+        if (now - lastReport >= intervalNanos) {
+            lastReport = now;
+            listener.onProgress(done, total);
+        }
+    }
+
+    /**
+     * Reports the final count, regardless of the interval.
+     */
+    void finish() {
+        if (listener != null) {
+            listener.onProgress(done, total < 0 ? done : total);
+        }
+    }
+
+    /**
+     * Wraps {@code in} so that reading it advances the current monitor, or returns it as is outside
+     * an operation.
+     */
+    static InputStream monitor(InputStream in) {
+        final OperationMonitor monitor = current();
+        if (monitor == NONE || in == null) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int value = super.read();
+                if (value >= 0) {
+                    monitor.advance(1);
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    monitor.advance(read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long count) throws IOException {
+                long skipped = super.skip(count);
+                monitor.advance(skipped);
+                return skipped;
+            }
+        };
+    }
+
+}
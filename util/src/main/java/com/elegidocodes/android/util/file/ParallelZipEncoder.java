@@ -0,0 +1,839 @@
+package com.elegidocodes.android.util.file;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Builds a standard ZIP archive, deflating file chunks on a worker pool.
+ *
+ * <p>The calling thread reads every source in order, in chunks, updates the entry's CRC-32 and any
+ * {@link ZipOptions#getChecksums() extra checksums}, and hands each chunk to a worker. Workers
+ * deflate chunks independently in raw deflate format, primed with the last 32 KB of the previous
+ * chunk as a dictionary so compression barely suffers. Every chunk but the last of an entry ends
+ * with a sync flush, which leaves the output byte-aligned without ending the deflate stream, so the
+ * chunks concatenate into one valid stream (the technique used by pigz). The calling thread writes
+ * the results in their original order as they complete.</p>
+ *
+ * <p>Files that the {@link CompressionPolicy} marks as already compressed are stored instead: a first
+ * pass computes their CRC-32 so the local header carries it, and a second pass queues the raw chunks
+ * behind whatever is still being deflated.</p>
+ *
+ * <p>Given the manifest of a previous build of the same archive, files whose size and modification
+ * time are unchanged are not read at all: their compressed bytes are copied from the previous
+ * archive. The new archive is written next to the old one and renamed over it on success.</p>
+ *
+ * <p>Sources that are not {@link ZipSource#isRepeatable() repeatable}, such as content provider
+ * streams, are read once each by background readers that work a few sources ahead of the encoder,
+ * each holding at most a few chunks, so slow providers are read in parallel within a fixed amount
+ * of memory. Such entries are never stored; if the policy would store one, it is deflated at level
+ * 0, which needs no CRC before the data.</p>
+ */
+final class ParallelZipEncoder {
+
+    /**
+     * Size of the deflate window, and so of the useful dictionary.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Chunks a background reader may hold ready, on top of the one it is filling.
+     */
+    private static final int PREFETCH_QUEUE_CHUNKS = 2;
+
+    /**
+     * Queued by a background reader in place of data when reading fails.
+     */
+    private static final Chunk FAILED = new Chunk(new byte[0], 0);
+
+    private final ZipOptions options;
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Deflater> storingDeflaters = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private final Map<Integer, Prefetch> prefetches = new HashMap<>();
+
+    private List<ZipSource> sources;
+    private ExecutorService pool;
+    private ExecutorService readPool;
+    private int readAhead;
+    private int nextPrefetch;
+    private ZipArchiveWriter writer;
+    private long inFlightBytes;
+    private int storedEntryCount;
+    private long storedBytes;
+    private int reusedEntryCount;
+    private long reusedBytes;
+    private ChecksumSink.Algorithm[] algorithms;
+    private Map<ChecksumSink.Algorithm, Map<String, String>> checksums;
+    private OperationMonitor monitor;
+    private ZipManifest manifest;
+    private ZipManifest previous;
+    private RandomAccessFile previousArchive;
+
+    ParallelZipEncoder(ZipOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Writes {@code sources} into a new archive at {@code archive}.
+     *
+     * <p>If {@code previousManifest} is not {@code null} it must describe the archive currently at
+     * {@code archive}, whose unchanged entries are then reused. If anything fails, the existing
+     * archive is left untouched.</p>
+     */
+    ZipReport zip(List<ZipSource> sources, File archive, ZipManifest previousManifest) throws IOException {
+        long start = System.nanoTime();
+        long uncompressedBytes;
+        boolean success = false;
+
+        File temp = new File(archive.getPath() + ".tmp");
+        previous = previousManifest;
+        try (ZipArchiveWriter archiveWriter = new ZipArchiveWriter(
+                new BufferedOutputStream(new FileOutputStream(temp), OUTPUT_BUFFER_SIZE))) {
+            if (previous != null) {
+                previousArchive = new RandomAccessFile(archive, "r");
+            }
+            uncompressedBytes = encode(sources, archiveWriter);
+            success = true;
+        } finally {
+            if (previousArchive != null) {
+                previousArchive.close();
+                previousArchive = null;
+            }
+            if (!success && temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+
+        if (!temp.renameTo(archive)) {
+            temp.delete();
+            throw new IOException("Could not replace archive: " + archive.getAbsolutePath());
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new ZipReport(archive.getAbsolutePath(), sources.size(), uncompressedBytes, archive.length(),
+                elapsedMillis, storedEntryCount, storedBytes, reusedEntryCount, reusedBytes, checksums);
+    }
+
+    /**
+     * Writes {@code sources} as a ZIP archive into {@code out}, which is flushed but not closed.
+     * Every byte is written once, in order, so {@code out} may be a network or pipe stream.
+     */
+    ZipReport zip(List<ZipSource> sources, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        previous = null;
+        ZipArchiveWriter archiveWriter = new ZipArchiveWriter(new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE));
+        long uncompressedBytes = encode(sources, archiveWriter);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new ZipReport(null, sources.size(), uncompressedBytes, archiveWriter.getPosition(), elapsedMillis,
+                storedEntryCount, storedBytes, reusedEntryCount, reusedBytes, checksums);
+    }
+
+    /**
+     * Returns the manifest of the archive built by the last call to {@code zip}.
+     */
+    ZipManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Compresses every source into {@code archiveWriter} and finishes the archive.
+     *
+     * @return The total size of the sources.
+     */
+    private long encode(List<ZipSource> sources, ZipArchiveWriter archiveWriter) throws IOException {
+        long uncompressedBytes = 0;
+        this.sources = sources;
+        manifest = new ZipManifest(options);
+        algorithms = options.getChecksums().toArray(new ChecksumSink.Algorithm[0]);
+        checksums = new EnumMap<>(ChecksumSink.Algorithm.class);
+        for (ChecksumSink.Algorithm algorithm : algorithms) {
+            checksums.put(algorithm, new LinkedHashMap<String, String>());
+        }
+        writer = archiveWriter;
+        nextPrefetch = 0;
+        monitor = OperationMonitor.current();
+        monitor.expect(totalSize(sources));
+        pool = Executors.newFixedThreadPool(options.getParallelism(), new WorkerFactory("ParallelZip-"));
+        try {
+            for (int i = 0; i < sources.size(); i++) {
+                uncompressedBytes += addSource(i);
+            }
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            writer.finish();
+        } finally {
+            pool.shutdownNow();
+            if (readPool != null) {
+                // Interrupts readers blocked on a full queue; each closes its own stream.
+                readPool.shutdownNow();
+                readPool = null;
+            }
+            prefetches.clear();
+            endAll(deflaters);
+            endAll(storingDeflaters);
+            pending.clear();
+            writer = null;
+            monitor = null;
+            this.sources = null;
+        }
+        return uncompressedBytes;
+    }
+
+    /**
+     * Returns the combined size of the sources, or -1 if any size is unknown.
+     */
+    private static long totalSize(List<ZipSource> sources) {
+        long total = 0;
+        for (ZipSource source : sources) {
+            if (source.size < 0) {
+                return -1;
+            }
+            total += source.size;
+        }
+        return total;
+    }
+
+    /**
+     * Reads one source and queues its header, chunks and trailer.
+     *
+     * @return The number of bytes read.
+     */
+    private long addSource(int index) throws IOException {
+        ZipSource source = sources.get(index);
+        schedulePrefetches();
+
+        if (!source.isRepeatable()) {
+            Prefetch prefetch = prefetches.remove(index);
+            schedulePrefetches();
+            return addStreamedSource(source, prefetch);
+        }
+
+        if (previous != null) {
+            ZipManifest.Entry unchanged = previous.findUnchanged(source.entryName, source.size, source.lastModified);
+            if (unchanged != null && ZipManifest.hasChecksums(unchanged, options)) {
+                return addReusedEntry(unchanged);
+            }
+        }
+
+        CompressionPolicy policy = options.getCompressionPolicy();
+        boolean store;
+        if (policy.needsProbe(source.mimeType)) {
+            byte[] head = new byte[CompressionPolicy.PROBE_SIZE];
+            int length;
+            try (InputStream in = source.open()) {
+                length = readFully(in, head);
+            }
+            store = policy.shouldStore(source.mimeType, head, length);
+        } else {
+            store = policy.shouldStore(source.mimeType, null, 0);
+        }
+
+        if (store) {
+            return addStoredSource(source);
+        }
+        try (DirectReader reader = new DirectReader(source.open())) {
+            return addDeflatedSource(source, reader, reader.next(), options.getCompressionLevel());
+        }
+    }
+
+    /**
+     * Queues a source that is read only once, by a background reader. Entries the policy would store
+     * are deflated at level 0 instead: that needs no CRC up front, and costs about 5 bytes per 64 KB.
+     */
+    private long addStreamedSource(ZipSource source, Prefetch prefetch) throws IOException {
+        CompressionPolicy policy = options.getCompressionPolicy();
+        Chunk first = prefetch.next();
+        boolean probe = policy.needsProbe(source.mimeType);
+        boolean store = policy.shouldStore(source.mimeType, probe ? first.data : null,
+                probe ? Math.min(first.length, CompressionPolicy.PROBE_SIZE) : 0);
+
+        long size = addDeflatedSource(source, prefetch, first,
+                store ? Deflater.NO_COMPRESSION : options.getCompressionLevel());
+        if (store) {
+            storedEntryCount++;
+            storedBytes += size;
+        }
+        return size;
+    }
+
+    /**
+     * Starts background readers for upcoming one-shot sources, up to the read-ahead limit.
+     */
+    private void schedulePrefetches() {
+        if (readPool == null) {
+            long perSource = (long) (PREFETCH_QUEUE_CHUNKS + 1) * options.getChunkSize();
+            readAhead = (int) Math.max(1, Math.min(options.getParallelism(), options.getMaxInFlightBytes() / 2 / perSource));
+        }
+        while (nextPrefetch < sources.size() && prefetches.size() < readAhead) {
+            ZipSource source = sources.get(nextPrefetch);
+            if (!source.isRepeatable()) {
+                if (readPool == null) {
+                    readPool = Executors.newFixedThreadPool(readAhead, new WorkerFactory("ParallelZipReader-"));
+                }
+                Prefetch prefetch = new Prefetch(source);
+                prefetches.put(nextPrefetch, prefetch);
+                readPool.execute(prefetch);
+            }
+            nextPrefetch++;
+        }
+    }
+
+    /**
+     * Queues an entry whose compressed data is copied unchanged from the previous archive.
+     */
+    private long addReusedEntry(ZipManifest.Entry old) throws IOException {
+        ZipManifest.Entry record = new ZipManifest.Entry(old.path, old.lastModified);
+        for (ChecksumSink.Algorithm algorithm : algorithms) {
+            recordChecksum(record, algorithm, old.checksums.get(algorithm.name()));
+        }
+        pending.add(Pending.knownEntryStart(record, old.method, old.crc, old.compressedSize, old.size));
+
+        int chunkSize = options.getChunkSize();
+        long remaining = old.compressedSize;
+        long position = old.dataOffset;
+        while (remaining > 0) {
+            int length = (int) Math.min(chunkSize, remaining);
+            byte[] chunk = new byte[length];
+            previousArchive.seek(position);
+            previousArchive.readFully(chunk);
+            enqueueRaw(chunk, length);
+            position += length;
+            remaining -= length;
+            monitor.throwIfCanceled();
+        }
+        monitor.advance(old.size);
+
+        pending.add(Pending.entryEnd(record, old.crc, old.size));
+        reusedEntryCount++;
+        reusedBytes += old.size;
+        return old.size;
+    }
+
+    /**
+     * Queues a source as a stored entry. The CRC-32 is computed first so it can go in the local
+     * header; readers such as {@link java.util.zip.ZipInputStream} cannot handle stored entries that
+     * rely on a data descriptor.
+     */
+    private long addStoredSource(ZipSource source) throws IOException {
+        ZipManifest.Entry record = new ZipManifest.Entry(source.entryName, source.lastModified);
+        int chunkSize = options.getChunkSize();
+        CRC32 crc = new CRC32();
+        long size = 0;
+
+        try (InputStream in = source.open()) {
+            byte[] buffer = new byte[chunkSize];
+            int length;
+            while ((length = readFully(in, buffer)) > 0) {
+                crc.update(buffer, 0, length);
+                size += length;
+                monitor.throwIfCanceled();
+            }
+        }
+
+        pending.add(Pending.knownEntryStart(record, ZipArchiveWriter.METHOD_STORED, crc.getValue(), size, size));
+
+        // Checksum the copy again: closeEntry() rejects it if the file changed since the first pass.
+        crc.reset();
+        ChecksumSink[] sinks = newSinks();
+        long copied = 0;
+        try (InputStream in = source.open()) {
+            while (true) {
+                byte[] chunk = new byte[chunkSize];
+                int length = readFully(in, chunk);
+                if (length == 0) {
+                    break;
+                }
+                crc.update(chunk, 0, length);
+                for (ChecksumSink sink : sinks) {
+                    sink.update(chunk, 0, length);
+                }
+                copied += length;
+                enqueueRaw(chunk, length);
+                monitor.advance(length);
+            }
+        }
+
+        recordChecksums(record, sinks);
+        pending.add(Pending.entryEnd(record, crc.getValue(), copied));
+        storedEntryCount++;
+        storedBytes += copied;
+        return copied;
+    }
+
+    /**
+     * Queues a source as a deflated entry, compressing its chunks on the worker pool.
+     *
+     * @param first The first chunk, already taken from {@code reader}.
+     */
+    private long addDeflatedSource(ZipSource source, ChunkReader reader, Chunk first, int level) throws IOException {
+        ZipManifest.Entry record = new ZipManifest.Entry(source.entryName, source.lastModified);
+        pending.add(Pending.entryStart(record, source.size));
+
+        int chunkSize = options.getChunkSize();
+        CRC32 crc = new CRC32();
+        ChecksumSink[] sinks = newSinks();
+        long size = 0;
+        Chunk chunk = first;
+        byte[] dictionary = null;
+
+        while (true) {
+            // Read one chunk ahead: a full chunk is only known to be the last once EOF is seen.
+            Chunk next = chunk.length == chunkSize ? reader.next() : null;
+            boolean last = next == null || next.length == 0;
+
+            crc.update(chunk.data, 0, chunk.length);
+            for (ChecksumSink sink : sinks) {
+                sink.update(chunk.data, 0, chunk.length);
+            }
+            size += chunk.length;
+            submit(chunk.data, chunk.length, dictionary, last, level);
+            monitor.advance(chunk.length);
+            if (last) {
+                break;
+            }
+
+            dictionary = Arrays.copyOfRange(chunk.data, chunk.length - DICTIONARY_SIZE, chunk.length);
+            chunk = next;
+        }
+
+        recordChecksums(record, sinks);
+        pending.add(Pending.entryEnd(record, crc.getValue(), size));
+        return size;
+    }
+
+    /**
+     * Returns fresh sinks for the checksums the options ask for, in the order of {@link #algorithms}.
+     */
+    private ChecksumSink[] newSinks() {
+        ChecksumSink[] sinks = new ChecksumSink[algorithms.length];
+        for (int i = 0; i < sinks.length; i++) {
+            sinks[i] = algorithms[i].newSink();
+        }
+        return sinks;
+    }
+
+    private void recordChecksums(ZipManifest.Entry record, ChecksumSink[] sinks) {
+        for (int i = 0; i < sinks.length; i++) {
+            recordChecksum(record, algorithms[i], sinks[i].getHexValue());
+        }
+    }
+
+    /**
+     * Notes an entry's checksum in both the report and the manifest.
+     */
+    private void recordChecksum(ZipManifest.Entry record, ChecksumSink.Algorithm algorithm, String value) {
+        if (record.checksums == null) {
+            record.checksums = new HashMap<>();
+        }
+        record.checksums.put(algorithm.name(), value);
+        checksums.get(algorithm).put(record.path, value);
+    }
+
+    /**
+     * Queues a chunk for compression, first writing finished work until it fits the memory budget.
+     */
+    private void submit(byte[] data, int length, byte[] dictionary, boolean last, int level) throws IOException {
+        // The input stays referenced until the task runs, and the output until it is written.
+        long cost = (long) data.length + length;
+        awaitBudget(cost);
+
+        Future<Deflated> future = pool.submit(new DeflateTask(data, length, dictionary, last, level));
+        pending.add(Pending.chunk(future, cost));
+        inFlightBytes += cost;
+        writeReady();
+    }
+
+    /**
+     * Queues data to be written unchanged, first writing finished work until it fits the memory budget.
+     */
+    private void enqueueRaw(byte[] data, int length) throws IOException {
+        long cost = data.length;
+        awaitBudget(cost);
+        pending.add(Pending.raw(data, length, cost));
+        inFlightBytes += cost;
+        writeReady();
+    }
+
+    private void awaitBudget(long cost) throws IOException {
+        while (!pending.isEmpty() && inFlightBytes + cost > options.getMaxInFlightBytes()) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Writes whatever has already completed, so output keeps pace with input.
+     */
+    private void writeReady() throws IOException {
+        while (!pending.isEmpty() && pending.peek().isReady()) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Writes the oldest queued item, waiting for its compression to finish if needed.
+     */
+    private void writeNext() throws IOException {
+        Pending item = pending.poll();
+        switch (item.kind) {
+            case Pending.ENTRY_START:
+                writer.putNextEntry(item.record.path, item.record.lastModified, ZipArchiveWriter.METHOD_DEFLATED,
+                        item.size);
+                item.record.method = ZipArchiveWriter.METHOD_DEFLATED;
+                item.record.dataOffset = writer.getPosition();
+                break;
+            case Pending.KNOWN_ENTRY_START:
+                writer.putNextEntry(item.record.path, item.record.lastModified, item.method,
+                        item.crc, item.compressedSize, item.size);
+                item.record.method = item.method;
+                item.record.dataOffset = writer.getPosition();
+                break;
+            case Pending.RAW:
+                writer.write(item.data, 0, item.length);
+                inFlightBytes -= item.cost;
+                break;
+            case Pending.CHUNK:
+                Deflated deflated = await(item.future);
+                writer.write(deflated.data, 0, deflated.length);
+                inFlightBytes -= item.cost;
+                break;
+            default:
+                item.record.crc = item.crc;
+                item.record.size = item.size;
+                item.record.compressedSize = writer.getPosition() - item.record.dataOffset;
+                writer.closeEntry(item.crc, item.size);
+                manifest.entries.add(item.record);
+                break;
+        }
+    }
+
+    private static Deflated await(Future<Deflated> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Compression failed", cause);
+        }
+    }
+
+    private static void endAll(ConcurrentLinkedQueue<Deflater> queue) {
+        Deflater deflater;
+        while ((deflater = queue.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Deflates one chunk on a worker thread with a pooled {@link Deflater}.
+     */
+    private final class DeflateTask implements Callable<Deflated> {
+
+        private final byte[] data;
+        private final int length;
+        private final byte[] dictionary;
+        private final boolean last;
+        private final int level;
+
+        DeflateTask(byte[] data, int length, byte[] dictionary, boolean last, int level) {
+            this.data = data;
+            this.length = length;
+            this.dictionary = dictionary;
+            this.last = last;
+            this.level = level;
+        }
+
+        @Override
+        public Deflated call() {
+            // Deflaters are pooled per level rather than switched with setLevel(), which zlib
+            // applies lazily and which older versions handle poorly after setDictionary().
+            ConcurrentLinkedQueue<Deflater> queue = level == options.getCompressionLevel() ? deflaters : storingDeflaters;
+            Deflater deflater = queue.poll();
+            if (deflater == null) {
+                deflater = new Deflater(level, true);
+            } else {
+                deflater.reset();
+            }
+
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(data, 0, length);
+                if (last) {
+                    deflater.finish();
+                }
+
+                // Incompressible data grows slightly; start a little above the input size.
+                byte[] out = new byte[length + (length >> 6) + 64];
+                int total = 0;
+                while (true) {
+                    int room = out.length - total;
+                    int written = deflater.deflate(out, total, room, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                    total += written;
+                    boolean done = last ? deflater.finished() : written < room;
+                    if (done) {
+                        return new Deflated(out, total);
+                    }
+                    if (total == out.length) {
+                        out = Arrays.copyOf(out, out.length + (out.length >> 1));
+                    }
+                }
+            } finally {
+                queue.offer(deflater);
+            }
+        }
+
+    }
+
+    /**
+     * A block of source data. Only the last chunk of a source is shorter than the chunk size.
+     */
+    private static final class Chunk {
+
+        final byte[] data;
+        final int length;
+
+        Chunk(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+    }
+
+    /**
+     * Hands out a source's data chunk by chunk.
+     */
+    private interface ChunkReader {
+
+        Chunk next() throws IOException;
+
+    }
+
+    /**
+     * Reads chunks on the calling thread.
+     */
+    private final class DirectReader implements ChunkReader, Closeable {
+
+        private final InputStream in;
+
+        DirectReader(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            byte[] data = new byte[options.getChunkSize()];
+            return new Chunk(data, readFully(in, data));
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+    /**
+     * Reads a one-shot source on a background thread, a few chunks ahead of the encoder.
+     */
+    private final class Prefetch implements ChunkReader, Runnable {
+
+        private final ZipSource source;
+        private final ArrayBlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(PREFETCH_QUEUE_CHUNKS);
+        private volatile IOException failure;
+
+        Prefetch(ZipSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            int chunkSize = options.getChunkSize();
+            try (InputStream in = source.open()) {
+                while (true) {
+                    byte[] data = new byte[chunkSize];
+                    int length = readFully(in, data);
+                    queue.put(new Chunk(data, length));
+                    if (length < chunkSize) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // The encoder gave up; the stream is closed on the way out.
+            } catch (IOException | RuntimeException e) {
+                failure = new IOException("Could not read " + source.entryName, e);
+                try {
+                    queue.put(FAILED);
+                } catch (InterruptedException ignored) {
+                    // The encoder gave up.
+                }
+            }
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            Chunk chunk;
+            try {
+                chunk = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + source.entryName);
+            }
+            if (chunk == FAILED) {
+                throw failure;
+            }
+            return chunk;
+        }
+
+    }
+
+    private static final class Deflated {
+
+        final byte[] data;
+        final int length;
+
+        Deflated(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+    }
+
+    /**
+     * One item of the ordered write queue: an entry header, a compressed or raw chunk, or an entry
+     * trailer.
+     */
+    private static final class Pending {
+
+        static final int ENTRY_START = 0;
+        static final int CHUNK = 1;
+        static final int ENTRY_END = 2;
+        static final int KNOWN_ENTRY_START = 3;
+        static final int RAW = 4;
+
+        final int kind;
+        ZipManifest.Entry record;
+        int method;
+        Future<Deflated> future;
+        byte[] data;
+        int length;
+        long cost;
+        long crc;
+        long compressedSize;
+        long size;
+
+        private Pending(int kind) {
+            this.kind = kind;
+        }
+
+        static Pending entryStart(ZipManifest.Entry record, long sizeHint) {
+            Pending item = new Pending(ENTRY_START);
+            item.record = record;
+            item.size = sizeHint;
+            return item;
+        }
+
+        static Pending knownEntryStart(ZipManifest.Entry record, int method, long crc, long compressedSize, long size) {
+            Pending item = new Pending(KNOWN_ENTRY_START);
+            item.record = record;
+            item.method = method;
+            item.crc = crc;
+            item.compressedSize = compressedSize;
+            item.size = size;
+            return item;
+        }
+
+        static Pending raw(byte[] data, int length, long cost) {
+            Pending item = new Pending(RAW);
+            item.data = data;
+            item.length = length;
+            item.cost = cost;
+            return item;
+        }
+
+        static Pending chunk(Future<Deflated> future, long cost) {
+            Pending item = new Pending(CHUNK);
+            item.future = future;
+            item.cost = cost;
+            return item;
+        }
+
+        static Pending entryEnd(ZipManifest.Entry record, long crc, long size) {
+            Pending item = new Pending(ENTRY_END);
+            item.record = record;
+            item.crc = crc;
+            item.size = size;
+            return item;
+        }
+
+        boolean isReady() {
+            return kind != CHUNK || future.isDone();
+        }
+
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        WorkerFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
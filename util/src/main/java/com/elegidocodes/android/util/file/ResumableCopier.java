@@ -0,0 +1,576 @@
+package com.elegidocodes.android.util.file;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.OperationCanceledException;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Copies content into a file so that a copy cut short, for example because the process was killed,
+ * continues where it stopped instead of starting over.
+ *
+ * <p>The data goes into {@code <target>.part}. Every {@link #CHECKPOINT_INTERVAL} bytes the part
+ * file is synced to disk and a small checkpoint record, {@code <target>.part.checkpoint}, is
+ * replaced atomically. It holds the offset reached, the identity of the source (URI, size,
+ * last-modified time), the CRC-32 of everything copied so far, and the CRC-32 of the last
+ * {@link #WINDOW_SIZE} bytes before the offset.</p>
+ *
+ * <p>On resume the prefix is verified cheaply rather than re-read: the window is read back from the
+ * part file, and again from the source after positioning it just before the offset, with a
+ * positioned read where the source is a file descriptor and {@code skip()} otherwise. If both
+ * match the recorded CRC, copying continues at the offset; if not, it starts over. The running
+ * CRC-32 of the whole content is carried across resumes with a CRC combine, so the final value
+ * needs no second pass.</p>
+ *
+ * <p>Copies into the same target are serialized: within the process by path, across processes with
+ * a {@link FileChannel#lock()} on the part file. Once a copy of a source whose size is known
+ * completes, its checkpoint is kept as a record of the final CRC-32, so a later copy of the
+ * unchanged source into the unchanged target, including one that waited for the lock, returns
+ * without reading the source.</p>
+ */
+final class ResumableCopier {
+
+    private static final String TAG = "ResumableCopier";
+
+    /**
+     * Bytes copied between two checkpoints. Each one costs an fsync and a read of
+     * {@link #WINDOW_SIZE} bytes, well under 1% of the copy.
+     */
+    static final long CHECKPOINT_INTERVAL = 8L * 1024 * 1024;
+
+    /**
+     * Bytes before the offset compared on both sides when resuming.
+     */
+    static final int WINDOW_SIZE = 64 * 1024;
+
+    static final String PART_SUFFIX = ".part";
+    static final String CHECKPOINT_SUFFIX = ".part.checkpoint";
+
+    /**
+     * How often a caller waiting for another thread's copy of the same target checks for
+     * cancellation.
+     */
+    private static final long WAIT_MILLIS = 100;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Paths of the part files being written by threads of this process. {@link FileChannel#lock()}
+     * only excludes other processes.
+     */
+    private static final Set<String> ACTIVE = new HashSet<>();
+
+    private ResumableCopier() {
+    }
+
+    /**
+     * Copies the content of {@code uri} into {@code target}, resuming an earlier interrupted copy of
+     * the same source if possible.
+     *
+     * <p>On failure or cancellation the part file and checkpoint are kept for the next attempt. If
+     * {@code target} already holds a completed copy of the same source, it is checked against the
+     * recorded CRC-32 and kept as is.</p>
+     *
+     * @param sourceSize         The size reported by the provider, or -1 if unknown.
+     * @param sourceLastModified The last-modified time reported by the provider, or 0 if unknown.
+     * @return The CRC-32 of the content.
+     */
+    static long copy(ContentResolver resolver, Uri uri, long sourceSize, long sourceLastModified, File target)
+            throws IOException {
+        File part = new File(target.getPath() + PART_SUFFIX);
+        String key = part.getAbsolutePath();
+        enter(key);
+        try {
+            while (true) {
+                try (RandomAccessFile file = new RandomAccessFile(part, "rw")) {
+                    // Released when the file is closed
+                    file.getChannel().lock();
+                    if (!part.isFile()) {
+                        // Renamed to the target by the process that held the lock; lock the new part file.
+                        continue;
+                    }
+                    return copyLocked(resolver, uri, sourceSize, sourceLastModified, target, part, file.getChannel());
+                }
+            }
+        } finally {
+            exit(key);
+        }
+    }
+
+    private static long copyLocked(ContentResolver resolver, Uri uri, long sourceSize, long sourceLastModified,
+                                   File target, File part, FileChannel channel) throws IOException {
+        File checkpointFile = new File(target.getPath() + CHECKPOINT_SUFFIX);
+
+        long crc = completedCrc(target, checkpointFile, uri, sourceSize, sourceLastModified);
+        if (crc >= 0) {
+            part.delete();
+            return crc;
+        }
+
+        Checkpoint start = new Checkpoint(uri, sourceSize, sourceLastModified);
+        Checkpoint checkpoint = Checkpoint.read(checkpointFile, part, uri, sourceSize, sourceLastModified);
+        if (checkpoint != null) {
+            crc = copyFrom(resolver, uri, channel, checkpointFile, checkpoint);
+            if (crc < 0) {
+                Log.i(TAG, "Copied prefix no longer matches, starting over: " + target.getAbsolutePath());
+            }
+        }
+        if (crc < 0) {
+            crc = copyFrom(resolver, uri, channel, checkpointFile, start);
+        }
+
+        if (target.exists() && !target.delete()) {
+            throw new IOException("Could not replace " + target.getAbsolutePath());
+        }
+        if (!part.renameTo(target)) {
+            throw new IOException("Could not rename " + part.getAbsolutePath());
+        }
+        if (sourceSize >= 0) {
+            try {
+                write(checkpointFile, new Checkpoint(start, sourceSize, crc));
+            } catch (IOException e) {
+                // Only costs the shortcut on the next call
+                checkpointFile.delete();
+            }
+        } else {
+            checkpointFile.delete();
+        }
+        return crc;
+    }
+
+    /**
+     * Returns the recorded CRC-32 if {@code target} is a completed copy of the source with the
+     * expected length and checksum, or -1 otherwise.
+     */
+    private static long completedCrc(File target, File checkpointFile, Uri uri, long sourceSize,
+                                     long sourceLastModified) throws IOException {
+        if (sourceSize < 0 || !target.isFile() || target.length() != sourceSize) {
+            return -1;
+        }
+        Checkpoint checkpoint = Checkpoint.load(checkpointFile);
+        if (checkpoint == null
+                || !checkpoint.matches(uri, sourceSize, sourceLastModified)
+                || checkpoint.offset != sourceSize) {
+            return -1;
+        }
+
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[FileCopier.DEFAULT_BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                crc.update(buffer, 0, read);
+                OperationMonitor.current().throwIfCanceled();
+            }
+        }
+        return crc.getValue() == checkpoint.crc ? checkpoint.crc : -1;
+    }
+
+    /**
+     * Waits until no other thread of this process is copying into the part file at {@code key}.
+     */
+    private static void enter(String key) throws InterruptedIOException {
+        synchronized (ACTIVE) {
+            while (!ACTIVE.add(key)) {
+                OperationMonitor.current().throwIfCanceled();
+                try {
+                    ACTIVE.wait(WAIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for another copy of " + key);
+                }
+            }
+        }
+    }
+
+    private static void exit(String key) {
+        synchronized (ACTIVE) {
+            ACTIVE.remove(key);
+            ACTIVE.notifyAll();
+        }
+    }
+
+    /**
+     * Copies from {@code checkpoint.offset} to the end of the source.
+     *
+     * @return The CRC-32 of the whole content, or -1 if the prefix did not verify.
+     */
+    private static long copyFrom(ContentResolver resolver, Uri uri, FileChannel target, File checkpointFile,
+                                 Checkpoint checkpoint) throws IOException {
+        OperationMonitor monitor = OperationMonitor.current();
+        monitor.expect(checkpoint.sourceSize);
+
+        try (InputStream in = open(resolver, uri)) {
+            long offset = checkpoint.offset;
+
+            if (offset > 0 && !verifyPrefix(in, target, checkpoint)) {
+                return -1;
+            }
+            target.truncate(offset);
+            target.position(offset);
+            monitor.advance(offset);
+
+            ReadableByteChannel source = in instanceof FileInputStream
+                    ? ((FileInputStream) in).getChannel()
+                    : Channels.newChannel(in);
+            long prefixCrc = checkpoint.crc;
+            long segmentStart = offset;
+            CRC32 segmentCrc = new CRC32();
+            long nextCheckpoint = offset + CHECKPOINT_INTERVAL;
+            ByteBuffer buffer = FileCopier.acquireBuffer(checkpoint.sourceSize < 0 ? -1 : checkpoint.sourceSize - offset);
+            byte[] bytes = new byte[buffer.capacity()];
+            try {
+                int read;
+                while ((read = source.read(buffer)) >= 0) {
+                    if (read == 0) {
+                        continue;
+                    }
+                    buffer.flip();
+                    buffer.get(bytes, 0, read).flip();
+                    segmentCrc.update(bytes, 0, read);
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                    offset += read;
+                    monitor.advance(read);
+
+                    if (offset >= nextCheckpoint) {
+                        prefixCrc = crc32Combine(prefixCrc, segmentCrc.getValue(), offset - segmentStart);
+                        save(checkpointFile, target, checkpoint, offset, prefixCrc);
+                        segmentStart = offset;
+                        segmentCrc.reset();
+                        nextCheckpoint = offset + CHECKPOINT_INTERVAL;
+                    }
+                }
+            } catch (OperationCanceledException e) {
+                // Keep what was copied for the next attempt.
+                save(checkpointFile, target, checkpoint, offset,
+                        crc32Combine(prefixCrc, segmentCrc.getValue(), offset - segmentStart));
+                throw e;
+            } finally {
+                FileCopier.releaseBuffer(buffer);
+            }
+
+            if (checkpoint.sourceSize >= 0 && offset != checkpoint.sourceSize) {
+                // The source changed under us; nothing copied can be trusted.
+                target.truncate(0);
+                checkpointFile.delete();
+                throw new IOException("Expected " + checkpoint.sourceSize + " bytes but read " + offset);
+            }
+            target.force(true);
+            return crc32Combine(prefixCrc, segmentCrc.getValue(), offset - segmentStart);
+        }
+    }
+
+    /**
+     * Checks the window before the checkpoint offset in both the part file and the source, leaving
+     * the source positioned at the offset.
+     */
+    private static boolean verifyPrefix(InputStream in, FileChannel target, Checkpoint checkpoint) throws IOException {
+        int window = checkpoint.windowSize;
+        long windowStart = checkpoint.offset - window;
+        if (target.size() < checkpoint.offset
+                || crcOf(target, windowStart, window) != checkpoint.windowCrc) {
+            return false;
+        }
+
+        position(in, windowStart);
+        byte[] data = new byte[window];
+        int total = 0;
+        while (total < window) {
+            int read = in.read(data, total, window - total);
+            if (read < 0) {
+                return false;
+            }
+            total += read;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, window);
+        return crc.getValue() == checkpoint.windowCrc;
+    }
+
+    /**
+     * Moves the source to {@code position}: a seek for file descriptors, {@code skip()} for other
+     * streams, and reading and discarding where neither works.
+     */
+    private static void position(InputStream in, long position) throws IOException {
+        if (in instanceof FileInputStream) {
+            try {
+                ((FileInputStream) in).getChannel().position(position);
+                return;
+            } catch (IOException e) {
+                // A pipe; fall through to skipping.
+            }
+        }
+        long remaining = position;
+        byte[] discard = null;
+        while (remaining > 0) {
+            long skipped;
+            try {
+                skipped = in.skip(remaining);
+            } catch (IOException e) {
+                skipped = 0; // Some streams cannot skip at all
+            }
+            if (skipped <= 0) {
+                if (discard == null) {
+                    discard = new byte[FileCopier.DEFAULT_BUFFER_SIZE];
+                }
+                skipped = in.read(discard, 0, (int) Math.min(discard.length, remaining));
+                if (skipped < 0) {
+                    throw new IOException("Source ended before the resume offset");
+                }
+            }
+            remaining -= skipped;
+            OperationMonitor.current().throwIfCanceled();
+        }
+    }
+
+    /**
+     * Syncs the part file and atomically replaces the checkpoint with one at {@code offset}.
+     */
+    private static void save(File checkpointFile, FileChannel target, Checkpoint checkpoint, long offset, long crc)
+            throws IOException {
+        target.force(false);
+
+        Checkpoint next = new Checkpoint(checkpoint, offset, crc);
+        next.windowSize = (int) Math.min(WINDOW_SIZE, offset);
+        next.windowCrc = crcOf(target, offset - next.windowSize, next.windowSize);
+        write(checkpointFile, next);
+    }
+
+    /**
+     * Atomically replaces the checkpoint file.
+     */
+    private static void write(File checkpointFile, Checkpoint checkpoint) throws IOException {
+        File temp = new File(checkpointFile.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            Writer writer = new OutputStreamWriter(stream, UTF_8);
+            new Gson().toJson(checkpoint, writer);
+            writer.flush();
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(checkpointFile)) {
+            temp.delete();
+            throw new IOException("Could not replace checkpoint: " + checkpointFile.getAbsolutePath());
+        }
+    }
+
+    private static long crcOf(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return -1;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length);
+        return crc.getValue();
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        try {
+            ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, "r");
+            if (descriptor != null) {
+                return new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+            }
+        } catch (FileNotFoundException | SecurityException e) {
+            // Stream-only provider
+        }
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException("No content for " + uri);
+        }
+        return in;
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Returns the CRC-32 of two concatenated blocks from the CRC-32 of each and the length of the
+     * second, as zlib's {@code crc32_combine()} does.
+     */
+    static long crc32Combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        // Operator for one zero bit, then squared into operators for 2, 4, 8... zero bytes.
+        long[] odd = new long[32];
+        long[] even = new long[32];
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+
+        // Applies length2 zero bytes to crc1.
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * The checkpoint record, stored as JSON next to the part file.
+     */
+    static final class Checkpoint {
+
+        private static final int VERSION = 1;
+
+        @SerializedName("version")
+        int version = VERSION;
+
+        @SerializedName("uri")
+        String uri;
+
+        @SerializedName("sourceSize")
+        long sourceSize;
+
+        @SerializedName("sourceLastModified")
+        long sourceLastModified;
+
+        @SerializedName("offset")
+        long offset;
+
+        @SerializedName("crc")
+        long crc;
+
+        @SerializedName("windowSize")
+        int windowSize;
+
+        @SerializedName("windowCrc")
+        long windowCrc;
+
+        /**
+         * Used by Gson.
+         */
+        private Checkpoint() {
+        }
+
+        /**
+         * A checkpoint at offset 0.
+         */
+        Checkpoint(Uri uri, long sourceSize, long sourceLastModified) {
+            this.uri = uri.toString();
+            this.sourceSize = sourceSize;
+            this.sourceLastModified = sourceLastModified;
+        }
+
+        Checkpoint(Checkpoint source, long offset, long crc) {
+            this.uri = source.uri;
+            this.sourceSize = source.sourceSize;
+            this.sourceLastModified = source.sourceLastModified;
+            this.offset = offset;
+            this.crc = crc;
+        }
+
+        /**
+         * Reads the checkpoint, returning {@code null} if it is missing, unreadable, or for a
+         * different or changed source. A source whose size is unknown is never resumed, since a
+         * change to it could go unnoticed.
+         */
+        static Checkpoint read(File checkpointFile, File part, Uri uri, long sourceSize, long sourceLastModified) {
+            if (!checkpointFile.isFile() || !part.isFile() || sourceSize < 0) {
+                return null;
+            }
+
+            Checkpoint checkpoint = load(checkpointFile);
+            if (checkpoint == null
+                    || !checkpoint.matches(uri, sourceSize, sourceLastModified)
+                    || checkpoint.offset <= 0
+                    || checkpoint.offset > sourceSize
+                    || checkpoint.windowSize <= 0
+                    || checkpoint.windowSize > Math.min(WINDOW_SIZE, checkpoint.offset)) {
+                return null;
+            }
+            return checkpoint;
+        }
+
+        /**
+         * Reads the checkpoint without checking it, returning {@code null} if it is missing or
+         * unreadable.
+         */
+        static Checkpoint load(File checkpointFile) {
+            if (!checkpointFile.isFile()) {
+                return null;
+            }
+            try (Reader reader = new InputStreamReader(new FileInputStream(checkpointFile), UTF_8)) {
+                return new Gson().fromJson(reader, Checkpoint.class);
+            } catch (IOException | JsonParseException e) {
+                Log.e(TAG, "Ignoring unreadable checkpoint: " + checkpointFile.getAbsolutePath(), e);
+                return null;
+            }
+        }
+
+        /**
+         * Returns whether this checkpoint was written for the given source.
+         */
+        boolean matches(Uri uri, long sourceSize, long sourceLastModified) {
+            return version == VERSION
+                    && uri.toString().equals(this.uri)
+                    && this.sourceSize == sourceSize
+                    && this.sourceLastModified == sourceLastModified;
+        }
+
+    }
+
+}
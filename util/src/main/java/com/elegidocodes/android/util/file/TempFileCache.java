@@ -0,0 +1,613 @@
+package com.elegidocodes.android.util.file;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A directory of temporary files kept under a byte budget.
+ *
+ * <p>{@link File#deleteOnExit()} is of little use on Android, where processes are killed rather
+ * than exited, so temp files pile up in the cache directory. This cache tracks its files in
+ * least-recently-used order and deletes the oldest ones whenever a new file pushes the total over
+ * the budget. The index lives in memory and is rebuilt from the directory, ordered by modification
+ * time, the first time the cache is used in a process.</p>
+ *
+ * <p>A file is never evicted while it is leased. {@link #createFile(String, String)} and
+ * {@link #acquire(File)} hand out reference-counted {@link Lease}s; close them when done with the
+ * file. Files handed out as a plain {@link File}, such as those from
+ * {@link FileUtil#uriToFile(Context, android.net.Uri, String, String)}, are held only while the
+ * returned {@code File} object is reachable: keep a reference to it for as long as the file is in
+ * use. Once it is garbage collected, or passed to {@link #release(File)}, the file can be evicted
+ * again, so callers that never release their files do not keep the cache over its budget.</p>
+ *
+ * <p>Imports made with
+ * {@link FileUtil#uriToFile(Context, android.net.Uri, String, String, boolean)} in dedup mode are
+ * also indexed by source and by SHA-256 of their content, so a repeated import can hand back the
+ * file already in the cache. These records live only in memory.</p>
+ *
+ * <p>There is one cache per directory. {@link FileUtil#createFile(String, String, String, String)}
+ * allocates through the cache registered for its directory, if any.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * TempFileCache cache = TempFileCache.get(context);
+ * cache.setMaxBytes(100 * 1024 * 1024);
+ * try (TempFileCache.Lease lease = cache.createFile("upload_", ".jpg")) {
+ *     writeThumbnail(lease.getFile());
+ *     upload(lease.getFile());
+ * }
+ * }</pre>
+ * </p>
+ */
+public final class TempFileCache {
+
+    private static final String TAG = "TempFileCache";
+
+    /**
+     * Budget of a new cache: 256 MB.
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Name of the directory used by {@link #get(Context)}, inside {@link Context#getCacheDir()}.
+     */
+    static final String DEFAULT_DIRECTORY = "util_temp";
+
+    private static final Map<String, TempFileCache> CACHES = new HashMap<>();
+
+    private final File directory;
+
+    /**
+     * Access-ordered: iteration starts at the least recently used file.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Deduplicated imports: source key to file path, and content digest to file path.
+     */
+    private final Map<String, String> bySource = new HashMap<>();
+    private final Map<String, String> byDigest = new HashMap<>();
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long totalBytes;
+    private boolean loaded;
+
+    private TempFileCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the cache for the {@value #DEFAULT_DIRECTORY} directory inside the app's cache
+     * directory, used by {@link FileUtil#uriToFile(Context, android.net.Uri, String, String)}.
+     *
+     * @param context The application context.
+     * @return The app's default temp-file cache.
+     */
+    public static TempFileCache get(Context context) {
+        return get(new File(context.getCacheDir(), DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * Returns the cache managing {@code directory}, creating and registering it on first use.
+     *
+     * <p>The cache may delete any file directly inside the directory, so give it one of its own.</p>
+     *
+     * @param directory The directory holding the cached files. It is created if missing.
+     * @return The cache for the directory.
+     * @throws IllegalArgumentException If {@code directory} is {@code null}.
+     */
+    public static TempFileCache get(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        String key = keyOf(directory);
+        synchronized (CACHES) {
+            TempFileCache cache = CACHES.get(key);
+            if (cache == null) {
+                cache = new TempFileCache(new File(key));
+                CACHES.put(key, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the cache registered for {@code directory}, or {@code null} if there is none.
+     */
+    static TempFileCache find(File directory) {
+        synchronized (CACHES) {
+            return CACHES.get(keyOf(directory));
+        }
+    }
+
+    private static String keyOf(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Returns the index key for {@code file}: its path inside the canonical directory.
+     */
+    private String pathOf(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent == null || !keyOf(parent).equals(directory.getPath())) {
+            return file.getAbsolutePath();
+        }
+        return new File(directory, file.getName()).getPath();
+    }
+
+    /**
+     * Returns the directory this cache manages.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the byte budget.
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the byte budget, evicting files right away if the cache is over it.
+     *
+     * @param maxBytes The budget in bytes.
+     * @throws IllegalArgumentException If {@code maxBytes} is negative.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max bytes cannot be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        trim(null);
+    }
+
+    /**
+     * Returns the number of bytes the cached files took up when last measured.
+     */
+    public synchronized long getSize() {
+        ensureLoaded();
+        refreshOpenEnded();
+        return totalBytes;
+    }
+
+    /**
+     * Creates an empty file in the cache and leases it.
+     *
+     * <p>Older files are evicted first if the cache is over its budget. The size of the new file is
+     * measured when the lease is closed.</p>
+     *
+     * @param prefix The file name prefix, at least three characters.
+     * @param suffix The file name suffix, or {@code null} for ".tmp".
+     * @return A lease on the new file.
+     * @throws IOException If the file could not be created.
+     */
+    public Lease createFile(String prefix, String suffix) throws IOException {
+        return new Lease(newEntry(prefix, suffix, true));
+    }
+
+    /**
+     * Creates an empty file in the cache and hands it out as a plain {@link File}. The caller writes
+     * it outside a lease, so its size is re-measured every time the cache trims.
+     */
+    File allocate(String prefix, String suffix) throws IOException {
+        Entry entry = newEntry(prefix, suffix, false);
+        synchronized (this) {
+            File file = handOut(entry);
+            entry.refs--; // The hand-out takes over from the hold taken at creation
+            return file;
+        }
+    }
+
+    private Entry newEntry(String prefix, String suffix, boolean leased) throws IOException {
+        synchronized (this) {
+            ensureLoaded();
+            trim(null);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Could not create cache directory: " + directory.getAbsolutePath());
+        }
+        File file = File.createTempFile(prefix, suffix, directory);
+        synchronized (this) {
+            Entry entry = new Entry(file, 0);
+            entry.refs = 1;
+            entry.openEnded = !leased;
+            entries.put(file.getPath(), entry);
+            return entry;
+        }
+    }
+
+    /**
+     * Leases a file already in the cache, marking it as recently used.
+     *
+     * @param file A file in this cache's directory.
+     * @return A lease on the file, or {@code null} if the file is not in the cache.
+     */
+    public synchronized Lease acquire(File file) {
+        ensureLoaded();
+        Entry entry = entries.get(pathOf(file));
+        if (entry == null || !entry.file.exists()) {
+            return null;
+        }
+        entry.refs++;
+        return new Lease(entry);
+    }
+
+    /**
+     * Leases a file in this cache's directory, adding it to the index first if it was created
+     * outside the cache, such as a file kept under a stable name.
+     */
+    synchronized Lease track(File file) {
+        ensureLoaded();
+        String path = pathOf(file);
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            entry = new Entry(file, file.length());
+            entries.put(path, entry);
+            totalBytes += entry.size;
+        }
+        entry.refs++;
+        return new Lease(entry);
+    }
+
+    /**
+     * Hands out a file as a plain {@link File}, adding it to the index first if it was created
+     * outside the cache.
+     *
+     * @return The {@code File} to give to the caller. The file is held while this object is
+     * reachable or until it is passed to {@link #release(File)}.
+     */
+    synchronized File handOut(File file) {
+        ensureLoaded();
+        String path = pathOf(file);
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            entry = new Entry(file, file.length());
+            entries.put(path, entry);
+            totalBytes += entry.size;
+        }
+        return handOut(entry);
+    }
+
+    /**
+     * Returns a new {@code File} for the entry, weakly referenced so that the hold ends when the
+     * caller drops it. The entry's own {@code File} is never handed out, as the index would keep it
+     * reachable.
+     */
+    private File handOut(Entry entry) {
+        File file = new File(entry.file.getPath());
+        entry.handedOut.add(new WeakReference<>(file));
+        return file;
+    }
+
+    /**
+     * Releases a file handed out by {@link FileUtil#uriToFile(Context, android.net.Uri, String, String)}
+     * or {@link FileUtil#createFile(String, String, String, String)}, so it can be evicted once the
+     * cache needs the space. The hold would also end once the {@code File} is garbage collected;
+     * releasing it lets the cache reclaim the space without waiting for that.
+     *
+     * <p>Example usage:
+     * <pre>{@code
+     * File video = FileUtil.uriToFile(context, uri, "video_", ".mp4");
+     * try {
+     *     upload(video);
+     * } finally {
+     *     TempFileCache.get(context).release(video);
+     * }
+     * }</pre>
+     * </p>
+     *
+     * @param file A file handed out by this cache.
+     * @return {@code true} if the file was held and has been released.
+     */
+    public synchronized boolean release(File file) {
+        ensureLoaded();
+        Entry entry = entries.get(pathOf(file));
+        if (entry == null || !entry.dropHandOut(file)) {
+            return false;
+        }
+        settle(entry);
+        return true;
+    }
+
+    /**
+     * Deletes a file from the cache, even if it is leased.
+     *
+     * @param file A file in this cache's directory.
+     * @return {@code true} if the file was in the cache and is gone.
+     */
+    public synchronized boolean delete(File file) {
+        ensureLoaded();
+        Entry entry = entries.remove(pathOf(file));
+        if (entry == null) {
+            return false;
+        }
+        totalBytes -= entry.size;
+        forget(entry);
+        return entry.file.delete() || !entry.file.exists();
+    }
+
+    /**
+     * Evicts files, least recently used first, until the cache fits its budget. Leased files are
+     * skipped.
+     */
+    public synchronized void trim() {
+        ensureLoaded();
+        trim(null);
+    }
+
+    /**
+     * @param keep An entry that must survive, such as one that was just written.
+     */
+    private void trim(Entry keep) {
+        if (!loaded) {
+            return;
+        }
+        refreshOpenEnded();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isHeld() || entry == keep) {
+                continue;
+            }
+            if (entry.file.delete() || !entry.file.exists()) {
+                iterator.remove();
+                totalBytes -= entry.size;
+                forget(entry);
+            } else {
+                Log.e(TAG, "Could not evict: " + entry.file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Returns the file previously imported under {@code sourceKey}, marking it as recently used and
+     * handing it out, or {@code null} if there is none or it has been evicted.
+     */
+    synchronized File findImport(String sourceKey) {
+        String path = bySource.get(sourceKey);
+        Entry entry = path != null ? entries.get(path) : null;
+        if (entry == null || !entry.file.exists()) {
+            return null;
+        }
+        return handOut(entry);
+    }
+
+    /**
+     * Records a freshly imported file under its source key (if any) and content digest.
+     *
+     * <p>If a file with the same digest is already cached, {@code file} is deleted and the existing
+     * file is returned instead, so identical content is kept once. Either way the returned file is
+     * handed out.</p>
+     *
+     * @param sourceKey The source identity, or {@code null} if the source has none.
+     * @return The file to use from now on: {@code file} or an identical earlier one.
+     */
+    synchronized File registerImport(File file, String sourceKey, String digest) {
+        Entry entry = entries.get(file.getPath());
+        if (entry == null) {
+            return file; // Already gone, nothing to share
+        }
+
+        String existingPath = byDigest.get(digest);
+        Entry existing = existingPath != null ? entries.get(existingPath) : null;
+        if (existing != null && existing != entry && existing.file.exists()) {
+            entries.remove(entry.file.getPath());
+            totalBytes -= entry.size;
+            forget(entry);
+            entry.file.delete();
+            entry = existing;
+        } else {
+            entry.digest = digest;
+            byDigest.put(digest, entry.file.getPath());
+        }
+
+        if (sourceKey != null) {
+            entry.sourceKeys.add(sourceKey);
+            bySource.put(sourceKey, entry.file.getPath());
+        }
+        return handOut(entry);
+    }
+
+    /**
+     * Drops the dedup records pointing at an entry that has left the cache.
+     */
+    private void forget(Entry entry) {
+        if (entry.digest != null) {
+            byDigest.remove(entry.digest);
+        }
+        for (String sourceKey : entry.sourceKeys) {
+            bySource.remove(sourceKey);
+        }
+    }
+
+    /**
+     * Re-measures files written outside a lease, which may have grown since.
+     */
+    private void refreshOpenEnded() {
+        for (Entry entry : entries.values()) {
+            if (entry.openEnded) {
+                updateSize(entry);
+            }
+        }
+    }
+
+    private void updateSize(Entry entry) {
+        long size = entry.file.length();
+        totalBytes += size - entry.size;
+        entry.size = size;
+    }
+
+    /**
+     * Builds the index from the directory the first time it is needed: files oldest first, so the
+     * order of the previous process is roughly kept.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+
+        for (Integer i : order) {
+            File file = files[i];
+            if (file.isFile()) {
+                Entry entry = new Entry(file, file.length());
+                entries.put(file.getPath(), entry);
+                totalBytes += entry.size;
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.refs--;
+        settle(entry);
+    }
+
+    /**
+     * Re-measures an entry after a hold on it ended, trimming the cache if it is no longer held.
+     */
+    private void settle(Entry entry) {
+        if (entries.get(entry.file.getPath()) != entry) {
+            return; // Deleted while leased
+        }
+        // Measured even if still held, so a file handed out after writing counts towards the budget.
+        updateSize(entry);
+        if (entry.isHeld()) {
+            return;
+        }
+        // Keeps the on-disk order in line with the index for the next process.
+        entry.file.setLastModified(System.currentTimeMillis());
+        trim(entry);
+    }
+
+    /**
+     * A hold on a cached file that keeps it from being evicted until closed. Closing more than once
+     * has no further effect.
+     */
+    public final class Lease implements Closeable {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Returns the leased file.
+         */
+        public File getFile() {
+            return entry.file;
+        }
+
+        @Override
+        public void close() {
+            synchronized (TempFileCache.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                release(entry);
+            }
+        }
+
+    }
+
+    private static final class Entry {
+
+        final File file;
+        long size;
+        int refs;
+
+        /**
+         * Written by the caller outside a lease, so the size may change at any time.
+         */
+        boolean openEnded;
+
+        /**
+         * The {@code File} objects handed out for this entry, each holding it while reachable.
+         */
+        final List<WeakReference<File>> handedOut = new ArrayList<>(1);
+
+        /**
+         * Content digest and source keys of a deduplicated import.
+         */
+        String digest;
+        final List<String> sourceKeys = new ArrayList<>(1);
+
+        Entry(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        /**
+         * Returns whether a lease or a reachable hand-out holds the entry, dropping hand-outs that
+         * have been garbage collected.
+         */
+        boolean isHeld() {
+            Iterator<WeakReference<File>> iterator = handedOut.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().get() == null) {
+                    iterator.remove();
+                }
+            }
+            return refs > 0 || !handedOut.isEmpty();
+        }
+
+        /**
+         * Ends the hand-out of {@code file}, or of another {@code File} for the same path if the
+         * caller built a new one.
+         *
+         * @return {@code false} if the entry was not handed out.
+         */
+        boolean dropHandOut(File file) {
+            int live = -1;
+            for (int i = 0; i < handedOut.size(); i++) {
+                File handed = handedOut.get(i).get();
+                if (handed == file) {
+                    handedOut.remove(i);
+                    return true;
+                }
+                if (handed != null && live < 0) {
+                    live = i;
+                }
+            }
+            if (live < 0) {
+                return false;
+            }
+            handedOut.remove(live);
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,388 @@
+package com.elegidocodes.android.util.file;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.BaseColumns;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a ZIP archive straight from {@code content://} URIs, such as documents picked by the user,
+ * without first copying them to files with {@link FileUtil#uriToFile(Context, Uri, String, String)}.
+ *
+ * <p>Entry names, sizes, modification times and MIME types are resolved up front, in one pass over
+ * the URIs: MediaStore items from the same collection are looked up with a single query, and other
+ * URIs with one {@link OpenableColumns} query each. Duplicate names get a " (n)" suffix. The content
+ * is then read through the {@link ContentResolver} by background readers that work a few URIs ahead
+ * of the compressor, within the memory budget of the {@link ZipOptions}.</p>
+ *
+ * <p>Since provider streams are read only once, entries that the {@link CompressionPolicy} would
+ * store are written as deflate level 0 instead, which adds about 5 bytes per 64 KB.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * List<Uri> picked = ...; // From ACTION_OPEN_MULTIPLE_DOCUMENTS
+ * ZipReport report = new UriZipBuilder(context)
+ *         .addAll(picked)
+ *         .setOptions(new ZipOptions.Builder().setCompressionLevel(Deflater.BEST_SPEED).build())
+ *         .writeTo(new File(context.getCacheDir(), "documents.zip"));
+ * }</pre>
+ * </p>
+ */
+public final class UriZipBuilder {
+
+    private static final String TAG = "UriZipBuilder";
+
+    /**
+     * Largest number of IDs per MediaStore query, below SQLite's limit of 999 bound arguments.
+     */
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private final Context context;
+    private final List<Uri> uris = new ArrayList<>();
+    private final List<String> entryNames = new ArrayList<>();
+    private ZipOptions options = ZipOptions.defaults();
+
+    /**
+     * Creates a builder.
+     *
+     * @param context The context whose {@link ContentResolver} reads the URIs.
+     */
+    public UriZipBuilder(Context context) {
+        if (context == null) {
+            throw new IllegalArgumentException("Context must not be null");
+        }
+        this.context = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+    }
+
+    /**
+     * Adds a URI, named after its display name.
+     *
+     * @param uri The content to add.
+     * @return This builder.
+     */
+    public UriZipBuilder add(Uri uri) {
+        return add(uri, null);
+    }
+
+    /**
+     * Adds a URI under the given entry name.
+     *
+     * @param uri       The content to add.
+     * @param entryName The name inside the archive, using '/' as the separator, or {@code null} to
+     *                  use the display name.
+     * @return This builder.
+     */
+    public UriZipBuilder add(Uri uri, String entryName) {
+        if (uri == null) {
+            throw new IllegalArgumentException("Uri must not be null");
+        }
+        uris.add(uri);
+        entryNames.add(entryName);
+        return this;
+    }
+
+    /**
+     * Adds several URIs, each named after its display name.
+     *
+     * @param uris The content to add.
+     * @return This builder.
+     */
+    public UriZipBuilder addAll(Collection<Uri> uris) {
+        for (Uri uri : uris) {
+            add(uri, null);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the compression options. Defaults to {@link ZipOptions#defaults()}. The recursive and
+     * incremental settings do not apply to URIs.
+     *
+     * @param options The options.
+     * @return This builder.
+     */
+    public UriZipBuilder setOptions(ZipOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options must not be null");
+        }
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * Writes the archive to a file, replacing it only once the archive is complete.
+     *
+     * @param archive The file to create.
+     * @return A report describing the archive.
+     * @throws IOException If a URI cannot be read or the archive cannot be written.
+     */
+    public ZipReport writeTo(File archive) throws IOException {
+        return new ParallelZipEncoder(options).zip(resolve(), archive, null);
+    }
+
+    /**
+     * Writes the archive to a stream in a single pass. The stream is flushed but not closed.
+     *
+     * @param out The stream that receives the archive.
+     * @return A report describing the archive, with a {@code null} path.
+     * @throws IOException If a URI cannot be read or the stream cannot be written.
+     */
+    public ZipReport writeTo(OutputStream out) throws IOException {
+        return new ParallelZipEncoder(options).zip(resolve(), out);
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * Looks up every URI's metadata and turns the URIs into sources.
+     */
+    private List<ZipSource> resolve() {
+        ContentResolver resolver = context.getContentResolver();
+        int count = uris.size();
+        Metadata[] metadata = new Metadata[count];
+
+        // MediaStore items are grouped by collection so each collection takes one query.
+        Map<String, List<Integer>> mediaGroups = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            metadata[i] = new Metadata();
+            Uri uri = uris.get(i);
+            String collection = getMediaCollection(uri);
+            if (collection != null) {
+                List<Integer> group = mediaGroups.get(collection);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    mediaGroups.put(collection, group);
+                }
+                group.add(i);
+            } else {
+                queryOpenable(resolver, uri, metadata[i]);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> group : mediaGroups.entrySet()) {
+            queryMediaCollection(resolver, Uri.parse(group.getKey()), group.getValue(), metadata);
+        }
+
+        boolean needsMimeTypes = options.getCompressionPolicy() != CompressionPolicy.DEFLATE_ALL;
+        long now = System.currentTimeMillis();
+        Set<String> usedNames = new HashSet<>();
+        List<ZipSource> sources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Uri uri = uris.get(i);
+            Metadata data = metadata[i];
+
+            String name = entryNames.get(i);
+            if (name == null) {
+                name = sanitize(data.displayName != null ? data.displayName : uri.getLastPathSegment(), i);
+            }
+            name = makeUnique(name, usedNames);
+
+            String mimeType = data.mimeType;
+            if (mimeType == null && needsMimeTypes) {
+                mimeType = MimeTypeUtil.getMimeType(context, uri);
+            }
+            long lastModified = data.lastModified > 0 ? data.lastModified : now;
+            sources.add(new UriSource(resolver, uri, name, data.size, lastModified, mimeType));
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the collection URI of a MediaStore item URI such as
+     * {@code content://media/external/images/media/42}, or {@code null} for any other URI.
+     */
+    private static String getMediaCollection(Uri uri) {
+        if (!MediaStore.AUTHORITY.equals(uri.getAuthority()) || uri.getQuery() != null) {
+            return null;
+        }
+        String id = uri.getLastPathSegment();
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return null;
+            }
+        }
+        String text = uri.toString();
+        return text.substring(0, text.length() - id.length() - 1);
+    }
+
+    private void queryMediaCollection(ContentResolver resolver, Uri collection, List<Integer> indices,
+                                      Metadata[] metadata) {
+        String[] projection = {
+                BaseColumns._ID,
+                MediaStore.MediaColumns.DISPLAY_NAME,
+                MediaStore.MediaColumns.SIZE,
+                MediaStore.MediaColumns.DATE_MODIFIED,
+                MediaStore.MediaColumns.MIME_TYPE
+        };
+
+        for (int from = 0; from < indices.size(); from += MAX_IDS_PER_QUERY) {
+            int to = Math.min(indices.size(), from + MAX_IDS_PER_QUERY);
+            Map<String, List<Integer>> byId = new LinkedHashMap<>();
+            for (int j = from; j < to; j++) {
+                int index = indices.get(j);
+                String id = uris.get(index).getLastPathSegment();
+                List<Integer> same = byId.get(id);
+                if (same == null) {
+                    same = new ArrayList<>();
+                    byId.put(id, same);
+                }
+                same.add(index);
+            }
+
+            char[] placeholders = new char[byId.size() * 2 - 1];
+            Arrays.fill(placeholders, ',');
+            for (int j = 0; j < placeholders.length; j += 2) {
+                placeholders[j] = '?';
+            }
+            String selection = BaseColumns._ID + " IN (" + new String(placeholders) + ")";
+            String[] selectionArgs = byId.keySet().toArray(new String[0]);
+
+            try (Cursor cursor = resolver.query(collection, projection, selection, selectionArgs, null)) {
+                if (cursor == null) {
+                    continue;
+                }
+                int idColumn = cursor.getColumnIndex(BaseColumns._ID);
+                while (cursor.moveToNext()) {
+                    List<Integer> matches = byId.get(String.valueOf(cursor.getLong(idColumn)));
+                    if (matches == null) {
+                        continue;
+                    }
+                    for (int index : matches) {
+                        Metadata data = metadata[index];
+                        data.displayName = getString(cursor, MediaStore.MediaColumns.DISPLAY_NAME);
+                        data.size = getLong(cursor, MediaStore.MediaColumns.SIZE, -1);
+                        // MediaStore keeps seconds.
+                        data.lastModified = getLong(cursor, MediaStore.MediaColumns.DATE_MODIFIED, 0) * 1000L;
+                        data.mimeType = getString(cursor, MediaStore.MediaColumns.MIME_TYPE);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error querying " + collection, e);
+            }
+        }
+    }
+
+    private void queryOpenable(ContentResolver resolver, Uri uri, Metadata data) {
+        if (!ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+            return;
+        }
+        boolean document = DocumentsContract.isDocumentUri(context, uri);
+        String[] projection = document
+                ? new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE,
+                DocumentsContract.Document.COLUMN_LAST_MODIFIED, DocumentsContract.Document.COLUMN_MIME_TYPE}
+                : new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE};
+
+        try (Cursor cursor = resolver.query(uri, projection, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                data.displayName = getString(cursor, OpenableColumns.DISPLAY_NAME);
+                data.size = getLong(cursor, OpenableColumns.SIZE, -1);
+                if (document) {
+                    data.lastModified = getLong(cursor, DocumentsContract.Document.COLUMN_LAST_MODIFIED, 0);
+                    data.mimeType = getString(cursor, DocumentsContract.Document.COLUMN_MIME_TYPE);
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error querying " + uri, e);
+        }
+    }
+
+    private static String getString(Cursor cursor, String column) {
+        int index = cursor.getColumnIndex(column);
+        return index < 0 || cursor.isNull(index) ? null : cursor.getString(index);
+    }
+
+    private static long getLong(Cursor cursor, String column, long fallback) {
+        int index = cursor.getColumnIndex(column);
+        return index < 0 || cursor.isNull(index) ? fallback : cursor.getLong(index);
+    }
+
+    /**
+     * Turns a display name into a safe, non-empty, single-level entry name.
+     */
+    private static String sanitize(String name, int index) {
+        if (name == null || name.trim().isEmpty()) {
+            return "file_" + (index + 1);
+        }
+        return name.replace('/', '_').replace('\\', '_');
+    }
+
+    /**
+     * Appends " (n)" before the extension until the name is unused, ignoring case.
+     */
+    private static String makeUnique(String name, Set<String> usedNames) {
+        if (usedNames.add(name.toLowerCase(Locale.ROOT))) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        int slash = name.lastIndexOf('/');
+        boolean hasExtension = dot > slash + 1;
+        String base = hasExtension ? name.substring(0, dot) : name;
+        String extension = hasExtension ? name.substring(dot) : "";
+        for (int n = 1; ; n++) {
+            String candidate = base + " (" + n + ")" + extension;
+            if (usedNames.add(candidate.toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * What the provider reported about a URI.
+     */
+    private static final class Metadata {
+        String displayName;
+        long size = -1;
+        long lastModified;
+        String mimeType;
+    }
+
+    private static final class UriSource extends ZipSource {
+
+        private final ContentResolver resolver;
+        private final Uri uri;
+
+        UriSource(ContentResolver resolver, Uri uri, String entryName, long size, long lastModified, String mimeType) {
+            super(entryName, size, lastModified, mimeType);
+            this.resolver = resolver;
+            this.uri = uri;
+        }
+
+        @Override
+        InputStream open() throws IOException {
+            InputStream in = resolver.openInputStream(uri);
+            if (in == null) {
+                throw new FileNotFoundException("No content for " + uri);
+            }
+            return in;
+        }
+
+        @Override
+        boolean isRepeatable() {
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,389 @@
+package com.elegidocodes.android.util.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Writes the ZIP container format (local headers, data descriptors, central directory) around entry
+ * data that the caller has already compressed.
+ *
+ * <p>{@link java.util.zip.ZipOutputStream} compresses as it writes, on the calling thread. This writer
+ * only frames bytes, so entry data can be deflated elsewhere (for example in parallel chunks) and
+ * handed over in order.</p>
+ *
+ * <p>Entries whose CRC and sizes are not known up front are written with a data descriptor after
+ * their data (general purpose bit 3). Names are stored as UTF-8 (bit 11).</p>
+ *
+ * <p>ZIP64 extensions are used only where a value does not fit in 32 bits: in an entry's headers
+ * when its sizes or offset reach 4 GB, and as an extra end-of-central-directory record when the
+ * archive holds more than 65,535 entries or its central directory lies beyond 4 GB. The local
+ * header of a streamed entry whose size is unknown, or known to reach 4 GB, carries a ZIP64 extra
+ * field with zero sizes, so the entry may grow past 4 GB; its 32-bit size fields stay zero, as
+ * bit 3 requires. As APPNOTE 4.3.9.2 asks, the data descriptor of such an entry has 8-byte sizes
+ * even if the entry ended up small.</p>
+ */
+final class ZipArchiveWriter implements Closeable {
+
+    static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATED = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+
+    private static final int VERSION_NEEDED = 20;
+    private static final int VERSION_NEEDED_ZIP64 = 45;
+
+    /**
+     * Values at or above these limits are replaced by the limit itself, and the real value moves to
+     * a ZIP64 field.
+     */
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    private final OutputStream out;
+    private final byte[] scratch = new byte[128];
+    private final List<Entry> entries = new ArrayList<>();
+    private final Calendar calendar = Calendar.getInstance();
+
+    private long position;
+    private Entry current;
+    private long currentDataStart;
+    private boolean finished;
+
+    /**
+     * @param out The destination. It should be buffered; headers are written in small pieces.
+     */
+    ZipArchiveWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Starts an entry whose CRC and sizes will be given to {@link #closeEntry(long, long)}.
+     *
+     * @param sizeHint The uncompressed size, or -1 if unknown. Entries of unknown size, or known to
+     *                 reach 4 GB, get a ZIP64 extra field in their local header.
+     */
+    void putNextEntry(String name, long lastModified, int method, long sizeHint) throws IOException {
+        Entry entry = newEntry(name, lastModified, method);
+        entry.flags |= FLAG_DATA_DESCRIPTOR;
+        entry.zip64 = sizeHint < 0 || sizeHint >= MAX_32;
+        writeLocalHeader(entry);
+    }
+
+    /**
+     * Starts an entry whose CRC and sizes are already known, so no data descriptor is needed.
+     */
+    void putNextEntry(String name, long lastModified, int method, long crc, long compressedSize, long size)
+            throws IOException {
+        Entry entry = newEntry(name, lastModified, method);
+        entry.crc = crc;
+        entry.compressedSize = compressedSize;
+        entry.size = size;
+        entry.zip64 = compressedSize >= MAX_32 || size >= MAX_32;
+        writeLocalHeader(entry);
+    }
+
+    /**
+     * Writes entry data, already compressed with the entry's method.
+     */
+    void write(byte[] buffer, int offset, int length) throws IOException {
+        if (current == null) {
+            throw new ZipException("No current entry");
+        }
+        out.write(buffer, offset, length);
+        position += length;
+    }
+
+    /**
+     * Ends the current entry.
+     *
+     * @param crc  The CRC-32 of the uncompressed data.
+     * @param size The uncompressed size.
+     */
+    void closeEntry(long crc, long size) throws IOException {
+        Entry entry = current;
+        if (entry == null) {
+            throw new ZipException("No current entry");
+        }
+        long compressedSize = position - currentDataStart;
+
+        if ((entry.flags & FLAG_DATA_DESCRIPTOR) != 0) {
+            entry.crc = crc;
+            entry.compressedSize = compressedSize;
+            entry.size = size;
+            int n = 0;
+            n = putInt(n, DATA_DESCRIPTOR_SIGNATURE);
+            n = putInt(n, (int) crc);
+            // APPNOTE 4.3.9.2: 8-byte sizes whenever the local header has a ZIP64 extra field.
+            if (entry.zip64 || compressedSize >= MAX_32 || size >= MAX_32) {
+                n = putLong(n, compressedSize);
+                n = putLong(n, size);
+            } else {
+                n = putInt(n, (int) compressedSize);
+                n = putInt(n, (int) size);
+            }
+            writeScratch(n);
+        } else if (entry.crc != crc || entry.compressedSize != compressedSize || entry.size != size) {
+            throw new ZipException("Entry " + new String(entry.name, UTF_8) + " does not match its header");
+        }
+
+        entries.add(entry);
+        current = null;
+    }
+
+    /**
+     * Writes the central directory. No entry may be added afterwards.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (current != null) {
+            throw new ZipException("Entry " + new String(current.name, UTF_8) + " was not closed");
+        }
+        long centralStart = position;
+        for (Entry entry : entries) {
+            boolean largeSize = entry.size >= MAX_32;
+            boolean largeCompressedSize = entry.compressedSize >= MAX_32;
+            boolean largeOffset = entry.offset >= MAX_32;
+            // The ZIP64 extra field holds only the values that overflowed, in this order.
+            int extraLength = (largeSize ? 8 : 0) + (largeCompressedSize ? 8 : 0) + (largeOffset ? 8 : 0);
+            boolean zip64 = entry.zip64 || extraLength > 0;
+
+            int n = 0;
+            n = putInt(n, CENTRAL_HEADER_SIGNATURE);
+            n = putShort(n, zip64 ? VERSION_NEEDED_ZIP64 : VERSION_NEEDED);
+            n = putShort(n, zip64 ? VERSION_NEEDED_ZIP64 : VERSION_NEEDED);
+            n = putShort(n, entry.flags);
+            n = putShort(n, entry.method);
+            n = putShort(n, entry.dosTime);
+            n = putShort(n, entry.dosDate);
+            n = putInt(n, (int) entry.crc);
+            n = putInt(n, (int) (largeCompressedSize ? MAX_32 : entry.compressedSize));
+            n = putInt(n, (int) (largeSize ? MAX_32 : entry.size));
+            n = putShort(n, entry.name.length);
+            n = putShort(n, extraLength > 0 ? 4 + extraLength : 0); // extra field length
+            n = putShort(n, 0); // comment length
+            n = putShort(n, 0); // disk number start
+            n = putShort(n, 0); // internal attributes
+            n = putInt(n, 0); // external attributes
+            n = putInt(n, (int) (largeOffset ? MAX_32 : entry.offset));
+            writeScratch(n);
+            writeRaw(entry.name);
+
+            if (extraLength > 0) {
+                n = 0;
+                n = putShort(n, ZIP64_EXTRA_ID);
+                n = putShort(n, extraLength);
+                if (largeSize) {
+                    n = putLong(n, entry.size);
+                }
+                if (largeCompressedSize) {
+                    n = putLong(n, entry.compressedSize);
+                }
+                if (largeOffset) {
+                    n = putLong(n, entry.offset);
+                }
+                writeScratch(n);
+            }
+        }
+        long centralSize = position - centralStart;
+        int count = entries.size();
+
+        int n;
+        if (count >= MAX_16 || centralStart >= MAX_32 || centralSize >= MAX_32) {
+            long zip64EndStart = position;
+            n = 0;
+            n = putInt(n, ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            n = putLong(n, 44); // size of the rest of this record
+            n = putShort(n, VERSION_NEEDED_ZIP64);
+            n = putShort(n, VERSION_NEEDED_ZIP64);
+            n = putInt(n, 0); // this disk
+            n = putInt(n, 0); // disk with the central directory
+            n = putLong(n, count);
+            n = putLong(n, count);
+            n = putLong(n, centralSize);
+            n = putLong(n, centralStart);
+            writeScratch(n);
+
+            n = 0;
+            n = putInt(n, ZIP64_LOCATOR_SIGNATURE);
+            n = putInt(n, 0); // disk with the ZIP64 end record
+            n = putLong(n, zip64EndStart);
+            n = putInt(n, 1); // total number of disks
+            writeScratch(n);
+        }
+
+        n = 0;
+        n = putInt(n, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        n = putShort(n, 0); // this disk
+        n = putShort(n, 0); // disk with the central directory
+        n = putShort(n, Math.min(count, MAX_16));
+        n = putShort(n, Math.min(count, MAX_16));
+        n = putInt(n, (int) Math.min(centralSize, MAX_32));
+        n = putInt(n, (int) Math.min(centralStart, MAX_32));
+        n = putShort(n, 0); // comment length
+        writeScratch(n);
+
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    private Entry newEntry(String name, long lastModified, int method) throws ZipException {
+        if (finished) {
+            throw new ZipException("Archive already finished");
+        }
+        if (current != null) {
+            throw new ZipException("Entry " + new String(current.name, UTF_8) + " was not closed");
+        }
+        Entry entry = new Entry();
+        entry.name = name.getBytes(UTF_8);
+        if (entry.name.length > MAX_16) {
+            throw new ZipException("Entry name too long: " + name);
+        }
+        entry.method = method;
+        entry.flags = FLAG_UTF8;
+        setDosTime(entry, lastModified);
+        return entry;
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException {
+        entry.offset = position;
+        boolean descriptor = (entry.flags & FLAG_DATA_DESCRIPTOR) != 0;
+
+        int n = 0;
+        n = putInt(n, LOCAL_HEADER_SIGNATURE);
+        n = putShort(n, entry.zip64 ? VERSION_NEEDED_ZIP64 : VERSION_NEEDED);
+        n = putShort(n, entry.flags);
+        n = putShort(n, entry.method);
+        n = putShort(n, entry.dosTime);
+        n = putShort(n, entry.dosDate);
+        n = putInt(n, descriptor ? 0 : (int) entry.crc);
+        if (descriptor) {
+            // Sizes follow in the data descriptor.
+            n = putInt(n, 0);
+            n = putInt(n, 0);
+        } else if (entry.zip64) {
+            // The real sizes go in the ZIP64 extra field.
+            n = putInt(n, (int) MAX_32);
+            n = putInt(n, (int) MAX_32);
+        } else {
+            n = putInt(n, descriptor ? 0 : (int) entry.compressedSize);
+            n = putInt(n, descriptor ? 0 : (int) entry.size);
+        }
+        n = putShort(n, entry.name.length);
+        n = putShort(n, entry.zip64 ? 20 : 0); // extra field length
+        writeScratch(n);
+        writeRaw(entry.name);
+
+        if (entry.zip64) {
+            n = 0;
+            n = putShort(n, ZIP64_EXTRA_ID);
+            n = putShort(n, 16);
+            n = putLong(n, descriptor ? 0 : entry.size);
+            n = putLong(n, descriptor ? 0 : entry.compressedSize);
+            writeScratch(n);
+        }
+
+        current = entry;
+        currentDataStart = position;
+    }
+
+    /**
+     * Converts a Java timestamp into MS-DOS date and time fields in the default time zone.
+     */
+    private void setDosTime(Entry entry, long lastModified) {
+        calendar.setTimeInMillis(lastModified);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            // DOS dates start in 1980; this is 1980-01-01 00:00.
+            entry.dosDate = (1 << 5) | 1;
+            entry.dosTime = 0;
+            return;
+        }
+        entry.dosDate = ((year - 1980) << 9)
+                | ((calendar.get(Calendar.MONTH) + 1) << 5)
+                | calendar.get(Calendar.DAY_OF_MONTH);
+        entry.dosTime = (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+                | (calendar.get(Calendar.MINUTE) << 5)
+                | (calendar.get(Calendar.SECOND) >> 1);
+    }
+
+    private int putShort(int index, int value) {
+        scratch[index] = (byte) value;
+        scratch[index + 1] = (byte) (value >>> 8);
+        return index + 2;
+    }
+
+    private int putInt(int index, int value) {
+        scratch[index] = (byte) value;
+        scratch[index + 1] = (byte) (value >>> 8);
+        scratch[index + 2] = (byte) (value >>> 16);
+        scratch[index + 3] = (byte) (value >>> 24);
+        return index + 4;
+    }
+
+    private int putLong(int index, long value) {
+        putInt(index, (int) value);
+        putInt(index + 4, (int) (value >>> 32));
+        return index + 8;
+    }
+
+    private void writeScratch(int length) throws IOException {
+        out.write(scratch, 0, length);
+        position += length;
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    /**
+     * What the central directory needs to know about a written entry.
+     */
+    private static final class Entry {
+        byte[] name;
+        int method;
+        int flags;
+        int dosTime;
+        int dosDate;
+        long crc;
+        long compressedSize;
+        long size;
+        long offset;
+        boolean zip64;
+    }
+
+}
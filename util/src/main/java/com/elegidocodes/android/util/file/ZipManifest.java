@@ -0,0 +1,193 @@
+package com.elegidocodes.android.util.file;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sidecar record of what an archive built by the incremental mode of
+ * {@link FileUtil#zipFolder(android.content.Context, File, String, String, ZipOptions)} contains and
+ * where each entry's compressed data sits, so the next run can copy unchanged entries across
+ * without compressing them again.
+ *
+ * <p>A file counts as unchanged when its size and modification time match the manifest. The
+ * manifest is only trusted while the archive itself still has the recorded length and
+ * modification time.</p>
+ */
+final class ZipManifest {
+
+    private static final String TAG = "ZipManifest";
+
+    private static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @SerializedName("version")
+    int version = VERSION;
+
+    @SerializedName("compressionLevel")
+    int compressionLevel;
+
+    @SerializedName("compressionPolicy")
+    String compressionPolicy;
+
+    @SerializedName("archiveLength")
+    long archiveLength;
+
+    @SerializedName("archiveLastModified")
+    long archiveLastModified;
+
+    @SerializedName("entries")
+    List<Entry> entries = new ArrayList<>();
+
+    private transient Map<String, Entry> byPath;
+
+    /**
+     * Used by Gson.
+     */
+    private ZipManifest() {
+    }
+
+    ZipManifest(ZipOptions options) {
+        this.compressionLevel = options.getCompressionLevel();
+        this.compressionPolicy = options.getCompressionPolicy().name();
+    }
+
+    /**
+     * Reads a manifest, returning {@code null} if it is missing, unreadable, or does not describe
+     * {@code archive} as built with {@code options}.
+     */
+    static ZipManifest read(File manifestFile, File archive, ZipOptions options) {
+        if (!manifestFile.isFile() || !archive.isFile()) {
+            return null;
+        }
+
+        ZipManifest manifest;
+        try (Reader reader = new InputStreamReader(new FileInputStream(manifestFile), UTF_8)) {
+            manifest = new Gson().fromJson(reader, ZipManifest.class);
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "Ignoring unreadable manifest: " + manifestFile.getAbsolutePath(), e);
+            return null;
+        }
+
+        if (manifest == null
+                || manifest.version != VERSION
+                || manifest.entries == null
+                || manifest.archiveLength != archive.length()
+                || manifest.archiveLastModified != archive.lastModified()
+                || manifest.compressionLevel != options.getCompressionLevel()
+                || !options.getCompressionPolicy().name().equals(manifest.compressionPolicy)) {
+            Log.i(TAG, "Manifest is stale, rebuilding archive: " + archive.getAbsolutePath());
+            return null;
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes this manifest for {@code archive}, replacing {@code manifestFile} atomically.
+     */
+    void write(File manifestFile, File archive) throws IOException {
+        archiveLength = archive.length();
+        archiveLastModified = archive.lastModified();
+
+        File temp = new File(manifestFile.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), UTF_8)) {
+            new Gson().toJson(this, writer);
+        }
+        if (!temp.renameTo(manifestFile)) {
+            temp.delete();
+            throw new IOException("Could not replace manifest: " + manifestFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Returns the recorded entry for {@code path} if the file still has the recorded size and
+     * modification time, or {@code null}.
+     */
+    Entry findUnchanged(String path, long size, long lastModified) {
+        if (byPath == null) {
+            byPath = new HashMap<>();
+            for (Entry entry : entries) {
+                byPath.put(entry.path, entry);
+            }
+        }
+        Entry entry = byPath.get(path);
+        return entry != null && entry.size == size && entry.lastModified == lastModified ? entry : null;
+    }
+
+    /**
+     * Returns whether {@code entry} carries every checksum the options ask for, so it can be reused
+     * without reading the file.
+     */
+    static boolean hasChecksums(Entry entry, ZipOptions options) {
+        for (ChecksumSink.Algorithm algorithm : options.getChecksums()) {
+            if (entry.checksums == null || entry.checksums.get(algorithm.name()) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One archive entry: the source file's identity and the location of its data in the archive.
+     */
+    static final class Entry {
+
+        @SerializedName("path")
+        String path;
+
+        @SerializedName("size")
+        long size;
+
+        @SerializedName("lastModified")
+        long lastModified;
+
+        @SerializedName("crc")
+        long crc;
+
+        @SerializedName("method")
+        int method;
+
+        @SerializedName("compressedSize")
+        long compressedSize;
+
+        @SerializedName("dataOffset")
+        long dataOffset;
+
+        /**
+         * Checksums of the content by {@link ChecksumSink.Algorithm} name, or {@code null} if none
+         * were computed.
+         */
+        @SerializedName("checksums")
+        Map<String, String> checksums;
+
+        /**
+         * Used by Gson.
+         */
+        private Entry() {
+        }
+
+        Entry(String path, long lastModified) {
+            this.path = path;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+}
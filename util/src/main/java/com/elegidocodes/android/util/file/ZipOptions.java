@@ -0,0 +1,292 @@
+package com.elegidocodes.android.util.file;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Settings for the parallel mode of {@link FileUtil#zipFolder(android.content.Context, java.io.File, String, String, ZipOptions)}.
+ *
+ * <p>Files are read in chunks of {@link #getChunkSize()} bytes and each chunk is deflated on one of
+ * {@link #getParallelism()} worker threads. Chunks waiting to be written, and their compressed
+ * output, count against {@link #getMaxInFlightBytes()}; when the budget is used up the reader waits
+ * for the oldest chunk to be written before reading more.</p>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * ZipOptions options = new ZipOptions.Builder()
+ *         .setParallelism(4)
+ *         .setCompressionLevel(Deflater.BEST_SPEED)
+ *         .setCompressionPolicy(CompressionPolicy.STORE_COMPRESSED_TYPES)
+ *         .setMaxInFlightBytes(16 * 1024 * 1024)
+ *         .build();
+ * ZipReport report = FileUtil.zipFolder(context, parent, "PDF", "ZIP", options);
+ * }</pre>
+ * </p>
+ */
+public final class ZipOptions {
+
+    /**
+     * Smallest accepted chunk size. Chunks must be larger than the 32 KB deflate window for the
+     * dictionary carried between chunks to be meaningful.
+     */
+    public static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Default chunk size, 1 MB.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Default in-flight memory budget, 32 MB.
+     */
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 32L * 1024 * 1024;
+
+    private final int parallelism;
+    private final int compressionLevel;
+    private final long maxInFlightBytes;
+    private final int chunkSize;
+    private final CompressionPolicy compressionPolicy;
+    private final boolean recursive;
+    private final boolean incremental;
+    private final Set<ChecksumSink.Algorithm> checksums;
+
+    private ZipOptions(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.compressionLevel = builder.compressionLevel;
+        this.maxInFlightBytes = builder.maxInFlightBytes;
+        this.chunkSize = builder.chunkSize;
+        this.compressionPolicy = builder.compressionPolicy;
+        this.recursive = builder.recursive;
+        this.incremental = builder.incremental;
+        this.checksums = Collections.unmodifiableSet(EnumSet.copyOf(builder.checksums));
+    }
+
+    /**
+     * Returns options with every setting at its default.
+     *
+     * @return The default options.
+     */
+    public static ZipOptions defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * Returns the number of worker threads that deflate chunks.
+     *
+     * @return The parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the deflate level, {@link Deflater#DEFAULT_COMPRESSION} or 0-9.
+     *
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Returns the number of bytes of chunk data (input and output) that may wait to be written.
+     *
+     * @return The memory budget in bytes.
+     */
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    /**
+     * Returns the number of input bytes deflated as one unit of work.
+     *
+     * @return The chunk size in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns how entries are chosen to be stored rather than deflated.
+     *
+     * @return The compression policy.
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    /**
+     * Returns whether files in subfolders are added too, under their relative paths.
+     *
+     * @return {@code true} to walk the whole folder tree.
+     */
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    /**
+     * Returns whether an existing archive is updated rather than rebuilt. A manifest is kept next
+     * to the archive, and entries whose files have the same size and modification time as last
+     * time are copied from the old archive without being read or compressed again.
+     *
+     * @return {@code true} to update incrementally.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Returns the checksums computed for every entry's content as it is read, reported by
+     * {@link ZipReport#getChecksum(String, ChecksumSink.Algorithm)}.
+     *
+     * @return The algorithms, possibly none.
+     */
+    public Set<ChecksumSink.Algorithm> getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * Builds {@link ZipOptions}.
+     */
+    public static final class Builder {
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private CompressionPolicy compressionPolicy = CompressionPolicy.ADAPTIVE;
+        private boolean recursive;
+        private boolean incremental;
+        private EnumSet<ChecksumSink.Algorithm> checksums = EnumSet.noneOf(ChecksumSink.Algorithm.class);
+
+        /**
+         * Sets the number of worker threads. Defaults to the number of available processors.
+         *
+         * @param parallelism At least 1.
+         * @return This builder.
+         */
+        public Builder setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the deflate level. Defaults to {@link Deflater#DEFAULT_COMPRESSION}.
+         *
+         * @param compressionLevel {@link Deflater#DEFAULT_COMPRESSION} or 0 ({@link Deflater#NO_COMPRESSION})
+         *                         to 9 ({@link Deflater#BEST_COMPRESSION}).
+         * @return This builder.
+         */
+        public Builder setCompressionLevel(int compressionLevel) {
+            if (compressionLevel != Deflater.DEFAULT_COMPRESSION
+                    && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+                throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Sets the in-flight memory budget. Defaults to {@link #DEFAULT_MAX_IN_FLIGHT_BYTES}. At least
+         * one chunk is always allowed in flight, whatever the budget.
+         *
+         * @param maxInFlightBytes The budget in bytes, positive.
+         * @return This builder.
+         */
+        public Builder setMaxInFlightBytes(long maxInFlightBytes) {
+            if (maxInFlightBytes <= 0) {
+                throw new IllegalArgumentException("In-flight budget must be positive: " + maxInFlightBytes);
+            }
+            this.maxInFlightBytes = maxInFlightBytes;
+            return this;
+        }
+
+        /**
+         * Sets the chunk size. Defaults to {@link #DEFAULT_CHUNK_SIZE}.
+         *
+         * @param chunkSize At least {@link #MIN_CHUNK_SIZE}.
+         * @return This builder.
+         */
+        public Builder setChunkSize(int chunkSize) {
+            if (chunkSize < MIN_CHUNK_SIZE) {
+                throw new IllegalArgumentException("Chunk size must be at least " + MIN_CHUNK_SIZE + ": " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets how entries are chosen to be stored rather than deflated. Defaults to
+         * {@link CompressionPolicy#ADAPTIVE}.
+         *
+         * @param compressionPolicy The policy, not {@code null}.
+         * @return This builder.
+         */
+        public Builder setCompressionPolicy(CompressionPolicy compressionPolicy) {
+            if (compressionPolicy == null) {
+                throw new IllegalArgumentException("Compression policy must not be null");
+            }
+            this.compressionPolicy = compressionPolicy;
+            return this;
+        }
+
+        /**
+         * Sets whether files in subfolders are added too. Defaults to {@code false}.
+         *
+         * @param recursive {@code true} to walk the whole folder tree.
+         * @return This builder.
+         */
+        public Builder setRecursive(boolean recursive) {
+            this.recursive = recursive;
+            return this;
+        }
+
+        /**
+         * Sets whether an existing archive is updated rather than rebuilt. Defaults to {@code false}.
+         * Changing the compression level or policy forces a full rebuild.
+         *
+         * @param incremental {@code true} to update incrementally.
+         * @return This builder.
+         */
+        public Builder setIncremental(boolean incremental) {
+            this.incremental = incremental;
+            return this;
+        }
+
+        /**
+         * Sets the checksums to compute for every entry's content. Defaults to none. They are fed
+         * from the chunks the encoder already reads, so they cost no extra I/O; entries reused by an
+         * incremental update take theirs from the manifest.
+         *
+         * @param algorithms The algorithms, possibly none.
+         * @return This builder.
+         */
+        public Builder setChecksums(ChecksumSink.Algorithm... algorithms) {
+            EnumSet<ChecksumSink.Algorithm> set = EnumSet.noneOf(ChecksumSink.Algorithm.class);
+            for (ChecksumSink.Algorithm algorithm : algorithms) {
+                if (algorithm == null) {
+                    throw new IllegalArgumentException("Checksum algorithm must not be null");
+                }
+                set.add(algorithm);
+            }
+            this.checksums = set;
+            return this;
+        }
+
+        /**
+         * Creates the options.
+         *
+         * @return The options.
+         */
+        public ZipOptions build() {
+            return new ZipOptions(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.elegidocodes.android.util.file;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of creating a ZIP archive with one of the {@link ZipOptions} variants of
+ * {@link FileUtil#zipFolder(android.content.Context, java.io.File, String, String, ZipOptions)}.
+ */
+public final class ZipReport {
+
+    private final String archivePath;
+    private final int entryCount;
+    private final long uncompressedBytes;
+    private final long archiveBytes;
+    private final long elapsedMillis;
+    private final int storedEntryCount;
+    private final long storedBytes;
+    private final int reusedEntryCount;
+    private final long reusedBytes;
+    private final Map<ChecksumSink.Algorithm, Map<String, String>> checksums;
+
+    ZipReport(String archivePath, int entryCount, long uncompressedBytes, long archiveBytes, long elapsedMillis,
+              int storedEntryCount, long storedBytes, int reusedEntryCount, long reusedBytes,
+              Map<ChecksumSink.Algorithm, Map<String, String>> checksums) {
+        this.archivePath = archivePath;
+        this.entryCount = entryCount;
+        this.uncompressedBytes = uncompressedBytes;
+        this.archiveBytes = archiveBytes;
+        this.elapsedMillis = elapsedMillis;
+        this.storedEntryCount = storedEntryCount;
+        this.storedBytes = storedBytes;
+        this.reusedEntryCount = reusedEntryCount;
+        this.reusedBytes = reusedBytes;
+        this.checksums = checksums;
+    }
+
+    /**
+     * Returns the absolute path of the archive.
+     *
+     * @return The archive path, or {@code null} if the archive was written to a stream.
+     */
+    public String getArchivePath() {
+        return archivePath;
+    }
+
+    /**
+     * Returns the number of entries written.
+     *
+     * @return The entry count.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total size of the files that were added.
+     *
+     * @return The uncompressed size in bytes.
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Returns the size of the archive, including headers and the central directory.
+     *
+     * @return The archive size in bytes.
+     */
+    public long getArchiveBytes() {
+        return archiveBytes;
+    }
+
+    /**
+     * Returns how many bytes smaller the archive is than the files it contains. Negative when the
+     * headers outweigh what compression saved.
+     *
+     * @return The saved size in bytes.
+     */
+    public long getSavedBytes() {
+        return uncompressedBytes - archiveBytes;
+    }
+
+    /**
+     * Returns the number of entries written without compression, as chosen by the
+     * {@link CompressionPolicy}.
+     *
+     * @return The stored entry count.
+     */
+    public int getStoredEntryCount() {
+        return storedEntryCount;
+    }
+
+    /**
+     * Returns the total size of the stored entries, which were copied without being deflated.
+     *
+     * @return The stored size in bytes.
+     */
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Returns the number of entries copied from the previous archive because their files had not
+     * changed. Always 0 unless {@link ZipOptions#isIncremental()} is set.
+     *
+     * @return The reused entry count.
+     */
+    public int getReusedEntryCount() {
+        return reusedEntryCount;
+    }
+
+    /**
+     * Returns the uncompressed size of the reused entries, which were neither read nor compressed.
+     *
+     * @return The reused size in bytes.
+     */
+    public long getReusedBytes() {
+        return reusedBytes;
+    }
+
+    /**
+     * Returns the checksum of an entry's content, if {@link ZipOptions#getChecksums()} asked for it.
+     *
+     * @param entryName The entry name, using '/' as the separator.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum as lowercase hexadecimal, or {@code null} if it was not computed.
+     */
+    public String getChecksum(String entryName, ChecksumSink.Algorithm algorithm) {
+        Map<String, String> byEntry = checksums.get(algorithm);
+        return byEntry != null ? byEntry.get(entryName) : null;
+    }
+
+    /**
+     * Returns the checksums of every entry for one algorithm, in archive order.
+     *
+     * @param algorithm The checksum algorithm.
+     * @return Entry names mapped to lowercase hexadecimal checksums; empty if it was not computed.
+     */
+    public Map<String, String> getChecksums(ChecksumSink.Algorithm algorithm) {
+        Map<String, String> byEntry = checksums.get(algorithm);
+        return byEntry != null ? Collections.unmodifiableMap(byEntry) : Collections.<String, String>emptyMap();
+    }
+
+    /**
+     * Returns the wall-clock time taken to build the archive.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ZipReport{" + archivePath
+                + ", entries=" + entryCount
+                + ", uncompressed=" + uncompressedBytes
+                + ", archive=" + archiveBytes
+                + ", stored=" + storedEntryCount + "/" + storedBytes
+                + ", reused=" + reusedEntryCount + "/" + reusedBytes
+                + ", elapsed=" + elapsedMillis + "ms}";
+    }
+
+}
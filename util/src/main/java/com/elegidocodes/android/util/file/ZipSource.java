@@ -0,0 +1,71 @@
+package com.elegidocodes.android.util.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Something {@link ParallelZipEncoder} can turn into an archive entry: a name, what is known about
+ * the content up front, and a way to read it.
+ */
+abstract class ZipSource {
+
+    final String entryName;
+    final long size;
+    final long lastModified;
+    final String mimeType;
+
+    /**
+     * @param entryName    The entry name, using '/' as the separator.
+     * @param size         The content length in bytes, or -1 if unknown.
+     * @param lastModified The modification time in milliseconds since the epoch.
+     * @param mimeType     The MIME type, or {@code null} if unknown.
+     */
+    ZipSource(String entryName, long size, long lastModified, String mimeType) {
+        this.entryName = entryName;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Opens the content for reading from the start.
+     */
+    abstract InputStream open() throws IOException;
+
+    /**
+     * Returns whether the content can be read more than once at little cost. Sources that cannot,
+     * such as content provider streams, are read exactly once, in the background.
+     */
+    abstract boolean isRepeatable();
+
+    /**
+     * Returns a source for a local file.
+     */
+    static ZipSource of(File file, String entryName, String mimeType) {
+        return new FileSource(file, entryName, mimeType);
+    }
+
+    private static final class FileSource extends ZipSource {
+
+        private final File file;
+
+        FileSource(File file, String entryName, String mimeType) {
+            super(entryName, file.length(), file.lastModified(), mimeType);
+            this.file = file;
+        }
+
+        @Override
+        InputStream open() throws IOException {
+            return new FileInputStream(file);
+        }
+
+        @Override
+        boolean isRepeatable() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.elegidocodes.android.util.date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+
+public class BusinessCalendarTest {
+
+    private static final long FRIDAY = BusinessCalendar.toEpochDay(2024, 3, 15);
+    private static final long SATURDAY = FRIDAY + 1;
+    private static final long MONDAY = FRIDAY + 3;
+    private static final long TUESDAY = FRIDAY + 4;
+
+    @Test
+    public void toEpochDay_andDayOfWeek() {
+        assertEquals(0, BusinessCalendar.toEpochDay(1970, 1, 1));
+        assertEquals(19_797, FRIDAY);
+        assertEquals(-1, BusinessCalendar.toEpochDay(1969, 12, 31));
+        assertEquals(Calendar.THURSDAY, BusinessCalendar.dayOfWeek(0));
+        assertEquals(Calendar.FRIDAY, BusinessCalendar.dayOfWeek(FRIDAY));
+        assertEquals(Calendar.WEDNESDAY, BusinessCalendar.dayOfWeek(-1));
+    }
+
+    @Test
+    public void addWorkingDays_skipsWeekendsAndHolidays() {
+        BusinessCalendar calendar = BusinessCalendar.mondayToFriday(null);
+        BusinessCalendar withHoliday = BusinessCalendar.mondayToFriday(new long[]{MONDAY});
+
+        assertEquals(MONDAY, calendar.addWorkingDays(FRIDAY, 1));
+        assertEquals(TUESDAY, withHoliday.addWorkingDays(FRIDAY, 1));
+        assertEquals(FRIDAY, calendar.addWorkingDays(SATURDAY, -1));
+        assertEquals(FRIDAY, withHoliday.addWorkingDays(TUESDAY, -1));
+        assertEquals(SATURDAY, calendar.addWorkingDays(SATURDAY, 0));
+        assertEquals(FRIDAY + 14, calendar.addWorkingDays(FRIDAY, 10));
+    }
+
+    @Test
+    public void workingDaysBetween_countsHalfOpenRange() {
+        BusinessCalendar calendar = BusinessCalendar.mondayToFriday(new long[]{MONDAY, SATURDAY});
+
+        assertEquals(1, calendar.workingDaysBetween(FRIDAY, MONDAY + 1));
+        assertEquals(2, calendar.workingDaysBetween(FRIDAY, TUESDAY + 1));
+        assertEquals(-2, calendar.workingDaysBetween(TUESDAY + 1, FRIDAY));
+        assertEquals(0, calendar.workingDaysBetween(FRIDAY, FRIDAY));
+        assertFalse(calendar.isWorkingDay(MONDAY));
+        assertTrue(calendar.isWorkingDay(TUESDAY));
+    }
+
+    @Test
+    public void arithmetic_matchesDayByDayCount() {
+        Random random = new Random(11);
+        int[][] weeks = {
+                {Calendar.MONDAY, Calendar.TUESDAY, Calendar.WEDNESDAY, Calendar.THURSDAY, Calendar.FRIDAY},
+                {Calendar.SUNDAY, Calendar.MONDAY, Calendar.TUESDAY, Calendar.WEDNESDAY, Calendar.THURSDAY},
+                {Calendar.SATURDAY},
+        };
+        for (int[] weekdays : weeks) {
+            long[] holidays = new long[200];
+            for (int i = 0; i < holidays.length; i++) {
+                holidays[i] = FRIDAY - 1000 + random.nextInt(2000);
+            }
+            BusinessCalendar calendar = new BusinessCalendar(weekdays, holidays);
+
+            for (int i = 0; i < 500; i++) {
+                long from = FRIDAY - 1200 + random.nextInt(2400);
+                long to = from + random.nextInt(400);
+                long count = 0;
+                for (long day = from; day < to; day++) {
+                    if (calendar.isWorkingDay(day)) {
+                        count++;
+                    }
+                }
+                assertEquals(from + ".." + to, count, calendar.workingDaysBetween(from, to));
+
+                long n = 1 + random.nextInt(100);
+                long forward = calendar.addWorkingDays(from, n);
+                assertTrue(calendar.isWorkingDay(forward));
+                assertEquals(n, calendar.workingDaysBetween(from + 1, forward + 1));
+
+                long backward = calendar.addWorkingDays(from, -n);
+                assertTrue(calendar.isWorkingDay(backward));
+                assertEquals(n, calendar.workingDaysBetween(backward, from));
+            }
+        }
+    }
+
+    @Test
+    public void nextWorkingDays_startsOnOrAfterTheGivenDay() {
+        BusinessCalendar calendar = BusinessCalendar.mondayToFriday(new long[]{MONDAY});
+
+        assertArrayEquals(new long[]{FRIDAY, TUESDAY, TUESDAY + 1}, calendar.nextWorkingDays(FRIDAY, 3));
+        assertArrayEquals(new long[]{TUESDAY}, calendar.nextWorkingDays(SATURDAY, 1));
+    }
+
+    @Test
+    public void weekly_yieldsEveryOtherWeekAndSkipsHolidays() {
+        BusinessCalendar calendar = BusinessCalendar.mondayToFriday(new long[]{TUESDAY + 14});
+
+        EpochDayIterator slots = calendar.weekly(MONDAY, MONDAY + 35, 2, Calendar.TUESDAY, Calendar.THURSDAY);
+
+        long[] expected = {TUESDAY, TUESDAY + 2, TUESDAY + 16, TUESDAY + 28, TUESDAY + 30};
+        for (long day : expected) {
+            assertTrue(slots.hasNext());
+            assertEquals(day, slots.nextDay());
+        }
+        assertFalse(slots.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsEmptyWeek() {
+        new BusinessCalendar(new int[0], null);
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.elegidocodes.android.util.date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+public class DateBatchConverterTest {
+
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Mexico_City"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void microsToMicros_keepsSubMillisecondDigits() {
+        String pattern = DateFormats.DATETIME_WITH_MICROS.getPattern();
+        String[] input = {
+                "2025-01-02 15:04:05.123456",
+                "2025-01-02 15:04:05.000001",
+                "2024-02-29 23:59:59.999999",
+                "1969-12-31 18:00:00.000999",
+        };
+
+        DateConversionResult result = DateBatchConverter.forPatterns(pattern, pattern).convert(input);
+
+        assertFalse(result.hasFailures());
+        assertArrayEquals(input, result.getValues());
+    }
+
+    @Test
+    public void timeMicrosToTimeMicros_keepsSubMillisecondDigits() {
+        String pattern = DateFormats.TIME_WITH_MICROS.getPattern();
+        String[] input = {"00:00:00.000001", "12:34:56.654321", "23:59:59.999999"};
+
+        DateConversionResult result = DateBatchConverter.forPatterns(pattern, pattern).convert(input);
+
+        assertFalse(result.hasFailures());
+        assertArrayEquals(input, result.getValues());
+    }
+
+    @Test
+    public void microsToMicros_parallelBatch() {
+        String pattern = DateFormats.DATETIME_WITH_MICROS.getPattern();
+        String[] input = new String[DateBatchConverter.SEQUENTIAL_THRESHOLD * 3 + 7];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = String.format(java.util.Locale.ROOT, "2025-03-%02d 10:%02d:%02d.%06d",
+                    1 + i % 28, i % 60, (i / 60) % 60, i * 37 % 1_000_000);
+        }
+
+        DateConversionResult result = DateBatchConverter.forPatterns(pattern, pattern).convert(input);
+
+        assertFalse(result.hasFailures());
+        assertArrayEquals(input, result.getValues());
+    }
+
+    @Test
+    public void microsToMillis_truncates() {
+        DateConversionResult result = DateBatchConverter
+                .forPatterns(DateFormats.DATETIME_WITH_MICROS.getPattern(), "yyyy-MM-dd HH:mm:ss.SSS")
+                .convert(new String[]{"2025-01-02 15:04:05.123999"});
+
+        assertEquals("2025-01-02 15:04:05.123", result.getValues()[0]);
+    }
+
+    @Test
+    public void millisToMicros_padsWithZeros() {
+        DateConversionResult result = DateBatchConverter
+                .forPatterns("yyyy-MM-dd HH:mm:ss.SSS", DateFormats.DATETIME_WITH_MICROS.getPattern())
+                .convert(new String[]{"2025-01-02 15:04:05.123"});
+
+        assertEquals("2025-01-02 15:04:05.123000", result.getValues()[0]);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.elegidocodes.android.util.date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class DateFormatDetectorTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void detect_acceptsTextFormattedWithEveryPattern() {
+        DateFormatDetector detector = new DateFormatDetector();
+        Random random = new Random(3);
+        for (DateFormats format : DateFormats.values()) {
+            // The JDK writes ZZZZZ as +0000; XXX gives the +00:00 form Android writes.
+            SimpleDateFormat reference = new SimpleDateFormat(format.getPattern().replace("ZZZZZ", "XXX"), Locale.US);
+            reference.setTimeZone(TimeZone.getTimeZone("America/Mexico_City"));
+            for (int i = 0; i < 500; i++) {
+                String text = reference.format(new Date((long) (random.nextDouble() * 4_102_444_800_000L)));
+                assertTrue(format + " " + text, detector.matches(text, format));
+                DateFormats detected = detector.detect(text);
+                assertNotNull(format + " " + text, detected);
+                // Short numeric patterns overlap ("12" is a month, a day and an hour); the first wins.
+                assertTrue(format + " " + text + " " + detected, detected.ordinal() <= format.ordinal());
+            }
+        }
+    }
+
+    @Test
+    public void detect_prefersEarlierFormatsForAmbiguousText() {
+        DateFormatDetector detector = new DateFormatDetector();
+
+        assertEquals(DateFormats.MONTH, detector.detect("12"));
+        assertEquals(DateFormats.DAY_OF_MONTH, detector.detect("25"));
+        assertEquals(DateFormats.HOUR_24, detector.detect("00"));
+        assertEquals(DateFormats.ISO_WITH_OFFSET, detector.detect("2024-03-15T10:20:30.123Z"));
+    }
+
+    @Test
+    public void detect_rejectsOutOfRangeFieldsAndTrailingText() {
+        DateFormatDetector detector = new DateFormatDetector();
+        String[] texts = {"2024-13-15", "2024-03-32", "24:00", "10:60", "2024-03-15x", "2024-3-15", "abc", "", "  "};
+        for (String text : texts) {
+            assertNull(text, detector.detect(text));
+        }
+        assertNull(detector.detect(null, "source"));
+    }
+
+    @Test
+    public void detect_remembersTheLastFormatPerSource() {
+        DateFormatDetector detector = new DateFormatDetector();
+
+        assertEquals(DateFormats.DAY_OF_MONTH, detector.detect("25", "days"));
+        assertEquals(DateFormats.DAY_OF_MONTH, detector.detect("12", "days"));
+        assertEquals(DateFormats.MONTH, detector.detect("12", "months"));
+
+        detector.forget("days");
+        assertEquals(DateFormats.MONTH, detector.detect("12", "days"));
+    }
+
+    @Test
+    public void parseMillis_parsesDetectedFormat() throws ParseException {
+        DateFormatDetector detector = new DateFormatDetector();
+
+        assertEquals(1_710_498_030_000L, detector.parseMillis("2024-03-15 10:20:30", null, UTC));
+        assertEquals(1_710_478_230_123L, detector.parseMillis("2024-03-15T10:20:30.123+05:30", null, UTC));
+        assertEquals(1_710_460_800_000L, detector.parseMillis("Fri, Mar 15, 2024", null, UTC));
+        assertEquals(1_710_460_800_000L, detector.parseMillis("20240315", "compact", UTC));
+    }
+
+    @Test
+    public void parseMillis_reportsWhereUnrecognizedTextStops() {
+        DateFormatDetector detector = new DateFormatDetector();
+        try {
+            detector.parseMillis("2024-03-15x", null, UTC);
+            fail("Expected a ParseException");
+        } catch (ParseException e) {
+            assertEquals(10, e.getErrorOffset());
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.elegidocodes.android.util.date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.TimeZone;
+
+public class DateUtilTest {
+
+    private static final String MICROS_PATTERN = "yyyy-MM-dd HH:mm:ss.SSSSSS";
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void formatEpochMillis_writesSixFractionDigitsAsMicroseconds() {
+        long[] values = {
+                1_700_000_000_123L,
+                1_700_000_000_005L,
+                -1L,
+        };
+
+        String[] formatted = DateUtil.formatEpochMillis(values, MICROS_PATTERN, UTC);
+
+        assertArrayEquals(new String[]{
+                "2023-11-14 22:13:20.123000",
+                "2023-11-14 22:13:20.005000",
+                "1969-12-31 23:59:59.999000",
+        }, formatted);
+    }
+
+    @Test
+    public void formatEpochMillis_fallbackForLargeYears_writesMicroseconds() {
+        // 10000-01-02T01:02:03.123Z is past year 9999, so SimpleDateFormat formats it
+        long millis = CivilTime.daysFromCivil(10000, 1, 2) * CivilTime.MILLIS_PER_DAY + 3_723_123L;
+        long[] values = {1_700_000_000_123L, millis};
+
+        String[] formatted = DateUtil.formatEpochMillis(values, MICROS_PATTERN, UTC);
+
+        assertEquals("2023-11-14 22:13:20.123000", formatted[0]);
+        assertEquals("10000-01-02 01:02:03.123000", formatted[1]);
+    }
+
+    @Test
+    public void formatEpochMillis_fallbackForLocaleDigits_writesMicroseconds() {
+        Locale arabic = new Locale("ar", "EG");
+        char zero = DecimalFormatSymbols.getInstance(arabic).getZeroDigit();
+        long[] values = {1_700_000_000_123L, 1_700_000_000_005L};
+        String[] ascii = DateUtil.formatEpochMillis(values, MICROS_PATTERN, UTC);
+
+        Locale.setDefault(arabic);
+        String[] localized = DateUtil.formatEpochMillis(values, MICROS_PATTERN, UTC);
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(withZeroDigit(ascii[i], zero), localized[i]);
+        }
+    }
+
+    @Test
+    public void simpleDateFormatPattern_expandsOnlyUnquotedSixDigitFractions() {
+        assertEquals("ss.SSS'000' 'o''clock SSSSSS' S SSSSSSS",
+                NumericPatternFormatter.toSimpleDateFormatPattern(
+                        "ss.SSSSSS 'o''clock SSSSSS' S SSSSSSS", Locale.US));
+        assertEquals("ss.SSS", NumericPatternFormatter.toSimpleDateFormatPattern("ss.SSS", Locale.US));
+    }
+
+    private static String withZeroDigit(String text, char zero) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            out.append(c >= '0' && c <= '9' ? (char) (zero + (c - '0')) : c);
+        }
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.elegidocodes.android.util.date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class FixedWidthDateParserTest {
+
+    private static final String[] ZONES = {"UTC", "America/Mexico_City", "Europe/London", "Asia/Kolkata"};
+
+    private static final long FROM_MILLIS = -2_208_988_800_000L; // 1900-01-01T00:00Z
+    private static final long TO_MILLIS = 4_102_444_800_000L; // 2100-01-01T00:00Z
+
+    @Test
+    public void matchesSimpleDateFormat_forFormattedInstants() throws ParseException {
+        DateFormats[] formats = {DateFormats.DATETIME_SECONDS, DateFormats.DATE_DASH, DateFormats.DATE_COMPACT};
+        Random random = new Random(42);
+        for (String id : ZONES) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            for (DateFormats format : formats) {
+                SimpleDateFormat reference = reference(format.getPattern(), zone, true);
+                for (int i = 0; i < 2000; i++) {
+                    long instant = FROM_MILLIS + (long) (random.nextDouble() * (TO_MILLIS - FROM_MILLIS));
+                    String text = reference.format(new Date(instant));
+                    assertEquals(format + " " + id + " " + text,
+                            reference.parse(text).getTime(), format.getParser().parseMillis(text, zone));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesSimpleDateFormat_withOwnOffset() throws ParseException {
+        SimpleDateFormat reference = reference("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", TimeZone.getTimeZone("UTC"), true);
+        FixedWidthDateParser parser = DateFormats.ISO_WITH_OFFSET.getParser();
+        Random random = new Random(7);
+        for (String id : ZONES) {
+            reference.setTimeZone(TimeZone.getTimeZone(id));
+            for (int i = 0; i < 2000; i++) {
+                // From 1970, so that no zone is still on a local mean time with an offset in seconds
+                long instant = (long) (random.nextDouble() * TO_MILLIS);
+                String text = reference.format(new Date(instant));
+                assertEquals(text, instant, parser.parseMillis(text, TimeZone.getTimeZone("Pacific/Auckland")));
+            }
+        }
+    }
+
+    @Test
+    public void microsecondFraction_isReadAsMicroseconds() throws ParseException {
+        TimeZone zone = TimeZone.getTimeZone("America/Mexico_City");
+        SimpleDateFormat reference = reference(DateFormats.DATETIME_SECONDS.getPattern(), zone, true);
+        FixedWidthDateParser parser = DateFormats.DATETIME_WITH_MICROS.getParser();
+
+        long seconds = reference.parse("2024-03-10 08:15:30").getTime();
+        assertEquals(seconds * 1000 + 123_456, parser.parseMicros("2024-03-10 08:15:30.123456", zone));
+        assertEquals(seconds + 123, parser.parseMillis("2024-03-10 08:15:30.123456", zone));
+    }
+
+    @Test
+    public void leapDays_agreeWithStrictSimpleDateFormat() throws ParseException {
+        TimeZone zone = TimeZone.getTimeZone("UTC");
+        SimpleDateFormat strict = reference(DateFormats.DATE_DASH.getPattern(), zone, false);
+        FixedWidthDateParser parser = DateFormats.DATE_DASH.getParser();
+
+        for (String text : new String[]{"2024-02-29", "2000-02-29", "1600-02-29", "0004-02-29"}) {
+            assertEquals(text, strict.parse(text).getTime(), parser.parseMillis(text, zone));
+        }
+        for (String text : new String[]{"2023-02-29", "1900-02-29", "2100-02-29", "2024-02-30"}) {
+            assertRejectedByBoth(strict, parser, text, zone);
+        }
+    }
+
+    @Test
+    public void invalidFields_areRejectedLikeStrictSimpleDateFormat() {
+        TimeZone zone = TimeZone.getTimeZone("UTC");
+        SimpleDateFormat strict = reference(DateFormats.DATETIME_SECONDS.getPattern(), zone, false);
+        FixedWidthDateParser parser = DateFormats.DATETIME_SECONDS.getParser();
+
+        String[] texts = {
+                "2025-00-10 10:00:00",
+                "2025-13-10 10:00:00",
+                "2025-04-00 10:00:00",
+                "2025-04-31 10:00:00",
+                "2025-01-32 10:00:00",
+                "2025-01-10 24:00:00",
+                "2025-01-10 10:60:00",
+                "2025-01-10 10:00:60",
+        };
+        for (String text : texts) {
+            assertRejectedByBoth(strict, parser, text, zone);
+        }
+    }
+
+    @Test
+    public void malformedText_isRejectedAtTheOffendingCharacter() {
+        FixedWidthDateParser parser = DateFormats.DATETIME_SECONDS.getParser();
+        TimeZone zone = TimeZone.getTimeZone("UTC");
+
+        assertErrorOffset(parser, "2025-01-1O 10:00:00", zone, 9);
+        assertErrorOffset(parser, "2025/01/10 10:00:00", zone, 4);
+        assertErrorOffset(parser, "2025-01-10T10:00:00", zone, 10);
+        assertErrorOffset(parser, "2025-1-10 10:00:00", zone, 18);
+        assertErrorOffset(parser, "2025-01-10 10:00:00 ", zone, 19);
+        assertErrorOffset(parser, "", zone, 0);
+    }
+
+    @Test
+    public void twoDigitYears_areRejected() throws ParseException {
+        TimeZone zone = TimeZone.getTimeZone("UTC");
+        SimpleDateFormat lenient = reference(DateFormats.DATE_DASH.getPattern(), zone, true);
+        FixedWidthDateParser parser = DateFormats.DATE_DASH.getParser();
+
+        // A lenient SimpleDateFormat takes "25" for a "yyyy" field as the year 25; the fixed-width
+        // parsers reject a year with fewer than four digits.
+        assertEquals(25, yearOf(lenient.parse("25-01-02"), zone));
+        assertErrorOffset(parser, "25-01-02", zone, 8);
+        assertErrorOffset(DateFormats.DATE_COMPACT.getParser(), "250102", zone, 6);
+
+        // Written with four digits, years below 100 are taken literally by both.
+        for (String text : new String[]{"0025-01-02", "0099-12-31", "0001-01-01"}) {
+            assertEquals(text, lenient.parse(text).getTime(), parser.parseMillis(text, zone));
+        }
+        assertEquals(25, yearOf(new Date(parser.parseMillis("0025-01-02", zone)), zone));
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    /**
+     * A SimpleDateFormat on the proleptic Gregorian calendar, which is what the fixed-width parsers
+     * use for every year.
+     */
+    private static SimpleDateFormat reference(String pattern, TimeZone zone, boolean lenient) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ROOT);
+        GregorianCalendar calendar = new GregorianCalendar(zone, Locale.ROOT);
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        format.setCalendar(calendar);
+        format.setLenient(lenient);
+        return format;
+    }
+
+    private static int yearOf(Date date, TimeZone zone) {
+        GregorianCalendar calendar = new GregorianCalendar(zone, Locale.ROOT);
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        calendar.setTime(date);
+        return calendar.get(GregorianCalendar.YEAR);
+    }
+
+    private static void assertRejectedByBoth(SimpleDateFormat strict, FixedWidthDateParser parser, String text,
+                                             TimeZone zone) {
+        try {
+            strict.parse(text);
+            fail("SimpleDateFormat accepted " + text);
+        } catch (ParseException expected) {
+            // Expected
+        }
+        try {
+            parser.parseMillis(text, zone);
+            fail("Fixed-width parser accepted " + text);
+        } catch (ParseException expected) {
+            // Expected
+        }
+    }
+
+    private static void assertErrorOffset(FixedWidthDateParser parser, String text, TimeZone zone, int offset) {
+        try {
+            parser.parseMillis(text, zone);
+            fail("Accepted " + text);
+        } catch (ParseException e) {
+            assertEquals(text, offset, e.getErrorOffset());
+        }
+    }
+
+}
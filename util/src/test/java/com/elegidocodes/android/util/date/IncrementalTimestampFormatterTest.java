@@ -0,0 +1,70 @@
+package com.elegidocodes.android.util.date;
+
+import static org.junit.Assert.assertEquals;
+
+import com.elegidocodes.android.util.date.DateUtil.DateFormats;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class IncrementalTimestampFormatterTest {
+
+    private static final String[] ZONES = {"UTC", "Europe/London", "America/Mexico_City", "Asia/Kolkata"};
+
+    @Test
+    public void increasingTimestamps_matchSimpleDateFormat() {
+        Random random = new Random(12);
+        for (String id : ZONES) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            IncrementalTimestampFormatter formatter = new IncrementalTimestampFormatter(DateFormats.DATETIME_WITH_MICROS, zone);
+            // Starts just before the 2024 spring-forward weekend in Europe
+            long micros = 1_711_839_000_000_000L;
+            for (int i = 0; i < 20_000; i++) {
+                micros += random.nextInt(4) == 0 ? random.nextInt(600_000_000) : random.nextInt(2_000);
+                assertEquals(id, reference("yyyy-MM-dd HH:mm:ss", zone, micros), formatter.format(micros));
+            }
+        }
+    }
+
+    @Test
+    public void timestampsFromThePast_matchSimpleDateFormat() {
+        Random random = new Random(13);
+        TimeZone zone = TimeZone.getTimeZone("Europe/London");
+        IncrementalTimestampFormatter formatter = new IncrementalTimestampFormatter(DateFormats.TIME_WITH_MICROS, zone);
+        for (int i = 0; i < 5_000; i++) {
+            // Between 1900 and 2100, negative values included
+            long micros = (long) ((random.nextDouble() - 0.35) * 6_300_000_000_000_000L);
+            assertEquals(reference("HH:mm:ss", zone, micros), formatter.format(micros));
+        }
+    }
+
+    @Test
+    public void appendAndGetChars_writeTheSameText() {
+        IncrementalTimestampFormatter formatter = new IncrementalTimestampFormatter(
+                DateFormats.DATETIME_WITH_MICROS, TimeZone.getTimeZone("UTC"));
+        long micros = 1_700_000_000_123_456L;
+
+        StringBuilder out = new StringBuilder("at ");
+        formatter.append(micros, out);
+        char[] chars = new char[formatter.length() + 2];
+        int written = formatter.getChars(micros, chars, 2);
+
+        assertEquals("at 2023-11-14 22:13:20.123456", out.toString());
+        assertEquals(formatter.length(), written);
+        assertEquals("2023-11-14 22:13:20.123456", new String(chars, 2, written));
+    }
+
+    private static String reference(String pattern, TimeZone zone, long epochMicros) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(zone);
+        long millis = Math.floorDiv(epochMicros, 1000L);
+        long fraction = Math.floorMod(epochMicros, 1_000_000L);
+        return format.format(new Date(millis)) + "." + String.format(Locale.US, "%06d", fraction);
+    }
+
+}
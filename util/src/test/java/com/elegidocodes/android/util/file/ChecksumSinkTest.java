@@ -0,0 +1,87 @@
+package com.elegidocodes.android.util.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+public class ChecksumSinkTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    @Test
+    public void xxHash64_matchesReferenceVectors() {
+        assertEquals("ef46db3751d8e999", xxHash64(""));
+        assertEquals("d24ec4f1a98c6e5b", xxHash64("a"));
+        assertEquals("44bc2cf5ad770999", xxHash64("abc"));
+        // 43 bytes: one full 32-byte stripe, then the 8-, 4- and 1-byte tails
+        assertEquals("0b242d361fda71bc", xxHash64("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    public void xxHash64_sameValueWhateverTheChunking() {
+        byte[] data = new byte[1000];
+        new Random(5).nextBytes(data);
+        ChecksumSink whole = ChecksumSink.xxHash64(42);
+        whole.update(data, 0, data.length);
+        String expected = whole.getHexValue();
+
+        Random random = new Random(6);
+        for (int i = 0; i < 200; i++) {
+            ChecksumSink sink = ChecksumSink.xxHash64(42);
+            int offset = 0;
+            while (offset < data.length) {
+                int length = Math.min(random.nextInt(70), data.length - offset);
+                if (random.nextBoolean()) {
+                    sink.update(data, offset, length);
+                } else {
+                    ByteBuffer direct = ByteBuffer.allocateDirect(length);
+                    direct.put(data, offset, length).flip();
+                    sink.update(direct);
+                }
+                offset += length;
+            }
+            assertEquals(expected, sink.getHexValue());
+        }
+    }
+
+    @Test
+    public void xxHash64_seedAndReset() {
+        ChecksumSink seeded = ChecksumSink.xxHash64(1);
+        byte[] abc = "abc".getBytes(ASCII);
+        seeded.update(abc, 0, abc.length);
+        assertNotEquals("44bc2cf5ad770999", seeded.getHexValue());
+
+        ChecksumSink sink = ChecksumSink.xxHash64();
+        sink.update(abc, 0, abc.length);
+        sink.getValue(); // Reading the value does not end the sink
+        sink.reset();
+        sink.update(abc, 0, abc.length);
+        assertEquals("44bc2cf5ad770999", sink.getHexValue());
+    }
+
+    @Test
+    public void wrappedAlgorithms_matchReferenceVectors() {
+        byte[] digits = "123456789".getBytes(ASCII);
+        ChecksumSink crc = ChecksumSink.crc32();
+        crc.update(digits, 0, digits.length);
+        assertEquals("cbf43926", crc.getHexValue());
+
+        byte[] abc = "abc".getBytes(ASCII);
+        ChecksumSink sha256 = ChecksumSink.sha256();
+        sha256.update(abc, 0, abc.length);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", sha256.getHexValue());
+    }
+
+    private static String xxHash64(String text) {
+        byte[] data = text.getBytes(ASCII);
+        ChecksumSink sink = ChecksumSink.xxHash64();
+        sink.update(data, 0, data.length);
+        return sink.getHexValue();
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.elegidocodes.android.util.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+public class ParallelZipEncoderTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void archive_roundTripsThroughZipInputStream() throws IOException {
+        Map<String, byte[]> contents = sampleContents();
+        List<ZipSource> sources = write(contents);
+        File archive = new File(folder.getRoot(), "out.zip");
+
+        ZipReport report = new ParallelZipEncoder(options().build()).zip(sources, archive, null);
+
+        assertContents(contents, readStream(new FileInputStream(archive)));
+        assertEquals(contents.size(), report.getEntryCount());
+        assertEquals(1, report.getStoredEntryCount());
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("photo.jpg").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("dir/log.txt").getMethod());
+        }
+    }
+
+    @Test
+    public void stream_roundTripsThroughZipInputStream() throws IOException {
+        Map<String, byte[]> contents = sampleContents();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new ParallelZipEncoder(options().setParallelism(1).build()).zip(write(contents), out);
+
+        assertContents(contents, readStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void checksums_matchEntryContent() throws IOException {
+        Map<String, byte[]> contents = sampleContents();
+        ZipOptions options = options().setChecksums(ChecksumSink.Algorithm.XXHASH64).build();
+
+        ZipReport report = new ParallelZipEncoder(options).zip(write(contents), new ByteArrayOutputStream());
+
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            ChecksumSink sink = ChecksumSink.xxHash64();
+            sink.update(entry.getValue(), 0, entry.getValue().length);
+            assertEquals(entry.getKey(), sink.getHexValue(),
+                    report.getChecksum(entry.getKey(), ChecksumSink.Algorithm.XXHASH64));
+        }
+    }
+
+    @Test
+    public void rebuild_reusesUnchangedEntries() throws IOException {
+        Map<String, byte[]> contents = sampleContents();
+        List<ZipSource> sources = write(contents);
+        File archive = new File(folder.getRoot(), "out.zip");
+        File manifestFile = new File(folder.getRoot(), "out.zip.manifest");
+        ZipOptions options = options().setIncremental(true).build();
+        ParallelZipEncoder encoder = new ParallelZipEncoder(options);
+        encoder.zip(sources, archive, null);
+        encoder.getManifest().write(manifestFile, archive);
+
+        contents.put("dir/log.txt", text("rewritten"));
+        sources = write(contents, "dir/log.txt");
+        ZipManifest previous = ZipManifest.read(manifestFile, archive, options);
+        assertNotNull(previous);
+        ZipReport report = new ParallelZipEncoder(options).zip(sources, archive, previous);
+
+        assertEquals(contents.size() - 1, report.getReusedEntryCount());
+        assertContents(contents, readStream(new FileInputStream(archive)));
+    }
+
+    private static void assertContents(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    private static ZipOptions.Builder options() {
+        return new ZipOptions.Builder().setParallelism(4).setChunkSize(CHUNK_SIZE);
+    }
+
+    /**
+     * Compressible text spanning several chunks, random bytes stored as a JPEG, small and empty files.
+     */
+    private static Map<String, byte[]> sampleContents() {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; log.length() < 5 * CHUNK_SIZE + 123; i++) {
+            log.append("line ").append(i).append(": nothing to report\n");
+        }
+        byte[] photo = new byte[3 * CHUNK_SIZE + 7];
+        new Random(15).nextBytes(photo);
+
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("dir/log.txt", text(log.toString()));
+        contents.put("photo.jpg", photo);
+        contents.put("dir/sub/small.txt", text("hello, world"));
+        contents.put("empty.bin", new byte[0]);
+        return contents;
+    }
+
+    private List<ZipSource> write(Map<String, byte[]> contents, String... changed) throws IOException {
+        File root = new File(folder.getRoot(), "src");
+        List<ZipSource> sources = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            File file = new File(root, entry.getKey());
+            boolean rewrite = !file.exists();
+            for (String name : changed) {
+                rewrite |= name.equals(entry.getKey());
+            }
+            if (rewrite) {
+                file.getParentFile().mkdirs();
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(entry.getValue());
+                }
+            }
+            String mimeType = entry.getKey().endsWith(".jpg") ? "image/jpeg" : null;
+            sources.add(ZipSource.of(file, entry.getKey(), mimeType));
+        }
+        return sources;
+    }
+
+    private static Map<String, byte[]> readStream(InputStream in) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = zip.read(buffer)) != -1) {
+                    data.write(buffer, 0, read);
+                }
+                entries.put(entry.getName(), data.toByteArray());
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(Charset.forName("UTF-8"));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.elegidocodes.android.util.file;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+public class ResumableCopierTest {
+
+    @Test
+    public void crc32Combine_matchesCheckValue() {
+        // CRC-32 of "123456789" is the standard check value 0xcbf43926
+        assertEquals(0xcbf43926L, ResumableCopier.crc32Combine(crc("1234"), crc("56789"), 5));
+        assertEquals(0xcbf43926L, ResumableCopier.crc32Combine(crc("12345678"), crc("9"), 1));
+        assertEquals(0xcbf43926L, ResumableCopier.crc32Combine(0, crc("123456789"), 9));
+        assertEquals(0xcbf43926L, ResumableCopier.crc32Combine(crc("123456789"), 0, 0));
+    }
+
+    @Test
+    public void crc32Combine_matchesCrcOfConcatenation() {
+        Random random = new Random(25);
+        for (int i = 0; i < 300; i++) {
+            byte[] first = new byte[random.nextInt(3000)];
+            byte[] second = new byte[random.nextInt(70_000)];
+            random.nextBytes(first);
+            random.nextBytes(second);
+
+            CRC32 whole = new CRC32();
+            whole.update(first);
+            whole.update(second);
+
+            assertEquals(whole.getValue(), ResumableCopier.crc32Combine(crc(first), crc(second), second.length));
+        }
+    }
+
+    @Test
+    public void crc32Combine_doublingMatchesLongRunOfZeros() {
+        byte[] zeros = new byte[1 << 20];
+        CRC32 direct = new CRC32();
+        long combined = crc(new byte[1]);
+        long length = 1;
+        for (int i = 0; i < 24; i++) {
+            combined = ResumableCopier.crc32Combine(combined, combined, length);
+            length *= 2;
+        }
+        for (int i = 0; i < 16; i++) {
+            direct.update(zeros);
+        }
+        assertEquals(direct.getValue(), combined);
+    }
+
+    private static long crc(String text) {
+        return crc(text.getBytes(Charset.forName("US-ASCII")));
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+}
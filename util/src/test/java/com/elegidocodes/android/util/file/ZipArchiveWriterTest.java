@@ -0,0 +1,288 @@
+package com.elegidocodes.android.util.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+public class ZipArchiveWriterTest {
+
+    private static final long FOUR_GB = 0x100000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void streamedEntries_roundTrip() throws IOException {
+        byte[][] contents = {
+                text("hello, world"),
+                random(200_000, 1),
+                new byte[0],
+                text("ñandú/日本"),
+        };
+
+        byte[] archive = writeStreamed(contents, false);
+
+        assertReadable(archive, contents, true);
+    }
+
+    @Test
+    public void unknownSizeEntries_roundTrip() throws IOException {
+        byte[][] contents = {text("hello, world"), random(200_000, 3), new byte[0]};
+
+        byte[] archive = writeStreamed(contents, true);
+
+        // ZipInputStream before JDK 21, and Android's, sizes the descriptor from the byte counts
+        // instead of from the ZIP64 local extra, so only the central directory is checked here.
+        assertReadable(archive, contents, false);
+    }
+
+    @Test
+    public void knownSizeEntries_roundTrip() throws IOException {
+        byte[][] contents = {random(70_000, 2), text("stored")};
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(archive)) {
+            byte[] deflated = deflate(contents[0]);
+            writer.putNextEntry("dir/entry0", 0, ZipArchiveWriter.METHOD_DEFLATED,
+                    crc(contents[0]), deflated.length, contents[0].length);
+            writer.write(deflated, 0, deflated.length);
+            writer.closeEntry(crc(contents[0]), contents[0].length);
+
+            writer.putNextEntry("dir/entry1", 0, ZipArchiveWriter.METHOD_STORED,
+                    crc(contents[1]), contents[1].length, contents[1].length);
+            writer.write(contents[1], 0, contents[1].length);
+            writer.closeEntry(crc(contents[1]), contents[1].length);
+            writer.finish();
+        }
+
+        assertReadable(archive.toByteArray(), contents, true);
+    }
+
+    @Test
+    public void unknownSizeEntry_hasZip64LocalExtraAndLongDescriptor() throws IOException {
+        byte[] content = text("small");
+        byte[] deflated = deflate(content);
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(archive)) {
+            writer.putNextEntry("a", 0, ZipArchiveWriter.METHOD_DEFLATED, -1);
+            writer.write(deflated, 0, deflated.length);
+            writer.closeEntry(crc(content), content.length);
+            writer.finish();
+        }
+        byte[] bytes = archive.toByteArray();
+
+        assertEquals(45, readShort(bytes, 4)); // version needed for ZIP64
+        assertEquals(0, readInt(bytes, 18)); // compressed size, in the descriptor
+        assertEquals(0, readInt(bytes, 22)); // size, in the descriptor
+        assertEquals(20, readShort(bytes, 28)); // extra field length
+        assertEquals(0x0001, readShort(bytes, 30 + 1)); // ZIP64 extra ID after the 1-byte name
+        int descriptor = 30 + 1 + 20 + deflated.length;
+        assertEquals(0x08074b50, readInt(bytes, descriptor));
+        assertEquals((int) crc(content), readInt(bytes, descriptor + 4));
+        // 8-byte sizes, as the ZIP64 extra in the local header requires, then the central directory
+        assertEquals(deflated.length, readLong(bytes, descriptor + 8));
+        assertEquals(content.length, readLong(bytes, descriptor + 16));
+        assertEquals(0x02014b50, readInt(bytes, descriptor + 24));
+    }
+
+    @Test
+    public void knownSmallEntry_hasShortDescriptor() throws IOException {
+        byte[] content = text("small");
+        byte[] deflated = deflate(content);
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(archive)) {
+            writer.putNextEntry("a", 0, ZipArchiveWriter.METHOD_DEFLATED, content.length);
+            writer.write(deflated, 0, deflated.length);
+            writer.closeEntry(crc(content), content.length);
+            writer.finish();
+        }
+        byte[] bytes = archive.toByteArray();
+
+        assertEquals(0, readShort(bytes, 28)); // no extra field
+        int descriptor = 30 + 1 + deflated.length;
+        assertEquals(0x08074b50, readInt(bytes, descriptor));
+        assertEquals(deflated.length, readInt(bytes, descriptor + 8));
+        assertEquals(content.length, readInt(bytes, descriptor + 12));
+        assertEquals(0x02014b50, readInt(bytes, descriptor + 16));
+    }
+
+    @Test
+    public void unknownSizeEntry_growsPastFourGigabytes() throws IOException {
+        // Zeros deflate to about 4 MB, so the archive stays in memory.
+        long size = FOUR_GB + 12_345;
+        byte[] chunk = new byte[1 << 20];
+        CRC32 crc = new CRC32();
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(archive)) {
+            writer.putNextEntry("big", 0, ZipArchiveWriter.METHOD_DEFLATED, -1);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            byte[] out = new byte[64 * 1024];
+            for (long written = 0; written < size; ) {
+                int length = (int) Math.min(chunk.length, size - written);
+                crc.update(chunk, 0, length);
+                deflater.setInput(chunk, 0, length);
+                while (!deflater.needsInput()) {
+                    int n = deflater.deflate(out);
+                    writer.write(out, 0, n);
+                }
+                written += length;
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(out);
+                writer.write(out, 0, n);
+            }
+            deflater.end();
+            writer.closeEntry(crc.getValue(), size);
+            writer.finish();
+        }
+
+        File file = folder.newFile("big.zip");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            archive.writeTo(out);
+        }
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry entry = zip.getEntry("big");
+            assertEquals(size, entry.getSize());
+            assertEquals(crc.getValue(), entry.getCrc());
+        }
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry entry = in.getNextEntry();
+            assertEquals("big", entry.getName());
+            CRC32 read = new CRC32();
+            long total = 0;
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                read.update(chunk, 0, n);
+                total += n;
+            }
+            assertEquals(size, total);
+            assertEquals(crc.getValue(), read.getValue());
+            assertEquals(size, entry.getSize());
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    // ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+
+    private static byte[] writeStreamed(byte[][] contents, boolean unknownSizes) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(archive)) {
+            for (int i = 0; i < contents.length; i++) {
+                writer.putNextEntry("dir/entry" + i, 0, ZipArchiveWriter.METHOD_DEFLATED,
+                        unknownSizes ? -1 : contents[i].length);
+                byte[] deflated = deflate(contents[i]);
+                writer.write(deflated, 0, deflated.length);
+                writer.closeEntry(crc(contents[i]), contents[i].length);
+            }
+            writer.finish();
+        }
+        return archive.toByteArray();
+    }
+
+    private void assertReadable(byte[] archive, byte[][] contents, boolean streaming) throws IOException {
+        if (streaming) {
+            try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+                for (int i = 0; i < contents.length; i++) {
+                    ZipEntry entry = in.getNextEntry();
+                    assertNotNull(entry);
+                    assertEquals("dir/entry" + i, entry.getName());
+                    assertArrayEquals(contents[i], readAll(in));
+                }
+                assertNull(in.getNextEntry());
+            }
+        }
+
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(archive);
+        }
+        try (ZipFile zip = new ZipFile(file)) {
+            assertEquals(contents.length, zip.size());
+            for (int i = 0; i < contents.length; i++) {
+                ZipEntry entry = zip.getEntry("dir/entry" + i);
+                assertEquals(contents[i].length, entry.getSize());
+                assertEquals(crc(contents[i]), entry.getCrc());
+                try (InputStream in = zip.getInputStream(entry)) {
+                    assertArrayEquals(contents[i], readAll(in));
+                }
+            }
+        }
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(Charset.forName("UTF-8"));
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        for (int i = 0; i < length; i += 3) {
+            bytes[i] = 0; // Compressible, but not entirely
+        }
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return readShort(bytes, offset) | readShort(bytes, offset + 2) << 16;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return (readInt(bytes, offset) & 0xFFFFFFFFL) | (long) readInt(bytes, offset + 4) << 32;
+    }
+
+}